@@ -0,0 +1,68 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Проверка отсутствия выделений памяти в ядре отрисовки: после прогрева отрисовка сцены
+ * ({@link DrawingRenderer#drawBatch(RenderTarget, FigureSource, Viewport, boolean)}) не должна
+ * выделять память в расчёте на фигуру — для каждого типа фигур и для смешанной сцены.
+ * Выделения на вызов (не зависящие от количества фигур) допускаются.
+ * Запуск: {@code ./gradlew allocationCheck} (входит в {@code ./gradlew check}).
+ */
+public class AllocationCheck {
+
+    private static final int FIGURES = 10_000;
+    private static final int WARMUP_DRAWS = 20;
+    private static final int MEASURED_DRAWS = 5;
+
+    /**
+     * Допустимое выделение в байтах на фигуру: на 10 тыс. фигур это 500 байт на вызов,
+     * тогда как любой массив или объект на фигуру дал бы не меньше 16 байт на фигуру.
+     */
+    private static final double MAX_BYTES_PER_FIGURE = 0.05;
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.out.println("Замер выделений памяти не поддерживается этой JVM, проверка пропущена");
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        List<List<FigureType>> scenes = new ArrayList<>();
+        for (FigureType type : FigureType.values()) {
+            scenes.add(List.of(type));
+        }
+        scenes.add(List.of(FigureType.values()));
+
+        boolean failed = false;
+        long thread = Thread.currentThread().getId();
+        for (List<FigureType> types : scenes) {
+            GenerationParams params = new GenerationParams(FIGURES, -100, 100, -100, 100, 0.3, true, types, 42);
+            FigureBatch batch = FigureGenerator.generate(params);
+            RasterRenderTarget target = new RasterRenderTarget(800, 600);
+            Viewport viewport = params.viewport(800, 600);
+            for (int i = 0; i < WARMUP_DRAWS; i++) {
+                DrawingRenderer.drawBatch(target, batch, viewport, params.showGrid());
+            }
+
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < MEASURED_DRAWS; i++) {
+                DrawingRenderer.drawBatch(target, batch, viewport, params.showGrid());
+            }
+            long allocated = threads.getThreadAllocatedBytes(thread) - before;
+            double perFigure = (double) allocated / ((long) MEASURED_DRAWS * FIGURES);
+            boolean ok = perFigure <= MAX_BYTES_PER_FIGURE;
+            failed |= !ok;
+            System.out.printf("%-10s %8.4f байт/фигура %s%n",
+                    types.size() == 1 ? types.get(0) : "ALL", perFigure, ok ? "OK" : "ПРЕВЫШЕНО");
+        }
+        if (failed) {
+            System.err.println("Ядро отрисовки выделяет память на каждую фигуру (допустимо " + MAX_BYTES_PER_FIGURE + ")");
+            System.exit(1);
+        }
+    }
+}
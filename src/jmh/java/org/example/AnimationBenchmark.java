@@ -0,0 +1,63 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк кадра анимации (шаг сцены и плиточная отрисовка 800×600), как в {@link AnimationView}:
+ * количество фигур, при котором время кадра укладывается в 16,7 мс, — предел для 60 к/с.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int count;
+
+    @Param({"DRIFT", "ORBIT", "RESPAWN"})
+    public AnimatedScene.Mode mode;
+
+    private AnimatedScene scene;
+    private TileRenderer renderer;
+    private RasterRenderTarget target;
+    private Viewport viewport;
+
+    @Setup
+    public void setup() {
+        GenerationParams params = new GenerationParams(count, -100, 100, -100, 100, 0.3, false,
+                List.of(FigureType.values()), 42);
+        scene = new AnimatedScene(FigureGenerator.generate(params), params, mode, 42);
+        renderer = new TileRenderer(Runtime.getRuntime().availableProcessors());
+        target = new RasterRenderTarget(800, 600);
+        viewport = params.viewport(800, 600);
+    }
+
+    @TearDown
+    public void tearDown() {
+        renderer.close();
+    }
+
+    @Benchmark
+    public int frame() {
+        scene.step(1.0 / 60);
+        renderer.render(target, scene.batch(), viewport, false);
+        return target.getPixels()[0];
+    }
+}
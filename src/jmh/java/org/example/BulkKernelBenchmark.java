@@ -0,0 +1,75 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк пакетных ядер: заполнение столбцов сцены и преобразование границ фигур в пиксели
+ * скалярной и векторной реализациями, а также прежнее заполнение по одному вызову генератора на значение.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkKernelBenchmark {
+
+    @Param({"65536"})
+    public int count;
+
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    private BulkKernels.Kernel implementation;
+    private float[] centers;
+    private float[] sizes;
+    private int[] colors;
+    private double[] pixels;
+
+    @Setup
+    public void setup() {
+        implementation = kernel.equals("vector") ? new VectorKernel() : new BulkKernels.Scalar();
+        centers = new float[count];
+        sizes = new float[count];
+        colors = new int[count];
+        pixels = new double[count];
+        implementation.randomFloats(1, 0, -100, 200, centers, 0, count);
+        implementation.randomFloats(2, 0, 5, 40, sizes, 0, count);
+    }
+
+    @Benchmark
+    public int attributes() {
+        implementation.randomFloats(3, 0, 5, 40, sizes, 0, count);
+        implementation.randomColors(4, 0, colors, 0, count);
+        return colors[count - 1];
+    }
+
+    @Benchmark
+    public int attributesPerCall() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < count; i++) {
+            colors[i] = (random.nextInt(200) << 16) | (random.nextInt(200) << 8) | random.nextInt(200);
+            sizes[i] = (float) (5 + random.nextDouble() * 40);
+        }
+        return colors[count - 1];
+    }
+
+    @Benchmark
+    public double transform() {
+        implementation.affine(centers, sizes, -1, -100, 4, 0, pixels, count);
+        return pixels[count - 1];
+    }
+}
@@ -0,0 +1,53 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк полного конвейера: генерация сцены по параметрам и отрисовка фона, сетки и всех фигур
+ * в растр 800×600 — то же, что делает {@link DrawingRenderer#drawFigures}, но без JavaFX.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrawFiguresBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int count;
+
+    @Param({"0.0", "0.3", "0.9"})
+    public double density;
+
+    private GenerationParams params;
+    private RasterRenderTarget target;
+    private Viewport viewport;
+
+    @Setup
+    public void setup() {
+        params = new GenerationParams(count, -100, 100, -100, 100, density, true, List.of(FigureType.values()), 42);
+        target = new RasterRenderTarget(800, 600);
+        viewport = params.viewport(800, 600);
+    }
+
+    @Benchmark
+    public int drawFigures() {
+        FigureBatch batch = FigureGenerator.generate(params);
+        DrawingRenderer.drawBatch(target, batch, viewport, params.showGrid());
+        return target.getPixels()[0];
+    }
+}
@@ -0,0 +1,55 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк отрисовки фигур одного типа: отдельная ветка {@link DrawingRenderer#drawFigure} для каждого {@link FigureType}.
+ * Результат — количество фигур в секунду.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FigureTypeBenchmark {
+
+    private static final int FIGURES = 1024;
+
+    @Param({"LINE", "CIRCLE", "RECTANGLE", "TRIANGLE", "PARABOLA", "TRAPEZOID"})
+    public FigureType type;
+
+    private FigureBatch batch;
+    private RasterRenderTarget target;
+    private Viewport viewport;
+
+    @Setup
+    public void setup() {
+        batch = FigureGenerator.generate(FIGURES, -100, 100, -100, 100, 0.3, List.of(type), 42, false);
+        target = new RasterRenderTarget(800, 600);
+        viewport = new Viewport(-100, 100, -100, 100, 800, 600);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FIGURES)
+    public int drawFigures() {
+        for (int i = 0; i < FIGURES; i++) {
+            DrawingRenderer.drawFigure(target, batch, i, viewport);
+        }
+        return target.getPixels()[0];
+    }
+}
@@ -0,0 +1,47 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк стадии генерации сцены без отрисовки.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int count;
+
+    @Param({"0.0", "0.5"})
+    public double density;
+
+    @Param({"UNIFORM", "GAUSSIAN", "CLUSTERS", "POISSON_DISK"})
+    public Placement placement;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private final List<FigureType> types = List.of(FigureType.values());
+
+    @Benchmark
+    public FigureBatch generate() {
+        return FigureGenerator.generate(count, new PlacementStrategy.Area(-100, 100, -100, 100, density),
+                placement, types, 42, parallel);
+    }
+}
@@ -0,0 +1,41 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк отрисовки координатной сетки и осей.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridBenchmark {
+
+    private RasterRenderTarget target;
+    private Viewport viewport;
+
+    @Setup
+    public void setup() {
+        target = new RasterRenderTarget(800, 600);
+        viewport = new Viewport(-100, 100, -100, 100, 800, 600);
+    }
+
+    @Benchmark
+    public int drawGrid() {
+        DrawingRenderer.drawGrid(target, viewport);
+        return target.getPixels()[0];
+    }
+}
@@ -0,0 +1,93 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Проверка совпадения векторных и скалярных пакетных ядер ({@link BulkKernels}): каждая операция
+ * выполняется обеими реализациями на длинах, не кратных количеству дорожек, и со сдвигами в выходных
+ * массивах; результаты должны совпадать побитно. Дополнительно пакетное преобразование координат
+ * {@link Viewport} сравнивается с покоординатным.
+ * Запуск: {@code ./gradlew kernelCheck} (входит в {@code ./gradlew check}).
+ */
+public class KernelCheck {
+
+    private static final int[] LENGTHS = {0, 1, 3, 7, 8, 9, 15, 16, 17, 63, 1000, 4099};
+    private static final int OFFSET = 5;
+
+    private static boolean failed;
+
+    public static void main(String[] args) {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            System.out.println("Модуль jdk.incubator.vector не подключён, проверка пропущена");
+            return;
+        }
+        BulkKernels.Kernel scalar = new BulkKernels.Scalar();
+        BulkKernels.Kernel vector = new VectorKernel();
+        System.out.println("Ядра: " + vector);
+        SplittableRandom random = new SplittableRandom(42);
+
+        for (int n : LENGTHS) {
+            long seed = random.nextLong();
+            long first = random.nextInt(1 << 20);
+
+            double[] doublesA = new double[n];
+            double[] doublesB = new double[n];
+            scalar.randomDoubles(seed, first, -100, 200, doublesA, n);
+            vector.randomDoubles(seed, first, -100, 200, doublesB, n);
+            compare("randomDoubles", n, Arrays.equals(doublesA, doublesB));
+
+            float[] floatsA = new float[n + OFFSET];
+            float[] floatsB = new float[n + OFFSET];
+            scalar.randomFloats(seed, first, 5, 40, floatsA, OFFSET, n);
+            vector.randomFloats(seed, first, 5, 40, floatsB, OFFSET, n);
+            compare("randomFloats", n, Arrays.equals(floatsA, floatsB));
+
+            int[] intsA = new int[n + OFFSET];
+            int[] intsB = new int[n + OFFSET];
+            scalar.randomColors(seed, first, intsA, OFFSET, n);
+            vector.randomColors(seed, first, intsB, OFFSET, n);
+            compare("randomColors", n, Arrays.equals(intsA, intsB));
+
+            scalar.randomIndices(seed, first, 5, intsA, n);
+            vector.randomIndices(seed, first, 5, intsB, n);
+            compare("randomIndices", n, Arrays.equals(intsA, intsB));
+
+            Arrays.fill(floatsA, 0);
+            Arrays.fill(floatsB, 0);
+            scalar.toFloats(doublesA, floatsA, OFFSET, n);
+            vector.toFloats(doublesA, floatsB, OFFSET, n);
+            compare("toFloats", n, Arrays.equals(floatsA, floatsB));
+
+            float[] values = new float[n];
+            float[] deltas = new float[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = (float) (random.nextDouble() * 2000 - 1000);
+                deltas[i] = (float) (5 + random.nextDouble() * 40);
+            }
+            scalar.affine(values, deltas, -1, -100, 4.5, 13, doublesA, n);
+            vector.affine(values, deltas, -1, -100, 4.5, 13, doublesB, n);
+            compare("affine", n, Arrays.equals(doublesA, doublesB));
+
+            Viewport viewport = new Viewport(-100, 100, -75, 75, 800, 600).panned(37, -11);
+            viewport.toPixelsY(values, deltas, 1, doublesA, n);
+            boolean same = true;
+            for (int i = 0; i < n; i++) {
+                same &= doublesA[i] == viewport.toPixelY(values[i] + (double) deltas[i]);
+            }
+            compare("toPixelsY", n, same);
+        }
+        if (failed) {
+            System.err.println("Векторные ядра расходятся со скалярными");
+            System.exit(1);
+        }
+        System.out.println("Векторные и скалярные ядра совпадают");
+    }
+
+    private static void compare(String operation, int n, boolean same) {
+        if (!same) {
+            System.out.printf("%-14s n=%-5d РАСХОЖДЕНИЕ%n", operation, n);
+            failed = true;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк пространственного индекса: выборка окна просмотра (в сравнении с полным перебором)
+ * и поиск фигуры под точкой.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialIndexBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int count;
+
+    private FigureBatch batch;
+    private SpatialIndex index;
+
+    @Setup
+    public void setup() {
+        GenerationParams params = new GenerationParams(count, -1000, 1000, -1000, 1000, 0.0, true,
+                List.of(FigureType.values()), 42);
+        batch = FigureGenerator.generate(params);
+        index = SpatialIndex.build(batch);
+    }
+
+    @Benchmark
+    public int queryWindow() {
+        return index.query(-50, -40, 30, 20).length;
+    }
+
+    @Benchmark
+    public int scanWindow() {
+        int found = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            double size = batch.size(i);
+            double x = batch.centerX(i);
+            double y = batch.centerY(i);
+            if (x + size >= -50 && x - size <= 30 && y + size >= -40 && y - size <= 20) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int hitTest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return index.hitTest(random.nextDouble(-1000, 1000), random.nextDouble(-1000, 1000));
+    }
+}
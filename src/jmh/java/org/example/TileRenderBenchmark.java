@@ -0,0 +1,61 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк масштабирования плиточной отрисовки {@link TileRenderer} по количеству рабочих потоков.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TileRenderBenchmark {
+
+    @Param({"100000"})
+    public int count;
+
+    @Param({"1", "2", "4", "8"})
+    public int workers;
+
+    private FigureBatch batch;
+    private RasterRenderTarget target;
+    private Viewport viewport;
+    private TileRenderer renderer;
+
+    @Setup
+    public void setup() {
+        GenerationParams params = new GenerationParams(count, -100, 100, -100, 100, 0.3, true,
+                List.of(FigureType.values()), 42);
+        batch = FigureGenerator.generate(params);
+        target = new RasterRenderTarget(1920, 1080);
+        viewport = params.viewport(1920, 1080);
+        renderer = new TileRenderer(workers);
+    }
+
+    @TearDown
+    public void tearDown() {
+        renderer.close();
+    }
+
+    @Benchmark
+    public int render() {
+        renderer.render(target, batch, viewport, true);
+        return target.getPixels()[0];
+    }
+}
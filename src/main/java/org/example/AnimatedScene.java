@@ -0,0 +1,262 @@
+package org.example;
+
+import java.util.SplittableRandom;
+
+/**
+ * Сцена для анимации: копия фигур исходной сцены и состояние их движения.
+ * Каждый кадр {@link #step(double)} обновляет координаты (и при появлении заново — размер и цвет)
+ * прямо в наборе {@link #batch()}; отрисовка читает его как обычную сцену, без повторной генерации.
+ * <p>
+ * Состояние движения хранится в параллельных массивах {@code float} по фигуре, как и сам набор;
+ * массивы режима создаются при первом включении режима. Класс не потокобезопасен: шаги и отрисовка
+ * кадров должны выполняться в одном потоке.
+ */
+public final class AnimatedScene {
+
+    /**
+     * Способ движения фигур.
+     */
+    public enum Mode {
+
+        /**
+         * Фигуры движутся прямолинейно с постоянной скоростью и отражаются от границ области.
+         */
+        DRIFT("Дрейф"),
+
+        /**
+         * Центры фигур вращаются вокруг центра области с разной угловой скоростью
+         * (сами фигуры не поворачиваются: отрисовка выводит их без поворота).
+         */
+        ORBIT("Вращение"),
+
+        /**
+         * Фигуры живут случайное время и появляются заново в случайном месте с новыми размером и цветом.
+         */
+        RESPAWN("Появление заново");
+
+        private final String label;
+
+        Mode(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @return название режима для интерфейса
+         */
+        public String getLabel() {
+            return label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * Наибольшая скорость дрейфа за секунду в долях ширины (высоты) области.
+     */
+    private static final double MAX_DRIFT_SPEED = 0.15;
+
+    /**
+     * Наибольшая угловая скорость вращения в радианах за секунду.
+     */
+    private static final double MAX_ANGULAR_SPEED = 1.0;
+
+    /**
+     * Наименьшее время жизни фигуры в режиме появления заново, в секундах.
+     */
+    private static final double MIN_LIFETIME = 0.5;
+
+    /**
+     * Наибольшее время жизни фигуры в режиме появления заново, в секундах.
+     */
+    private static final double MAX_LIFETIME = 3.0;
+
+    private final FigureBatch batch;
+    private final double xMin;
+    private final double xMax;
+    private final double yMin;
+    private final double yMax;
+    private final SplittableRandom random;
+    private Mode mode;
+
+    // Дрейф: скорость в логических единицах за секунду
+    private float[] velocityX;
+    private float[] velocityY;
+
+    // Вращение: полярные координаты относительно центра области и угловая скорость
+    private float[] radius;
+    private float[] angle;
+    private float[] angularSpeed;
+
+    // Появление заново: оставшееся время жизни в секундах
+    private float[] life;
+
+    /**
+     * Создаёт анимируемую копию сцены.
+     *
+     * @param source исходная сцена (не изменяется)
+     * @param params параметры генерации (логическая область)
+     * @param mode способ движения
+     * @param seed зерно генератора случайных чисел движения
+     */
+    public AnimatedScene(FigureSource source, GenerationParams params, Mode mode, long seed) {
+        int n = source.size();
+        this.batch = new FigureBatch(n);
+        for (int i = 0; i < n; i++) {
+            batch.add(source.type(i), source.centerX(i), source.centerY(i), source.size(i), source.rgb(i));
+        }
+        this.xMin = params.xMin();
+        this.xMax = params.xMax();
+        this.yMin = params.yMin();
+        this.yMax = params.yMax();
+        this.random = new SplittableRandom(seed);
+        setMode(mode);
+    }
+
+    /**
+     * @return набор фигур текущего кадра
+     */
+    public FigureBatch batch() {
+        return batch;
+    }
+
+    /**
+     * @return текущий способ движения
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Переключает способ движения; фигуры продолжают движение с текущих мест.
+     *
+     * @param newMode способ движения
+     */
+    public void setMode(Mode newMode) {
+        if (newMode == null) {
+            throw new IllegalArgumentException("Не задан способ движения");
+        }
+        mode = newMode;
+        int n = batch.size();
+        switch (newMode) {
+            case DRIFT -> {
+                if (velocityX == null) {
+                    velocityX = new float[n];
+                    velocityY = new float[n];
+                    double maxX = MAX_DRIFT_SPEED * (xMax - xMin);
+                    double maxY = MAX_DRIFT_SPEED * (yMax - yMin);
+                    for (int i = 0; i < n; i++) {
+                        velocityX[i] = (float) ((random.nextDouble() * 2 - 1) * maxX);
+                        velocityY[i] = (float) ((random.nextDouble() * 2 - 1) * maxY);
+                    }
+                }
+            }
+            case ORBIT -> {
+                if (radius == null) {
+                    radius = new float[n];
+                    angle = new float[n];
+                    angularSpeed = new float[n];
+                    for (int i = 0; i < n; i++) {
+                        angularSpeed[i] = (float) ((random.nextDouble() * 2 - 1) * MAX_ANGULAR_SPEED);
+                    }
+                }
+                // Полярные координаты пересчитываются из текущих мест, сдвинутых другими режимами
+                double cx = (xMin + xMax) / 2;
+                double cy = (yMin + yMax) / 2;
+                for (int i = 0; i < n; i++) {
+                    double dx = batch.centerX(i) - cx;
+                    double dy = batch.centerY(i) - cy;
+                    radius[i] = (float) Math.hypot(dx, dy);
+                    angle[i] = (float) Math.atan2(dy, dx);
+                }
+            }
+            case RESPAWN -> {
+                if (life == null) {
+                    life = new float[n];
+                    for (int i = 0; i < n; i++) {
+                        life[i] = (float) (random.nextDouble() * MAX_LIFETIME);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Продвигает анимацию на заданное время.
+     *
+     * @param seconds прошедшее время в секундах
+     */
+    public void step(double seconds) {
+        switch (mode) {
+            case DRIFT -> drift(seconds);
+            case ORBIT -> orbit(seconds);
+            case RESPAWN -> respawn(seconds);
+        }
+    }
+
+    /**
+     * Сдвигает фигуры по их скоростям, отражая центры от границ области.
+     *
+     * @param seconds прошедшее время в секундах
+     */
+    private void drift(double seconds) {
+        float[] xs = batch.centerXColumn();
+        float[] ys = batch.centerYColumn();
+        for (int i = 0, n = batch.size(); i < n; i++) {
+            double x = xs[i] + velocityX[i] * seconds;
+            double y = ys[i] + velocityY[i] * seconds;
+            if (x < xMin || x > xMax) {
+                velocityX[i] = -velocityX[i];
+                x = x < xMin ? 2 * xMin - x : 2 * xMax - x;
+            }
+            if (y < yMin || y > yMax) {
+                velocityY[i] = -velocityY[i];
+                y = y < yMin ? 2 * yMin - y : 2 * yMax - y;
+            }
+            xs[i] = (float) Math.max(xMin, Math.min(xMax, x));
+            ys[i] = (float) Math.max(yMin, Math.min(yMax, y));
+        }
+    }
+
+    /**
+     * Поворачивает центры фигур вокруг центра области.
+     *
+     * @param seconds прошедшее время в секундах
+     */
+    private void orbit(double seconds) {
+        float[] xs = batch.centerXColumn();
+        float[] ys = batch.centerYColumn();
+        double cx = (xMin + xMax) / 2;
+        double cy = (yMin + yMax) / 2;
+        for (int i = 0, n = batch.size(); i < n; i++) {
+            double a = (angle[i] + angularSpeed[i] * seconds) % (2 * Math.PI);
+            angle[i] = (float) a;
+            xs[i] = (float) (cx + radius[i] * Math.cos(a));
+            ys[i] = (float) (cy + radius[i] * Math.sin(a));
+        }
+    }
+
+    /**
+     * Уменьшает время жизни фигур и заменяет истёкшие новыми в случайном месте области.
+     *
+     * @param seconds прошедшее время в секундах
+     */
+    private void respawn(double seconds) {
+        for (int i = 0, n = batch.size(); i < n; i++) {
+            float left = (float) (life[i] - seconds);
+            if (left > 0) {
+                life[i] = left;
+                continue;
+            }
+            life[i] = (float) (MIN_LIFETIME + random.nextDouble() * (MAX_LIFETIME - MIN_LIFETIME));
+            double x = xMin + random.nextDouble() * (xMax - xMin);
+            double y = yMin + random.nextDouble() * (yMax - yMin);
+            double size = FigureGenerator.MIN_FIGURE_SIZE
+                    + random.nextDouble() * (FigureGenerator.MAX_FIGURE_SIZE - FigureGenerator.MIN_FIGURE_SIZE);
+            int rgb = (random.nextInt(200) << 16) | (random.nextInt(200) << 8) | random.nextInt(200);
+            batch.set(i, batch.type(i), x, y, size, rgb);
+        }
+    }
+}
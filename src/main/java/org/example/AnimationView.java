@@ -0,0 +1,197 @@
+package org.example;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Label;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Pane;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Просмотр анимации сцены ({@link AnimatedScene}) с двойной буферизацией.
+ * <p>
+ * Кадры готовит отдельный поток: шаг сцены и плиточная отрисовка ({@link TileRenderer}) в один из двух
+ * буферов пикселей. Готовый буфер передаётся потоку JavaFX, который в очередном импульсе
+ * {@link AnimationTimer} целиком копирует его в изображение и возвращает буфер потоку отрисовки.
+ * Изображение на экране меняется только готовыми кадрами, поэтому недорисованный кадр никогда не виден.
+ * Поток отрисовки опережает экран не больше чем на кадр: пока предыдущий готовый кадр не показан,
+ * он ждёт, так что кадры не готовятся впустую.
+ * <p>
+ * Поверх изображения выводится сводка {@link FrameStats}: частота кадров, перцентили времени
+ * подготовки кадра за последнюю секунду и количество пропущенных кадров. Итог за всё время
+ * записывается в журнал при остановке ({@link #stop()}).
+ */
+public class AnimationView extends Pane {
+
+    private static final Logger logger = LoggingConfig.getLogger(AnimationView.class);
+
+    /**
+     * Наибольший шаг анимации: после долгого кадра фигуры не перескакивают дальше, чем за 0,1 с.
+     */
+    private static final double MAX_STEP_SECONDS = 0.1;
+
+    /**
+     * Период обновления сводки на экране.
+     */
+    private static final long OVERLAY_PERIOD_NANOS = 500_000_000;
+
+    private final AnimatedScene scene;
+    private final Viewport viewport;
+    private final boolean showGrid;
+    private final int width;
+    private final int height;
+    private final TileRenderer renderer;
+    private final WritableImage image;
+    private final Label overlay = new Label();
+    private final FrameStats stats = new FrameStats();
+    private final BlockingQueue<RasterRenderTarget> free = new ArrayBlockingQueue<>(2);
+    private final BlockingQueue<RasterRenderTarget> ready = new ArrayBlockingQueue<>(1);
+    private final AnimationTimer timer;
+    private final Thread renderThread;
+
+    private volatile AnimatedScene.Mode mode;
+    private volatile boolean running;
+    private boolean firstFrameShown;
+    private long overlayUpdated;
+
+    /**
+     * Создаёт просмотр анимации. Анимация запускается методом {@link #start()}.
+     *
+     * @param scene анимируемая сцена (после запуска изменяется только потоком отрисовки)
+     * @param params параметры генерации (логическая область и флаг сетки)
+     * @param width ширина в пикселях
+     * @param height высота в пикселях
+     */
+    public AnimationView(AnimatedScene scene, GenerationParams params, int width, int height) {
+        this.scene = scene;
+        this.viewport = params.viewport(width, height);
+        this.showGrid = params.showGrid();
+        this.width = width;
+        this.height = height;
+        this.mode = scene.getMode();
+        this.renderer = new TileRenderer(Runtime.getRuntime().availableProcessors());
+        this.image = new WritableImage(width, height);
+        free.add(new RasterRenderTarget(width, height));
+        free.add(new RasterRenderTarget(width, height));
+
+        overlay.setStyle("-fx-background-color: rgba(0, 0, 0, 0.6); -fx-text-fill: white; -fx-padding: 4 8 4 8;");
+        overlay.relocate(8, 8);
+        getChildren().addAll(new ImageView(image), overlay);
+        setPrefSize(width, height);
+        setMinSize(width, height);
+        setMaxSize(width, height);
+
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                show(now);
+            }
+        };
+        renderThread = new Thread(this::renderLoop, "animation-render");
+        renderThread.setDaemon(true);
+    }
+
+    /**
+     * Запускает поток отрисовки и показ кадров.
+     */
+    public void start() {
+        running = true;
+        renderThread.start();
+        timer.start();
+        logger.info("Анимация запущена: {} фигур, режим «{}», {}x{}, потоков отрисовки: {}",
+                scene.batch().size(), mode, width, height, renderer.getWorkers());
+    }
+
+    /**
+     * Останавливает анимацию и записывает в журнал итоговую статистику кадров. Повторный вызов ничего не делает.
+     * Поток отрисовки дорисовывает начатый кадр и сам закрывает {@link TileRenderer}; поток JavaFX ждёт его
+     * не дольше секунды.
+     */
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        timer.stop();
+        renderThread.interrupt();
+        try {
+            renderThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Анимация остановлена: {} фигур, режим «{}», {}x{}: {}",
+                scene.batch().size(), mode, width, height, stats.total());
+    }
+
+    /**
+     * Переключает способ движения фигур со следующего кадра.
+     *
+     * @param newMode способ движения
+     */
+    public void setMode(AnimatedScene.Mode newMode) {
+        mode = newMode;
+    }
+
+    /**
+     * @return статистика кадров
+     */
+    public FrameStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Цикл потока отрисовки: берёт свободный буфер, продвигает сцену на прошедшее время,
+     * отрисовывает кадр и отдаёт его на показ. При выходе закрывает {@link TileRenderer}: только здесь
+     * известно, что отрисовка кадра закончена.
+     */
+    private void renderLoop() {
+        long last = System.nanoTime();
+        try {
+            while (running) {
+                RasterRenderTarget target = free.take();
+                long started = System.nanoTime();
+                if (mode != scene.getMode()) {
+                    scene.setMode(mode);
+                }
+                scene.step(Math.min(MAX_STEP_SECONDS, (started - last) / 1e9));
+                last = started;
+                renderer.render(target, scene.batch(), viewport, showGrid);
+                stats.frame(System.nanoTime() - started);
+                ready.put(target);
+            }
+        } catch (InterruptedException e) {
+            // Остановка анимации
+        } catch (RuntimeException e) {
+            logger.error("Ошибка отрисовки кадра анимации", e);
+            running = false;
+        } finally {
+            renderer.close();
+        }
+    }
+
+    /**
+     * Показывает готовый кадр, если он есть, и обновляет сводку. Вызывается в каждом импульсе JavaFX.
+     *
+     * @param now время импульса в наносекундах
+     */
+    private void show(long now) {
+        RasterRenderTarget frame = ready.poll();
+        if (frame != null) {
+            image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(),
+                    frame.getPixels(), 0, width);
+            free.add(frame);
+            firstFrameShown = true;
+            stats.display(true);
+        } else if (firstFrameShown) {
+            stats.display(false);
+        }
+        if (now - overlayUpdated >= OVERLAY_PERIOD_NANOS) {
+            overlayUpdated = now;
+            overlay.setText(scene.batch().size() + " фигур · " + mode + "\n" + stats.recent());
+        }
+    }
+}
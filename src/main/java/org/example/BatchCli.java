@@ -0,0 +1,425 @@
+package org.example;
+
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пакетный режим без графического интерфейса ({@code ./gradlew batch --args="..."}):
+ * генерирует и сохраняет в PNG много рисунков подряд.
+ * Принимает те же параметры, что и форма ввода, а также размер изображения, каталог вывода
+ * и количество рисунков.
+ * <p>
+ * Рисунки растеризуются параллельно в пуле из {@code --workers} потоков ({@link RasterRenderTarget}),
+ * а кодирование PNG и запись на диск выполняются отдельным пулом из {@code --io-threads} потоков.
+ * Буферы пикселей переиспользуются через ограниченную очередь, поэтому одновременно в памяти находится
+ * не больше {@code workers + 2·ioThreads} изображений, сколько бы рисунков ни было заказано.
+ * Рисунок номер {@code i} строится с зерном {@code seed + i}, так что любой из них можно воспроизвести.
+ */
+public class BatchCli {
+
+    private static final Logger logger = LoggingConfig.getLogger(BatchCli.class);
+
+    /**
+     * Уровень сжатия PNG: быстрый, почти без потерь в размере для рисунков на белом фоне.
+     */
+    private static final int COMPRESSION = PosterExporter.DEFAULT_COMPRESSION;
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Использование: ./gradlew batch --args=\"[параметры]\"",
+            "  --images N        количество рисунков (по умолчанию 1)",
+            "  --count N         количество фигур в рисунке (по умолчанию 10)",
+            "  --x-min X --x-max X --y-min Y --y-max Y   логическая область (по умолчанию -100..100)",
+            "  --density D       кучность 0.0–1.0 (по умолчанию 0.3)",
+            "  --placement P     размещение: UNIFORM, GAUSSIAN, CLUSTERS, POISSON_DISK (по умолчанию UNIFORM)",
+            "  --no-overlap      размещать фигуры без наложения (фигур может получиться меньше --count)",
+            "  --grid | --no-grid   координатная сетка (по умолчанию включена)",
+            "  --types T1,T2     типы фигур: LINE, CIRCLE, RECTANGLE, TRIANGLE, PARABOLA, TRAPEZOID (по умолчанию все)",
+            "  --seed S          зерно первого рисунка (по умолчанию случайное)",
+            "  --size WxH        размер изображения (по умолчанию 800x600)",
+            "  --out DIR         каталог для PNG (по умолчанию текущий)",
+            "  --workers N       потоков растеризации (по умолчанию количество процессоров)",
+            "  --io-threads N    потоков кодирования и записи (по умолчанию 2)",
+            "  --metrics         вывести метрики стадий (генерация, отрисовка, PNG) после завершения",
+            "  --help            показать эту справку");
+
+    /**
+     * Параметры пакетного запуска.
+     *
+     * @param params параметры генерации первого рисунка
+     * @param images количество рисунков
+     * @param width ширина изображения
+     * @param height высота изображения
+     * @param outDir каталог вывода
+     * @param workers потоков растеризации
+     * @param ioThreads потоков кодирования и записи
+     * @param metrics вывести метрики после завершения
+     */
+    record Options(GenerationParams params, int images, int width, int height, Path outDir,
+                   int workers, int ioThreads, boolean metrics) {
+    }
+
+    /**
+     * Итоги пакетного запуска.
+     *
+     * @param images количество сохранённых рисунков
+     * @param figures общее количество фигур
+     * @param bytes общий размер файлов в байтах
+     * @param nanos затраченное время в наносекундах
+     */
+    record Summary(int images, long figures, long bytes, long nanos) {
+
+        /**
+         * @return рисунков в секунду
+         */
+        double imagesPerSecond() {
+            return images * 1e9 / Math.max(1, nanos);
+        }
+
+        /**
+         * @return фигур в секунду
+         */
+        double figuresPerSecond() {
+            return figures * 1e9 / Math.max(1, nanos);
+        }
+    }
+
+    /**
+     * Точка входа пакетного режима. Запускается отдельно от JavaFX-приложения
+     * (класс {@link Main} наследует {@code Application}, и при его запуске платформа JavaFX
+     * инициализирует графику ещё до вызова {@code main}).
+     *
+     * @param args аргументы командной строки
+     */
+    public static void main(String[] args) {
+        LoggingConfig.init();
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Разбирает аргументы, выполняет пакетную генерацию и печатает итоги в указанные потоки.
+     *
+     * @param args аргументы командной строки
+     * @param out поток для итогов
+     * @param err поток для сообщений об ошибках
+     * @return код завершения процесса: 0 — успех, 1 — ошибка выполнения, 2 — неверные аргументы
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        if (Arrays.asList(args).contains("--help")) {
+            out.println(USAGE);
+            return 0;
+        }
+        Options options;
+        try {
+            options = parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+
+        try {
+            Summary summary = render(options);
+            out.printf(Locale.ROOT, "Рисунков: %d, фигур: %d, записано %.1f МБ за %.2f с%n",
+                    summary.images(), summary.figures(), summary.bytes() / (1024.0 * 1024.0), summary.nanos() / 1e9);
+            out.printf(Locale.ROOT, "%.2f рисунков/с, %.0f фигур/с%n",
+                    summary.imagesPerSecond(), summary.figuresPerSecond());
+            long requested = (long) options.images() * options.params().count();
+            if (summary.figures() < requested) {
+                out.printf(Locale.ROOT, "Без наложения размещено %d фигур из %d запрошенных%n",
+                        summary.figures(), requested);
+            }
+            if (options.metrics()) {
+                out.print(Metrics.dump());
+            }
+            return 0;
+        } catch (IOException e) {
+            logger.error("Ошибка пакетной генерации", e);
+            err.println("Ошибка: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Разбирает аргументы командной строки. Значения можно задавать как {@code --key value} или {@code --key=value}.
+     *
+     * @param args аргументы командной строки
+     * @return параметры запуска
+     * @throws IllegalArgumentException если аргументы некорректны
+     */
+    static Options parse(String[] args) {
+        int images = 1;
+        int count = 10;
+        double xMin = -100, xMax = 100, yMin = -100, yMax = 100;
+        double density = 0.3;
+        Placement placement = Placement.UNIFORM;
+        boolean noOverlap = false;
+        boolean showGrid = true;
+        List<FigureType> types = List.of(FigureType.values());
+        long seed = ThreadLocalRandom.current().nextLong();
+        int width = 800, height = 600;
+        Path outDir = Path.of(".");
+        int workers = Runtime.getRuntime().availableProcessors();
+        int ioThreads = 2;
+        boolean metrics = false;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            String key = arg;
+            String value = null;
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                key = arg.substring(0, eq);
+                value = arg.substring(eq + 1);
+            }
+            if (key.equals("--grid") || key.equals("--no-grid")) {
+                showGrid = key.equals("--grid");
+                continue;
+            }
+            if (key.equals("--metrics")) {
+                metrics = true;
+                continue;
+            }
+            if (key.equals("--no-overlap")) {
+                noOverlap = true;
+                continue;
+            }
+            if (value == null) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Не указано значение для " + key);
+                }
+                value = args[++i];
+            }
+            try {
+                switch (key) {
+                    case "--images" -> images = Integer.parseInt(value);
+                    case "--count" -> count = Integer.parseInt(value);
+                    case "--x-min" -> xMin = Double.parseDouble(value);
+                    case "--x-max" -> xMax = Double.parseDouble(value);
+                    case "--y-min" -> yMin = Double.parseDouble(value);
+                    case "--y-max" -> yMax = Double.parseDouble(value);
+                    case "--density" -> density = Double.parseDouble(value);
+                    case "--placement" -> placement = parsePlacement(value);
+                    case "--types" -> types = parseTypes(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--size" -> {
+                        String[] parts = value.toLowerCase(Locale.ROOT).split("[x×*]");
+                        if (parts.length != 2) {
+                            throw new IllegalArgumentException("Укажите размер в виде 800x600: " + value);
+                        }
+                        width = Integer.parseInt(parts[0].trim());
+                        height = Integer.parseInt(parts[1].trim());
+                    }
+                    case "--out" -> outDir = Path.of(value);
+                    case "--workers" -> workers = Integer.parseInt(value);
+                    case "--io-threads" -> ioThreads = Integer.parseInt(value);
+                    default -> throw new IllegalArgumentException("Неизвестный параметр: " + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Некорректное число для " + key + ": " + value);
+            }
+        }
+
+        if (images < 1) {
+            throw new IllegalArgumentException("Количество рисунков должно быть положительным: " + images);
+        }
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Размер должен быть положительным: " + width + "x" + height);
+        }
+        if (workers < 1 || ioThreads < 1) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным");
+        }
+        GenerationParams params = new GenerationParams(count, xMin, xMax, yMin, yMax, density, placement,
+                noOverlap, showGrid, types, seed);
+        return new Options(params, images, width, height, outDir, workers, ioThreads, metrics);
+    }
+
+    /**
+     * Разбирает способ размещения: имя константы {@link Placement} или её подпись.
+     *
+     * @param value способ размещения
+     * @return способ размещения
+     * @throws IllegalArgumentException если способ неизвестен
+     */
+    private static Placement parsePlacement(String value) {
+        String trimmed = value.trim();
+        return Arrays.stream(Placement.values())
+                .filter(p -> p.name().equalsIgnoreCase(trimmed) || p.getLabel().equalsIgnoreCase(trimmed))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Неизвестный способ размещения: " + trimmed));
+    }
+
+    /**
+     * Разбирает список типов фигур: имена констант {@link FigureType} или их подписи, через запятую.
+     *
+     * @param value список типов
+     * @return типы фигур
+     * @throws IllegalArgumentException если тип неизвестен
+     */
+    private static List<FigureType> parseTypes(String value) {
+        List<FigureType> types = new ArrayList<>();
+        for (String name : value.split(",")) {
+            String trimmed = name.trim();
+            FigureType type = Arrays.stream(FigureType.values())
+                    .filter(t -> t.name().equalsIgnoreCase(trimmed) || t.getLabel().equalsIgnoreCase(trimmed))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Неизвестный тип фигуры: " + trimmed));
+            if (!types.contains(type)) {
+                types.add(type);
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Генерирует, растеризует и сохраняет все рисунки.
+     *
+     * @param options параметры запуска
+     * @return итоги
+     * @throws IOException при ошибке создания каталога, кодирования или записи
+     */
+    static Summary render(Options options) throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(options.outDir());
+
+        GenerationParams base = options.params();
+        int width = options.width();
+        int height = options.height();
+        Viewport viewport = base.viewport(width, height);
+        String nameFormat = "figures_%0" + String.valueOf(options.images() - 1).length() + "d_seed%d.png";
+
+        // Буферы пикселей: не больше maxBuffers, освобождаются потоками записи
+        int maxBuffers = options.workers() + 2 * options.ioThreads();
+        int pixelCount = Math.multiplyExact(width, height);
+        BlockingQueue<int[]> buffers = new ArrayBlockingQueue<>(maxBuffers);
+        AtomicInteger allocated = new AtomicInteger();
+
+        AtomicLong figures = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        Queue<Future<?>> writes = new ConcurrentLinkedQueue<>();
+        ExecutorService renderPool = Executors.newFixedThreadPool(options.workers(), named("batch-render"));
+        ExecutorService ioPool = Executors.newFixedThreadPool(options.ioThreads(), named("batch-io"));
+        try {
+            List<Future<?>> renders = new ArrayList<>(options.images());
+            for (int i = 0; i < options.images(); i++) {
+                int number = i;
+                renders.add(renderPool.submit(() -> {
+                    long seed = base.seed() + number;
+                    FigureBatch batch = FigureGenerator.generate(base.withSeed(seed), false);
+
+                    int[] pixels = buffers.poll();
+                    if (pixels == null) {
+                        pixels = allocated.incrementAndGet() <= maxBuffers ? new int[pixelCount] : buffers.take();
+                    }
+                    DrawingRenderer.drawBatch(new RasterRenderTarget(pixels, width, height), batch, viewport,
+                            base.showGrid());
+                    figures.addAndGet(batch.size());
+
+                    int[] rendered = pixels;
+                    Path file = options.outDir().resolve(String.format(Locale.ROOT, nameFormat, number, seed));
+                    writes.add(ioPool.submit(() -> {
+                        try {
+                            bytes.addAndGet(writePng(rendered, width, height, file));
+                        } finally {
+                            buffers.offer(rendered);
+                        }
+                        return null;
+                    }));
+                    return null;
+                }));
+            }
+            await(renders);
+            await(writes);
+        } finally {
+            renderPool.shutdownNow();
+            ioPool.shutdownNow();
+        }
+
+        Summary summary = new Summary(options.images(), figures.get(), bytes.get(), System.nanoTime() - started);
+        logger.info("Пакетная генерация: {} рисунков {}x{} по {} фигур за {} мс ({} рисунков/с, {} фигур/с), потоков: {} + {}",
+                summary.images(), width, height, base.count(), summary.nanos() / 1_000_000,
+                String.format(Locale.ROOT, "%.2f", summary.imagesPerSecond()),
+                String.format(Locale.ROOT, "%.0f", summary.figuresPerSecond()),
+                options.workers(), options.ioThreads());
+        return summary;
+    }
+
+    /**
+     * Кодирует изображение в PNG и записывает его в файл.
+     *
+     * @param pixels пиксели в формате ARGB
+     * @param width ширина
+     * @param height высота
+     * @param file путь к файлу
+     * @return размер записанного файла в байтах
+     * @throws IOException при ошибке записи
+     */
+    private static long writePng(int[] pixels, int width, int height, Path file) throws IOException {
+        byte[] raw = new byte[PngStreamWriter.rawBandSize(width, height)];
+        int length = PngStreamWriter.filterRows(pixels, width, height, raw);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+             PngStreamWriter writer = new PngStreamWriter(out, width, height, COMPRESSION, false)) {
+            writer.writeRows(raw, length, height);
+        }
+        return Files.size(file);
+    }
+
+    /**
+     * Дожидается завершения задач и пробрасывает первую ошибку.
+     *
+     * @param futures задачи
+     * @throws IOException если задача завершилась ошибкой или ожидание прервано
+     */
+    private static void await(Iterable<Future<?>> futures) throws IOException {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Пакетная генерация прервана", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Ошибка генерации рисунка: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Создаёт фабрику потоков-демонов с заданным префиксом имени.
+     *
+     * @param prefix префикс имени потока
+     * @return фабрика потоков
+     */
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
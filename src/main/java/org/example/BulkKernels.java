@@ -0,0 +1,327 @@
+package org.example;
+
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Пакетные вычислительные ядра генерации и преобразования координат: обрабатывают целые массивы
+ * за вызов, без обращения к генератору случайных чисел на каждое значение.
+ * <p>
+ * Случайные значения берутся из счётчиковых потоков: {@code k}-е значение потока с зерном {@code seed}
+ * равно {@code mix64(seed + (k + 1) · γ)} — это последовательность {@code nextLong()} генератора
+ * {@code new SplittableRandom(seed)}, но любой её участок вычисляется независимо. Поэтому блок фигур
+ * заполняется с любого места и в любом порядке, а соседние значения считаются одновременно в дорожках SIMD.
+ * <p>
+ * Если при запуске подключён модуль {@code jdk.incubator.vector}
+ * ({@code --add-modules jdk.incubator.vector}), используется векторная реализация ({@code VectorKernel}),
+ * иначе — скалярная. Обе дают побитно одинаковые результаты: в них одни и те же целочисленные операции
+ * и одни и те же операции с плавающей точкой в том же порядке. Скалярную реализацию можно выбрать
+ * принудительно свойством {@code -D}{@value #SCALAR_PROPERTY}{@code =true}.
+ */
+public final class BulkKernels {
+
+    private static final Logger logger = LoggingConfig.getLogger(BulkKernels.class);
+
+    /**
+     * Системное свойство, отключающее векторную реализацию.
+     */
+    public static final String SCALAR_PROPERTY = "drawing.scalarKernels";
+
+    /**
+     * Приращение счётчика потока (золотое сечение, как в {@link java.util.SplittableRandom}).
+     */
+    static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Масштаб 53 старших бит случайного числа в долю [0, 1).
+     */
+    static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    /**
+     * Количество различных значений канала цвета: каналы лежат в диапазоне 0–199.
+     */
+    static final int COLOR_LEVELS = 200;
+
+    private static final Kernel KERNEL = load();
+
+    private BulkKernels() {
+    }
+
+    /**
+     * Набор пакетных операций. Во всех операциях {@code first} — номер первого значения в потоке,
+     * {@code n} — количество обрабатываемых элементов.
+     */
+    interface Kernel {
+
+        /**
+         * Заполняет {@code out[0..n)} значениями {@code origin + u · range}, где {@code u} — доля [0, 1)
+         * из 53 старших бит значения потока.
+         *
+         * @param seed зерно потока
+         * @param first номер первого значения в потоке
+         * @param origin начало диапазона
+         * @param range длина диапазона
+         * @param out выходной массив
+         * @param n количество значений
+         */
+        void randomDoubles(long seed, long first, double origin, double range, double[] out, int n);
+
+        /**
+         * То же, что {@link #randomDoubles}, с округлением до {@code float} и записью с позиции {@code offset}.
+         *
+         * @param seed зерно потока
+         * @param first номер первого значения в потоке
+         * @param origin начало диапазона
+         * @param range длина диапазона
+         * @param out выходной массив
+         * @param offset позиция первого значения в выходном массиве
+         * @param n количество значений
+         */
+        void randomFloats(long seed, long first, double origin, double range, float[] out, int offset, int n);
+
+        /**
+         * Заполняет цвета {@code 0xRRGGBB} с каналами 0–199: каждый канал — 21 бит значения потока,
+         * отображённые умножением и сдвигом.
+         *
+         * @param seed зерно потока
+         * @param first номер первого значения в потоке
+         * @param out выходной массив
+         * @param offset позиция первого значения в выходном массиве
+         * @param n количество значений
+         */
+        void randomColors(long seed, long first, int[] out, int offset, int n);
+
+        /**
+         * Заполняет {@code out[0..n)} случайными индексами {@code 0..bound-1} (старшие 32 бита значения
+         * потока, умноженные на {@code bound} и сдвинутые на 32).
+         *
+         * @param seed зерно потока
+         * @param first номер первого значения в потоке
+         * @param bound количество вариантов
+         * @param out выходной массив
+         * @param n количество значений
+         */
+        void randomIndices(long seed, long first, int bound, int[] out, int n);
+
+        /**
+         * Округляет {@code in[0..n)} до {@code float} в {@code out[offset..offset+n)}.
+         *
+         * @param in исходные значения
+         * @param out выходной массив
+         * @param offset позиция первого значения в выходном массиве
+         * @param n количество значений
+         */
+        void toFloats(double[] in, float[] out, int offset, int n);
+
+        /**
+         * Вычисляет {@code out[i] = ((values[i] + k · deltas[i]) − origin) · scale − offset} для {@code i < n}.
+         *
+         * @param values значения
+         * @param deltas смещения
+         * @param k множитель смещений
+         * @param origin вычитаемое начало
+         * @param scale масштаб
+         * @param offset вычитаемый сдвиг после масштабирования
+         * @param out выходной массив
+         * @param n количество значений
+         */
+        void affine(float[] values, float[] deltas, double k, double origin, double scale, double offset,
+                    double[] out, int n);
+    }
+
+    /**
+     * Выбирает реализацию: векторную, если доступен модуль {@code jdk.incubator.vector}
+     * и она не отключена свойством {@value #SCALAR_PROPERTY}.
+     *
+     * @return реализация ядер
+     */
+    private static Kernel load() {
+        if (!Boolean.getBoolean(SCALAR_PROPERTY)
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                Kernel kernel = (Kernel) Class.forName("org.example.VectorKernel").getDeclaredConstructor().newInstance();
+                logger.info("Пакетные ядра: {}", kernel);
+                return kernel;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                logger.warn("Векторные ядра недоступны, используются скалярные", e);
+            }
+        }
+        return new Scalar();
+    }
+
+    /**
+     * @return {@code true}, если используется векторная реализация
+     */
+    public static boolean isVectorized() {
+        return !(KERNEL instanceof Scalar);
+    }
+
+    /**
+     * Хеш SplitMix64 (вариант 13 Стаффорда) — выход {@link java.util.SplittableRandom}.
+     *
+     * @param z состояние
+     * @return перемешанное значение
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @param seed зерно потока
+     * @param index номер значения в потоке
+     * @return значение потока
+     */
+    static long bits(long seed, long index) {
+        return mix64(seed + (index + 1) * GAMMA);
+    }
+
+    /**
+     * @param bits значение потока
+     * @return цвет {@code 0xRRGGBB} с каналами 0–199
+     */
+    static int color(long bits) {
+        long r = ((bits >>> 43) * COLOR_LEVELS) >>> 21;
+        long g = (((bits >>> 22) & 0x1FFFFF) * COLOR_LEVELS) >>> 21;
+        long b = (((bits >>> 1) & 0x1FFFFF) * COLOR_LEVELS) >>> 21;
+        return (int) (r << 16 | g << 8 | b);
+    }
+
+    /**
+     * См. {@link Kernel#randomDoubles}.
+     *
+     * @param seed зерно потока
+     * @param first номер первого значения в потоке
+     * @param origin начало диапазона
+     * @param range длина диапазона
+     * @param out выходной массив
+     * @param n количество значений
+     */
+    public static void randomDoubles(long seed, long first, double origin, double range, double[] out, int n) {
+        KERNEL.randomDoubles(seed, first, origin, range, out, n);
+    }
+
+    /**
+     * См. {@link Kernel#randomFloats}.
+     *
+     * @param seed зерно потока
+     * @param first номер первого значения в потоке
+     * @param origin начало диапазона
+     * @param range длина диапазона
+     * @param out выходной массив
+     * @param offset позиция первого значения в выходном массиве
+     * @param n количество значений
+     */
+    public static void randomFloats(long seed, long first, double origin, double range, float[] out, int offset, int n) {
+        KERNEL.randomFloats(seed, first, origin, range, out, offset, n);
+    }
+
+    /**
+     * См. {@link Kernel#randomColors}.
+     *
+     * @param seed зерно потока
+     * @param first номер первого значения в потоке
+     * @param out выходной массив
+     * @param offset позиция первого значения в выходном массиве
+     * @param n количество значений
+     */
+    public static void randomColors(long seed, long first, int[] out, int offset, int n) {
+        KERNEL.randomColors(seed, first, out, offset, n);
+    }
+
+    /**
+     * См. {@link Kernel#randomIndices}.
+     *
+     * @param seed зерно потока
+     * @param first номер первого значения в потоке
+     * @param bound количество вариантов
+     * @param out выходной массив
+     * @param n количество значений
+     */
+    public static void randomIndices(long seed, long first, int bound, int[] out, int n) {
+        KERNEL.randomIndices(seed, first, bound, out, n);
+    }
+
+    /**
+     * См. {@link Kernel#toFloats}.
+     *
+     * @param in исходные значения
+     * @param out выходной массив
+     * @param offset позиция первого значения в выходном массиве
+     * @param n количество значений
+     */
+    public static void toFloats(double[] in, float[] out, int offset, int n) {
+        KERNEL.toFloats(in, out, offset, n);
+    }
+
+    /**
+     * См. {@link Kernel#affine}.
+     *
+     * @param values значения
+     * @param deltas смещения
+     * @param k множитель смещений
+     * @param origin вычитаемое начало
+     * @param scale масштаб
+     * @param offset вычитаемый сдвиг после масштабирования
+     * @param out выходной массив
+     * @param n количество значений
+     */
+    public static void affine(float[] values, float[] deltas, double k, double origin, double scale, double offset,
+                              double[] out, int n) {
+        KERNEL.affine(values, deltas, k, origin, scale, offset, out, n);
+    }
+
+    /**
+     * Скалярная реализация: эталон для векторной и запасной вариант без модуля {@code jdk.incubator.vector}.
+     */
+    static final class Scalar implements Kernel {
+
+        @Override
+        public void randomDoubles(long seed, long first, double origin, double range, double[] out, int n) {
+            for (int i = 0; i < n; i++) {
+                out[i] = origin + ((bits(seed, first + i) >>> 11) * DOUBLE_UNIT) * range;
+            }
+        }
+
+        @Override
+        public void randomFloats(long seed, long first, double origin, double range, float[] out, int offset, int n) {
+            for (int i = 0; i < n; i++) {
+                out[offset + i] = (float) (origin + ((bits(seed, first + i) >>> 11) * DOUBLE_UNIT) * range);
+            }
+        }
+
+        @Override
+        public void randomColors(long seed, long first, int[] out, int offset, int n) {
+            for (int i = 0; i < n; i++) {
+                out[offset + i] = color(bits(seed, first + i));
+            }
+        }
+
+        @Override
+        public void randomIndices(long seed, long first, int bound, int[] out, int n) {
+            for (int i = 0; i < n; i++) {
+                out[i] = (int) (((bits(seed, first + i) >>> 32) * bound) >>> 32);
+            }
+        }
+
+        @Override
+        public void toFloats(double[] in, float[] out, int offset, int n) {
+            for (int i = 0; i < n; i++) {
+                out[offset + i] = (float) in[i];
+            }
+        }
+
+        @Override
+        public void affine(float[] values, float[] deltas, double k, double origin, double scale, double offset,
+                           double[] out, int n) {
+            for (int i = 0; i < n; i++) {
+                out[i] = ((values[i] + k * deltas[i]) - origin) * scale - offset;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "скалярные";
+        }
+    }
+}
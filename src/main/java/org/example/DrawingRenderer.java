@@ -1,130 +1,309 @@
 package org.example;
 
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.paint.Color;
-
-import java.util.List;
-import java.util.Random;
-import java.util.function.DoubleUnaryOperator;
-
 /**
- * Класс-рендерер, отвечающий за отрисовку случайных геометрических фигур на холсте.
- * Реализует логику генерации, преобразование координат и отрисовку сетки.
+ * Класс-рендерер, отвечающий за отрисовку случайных геометрических фигур.
+ * Реализует преобразование координат, отрисовку сетки и фигур из {@link FigureSource};
+ * генерация сцены вынесена в {@link FigureGenerator}.
+ * Вывод выполняется через {@link RenderTarget}, поэтому один и тот же код рисует
+ * в растр без дисплея ({@link RasterRenderTarget}) и в SVG ({@link SvgRenderTarget}).
  */
 public class DrawingRenderer {
 
     /**
-     * Отрисовывает заданное количество случайных фигур на указанном холсте.
-     * Выполняет очистку фона, рисует сетку (при необходимости) и генерирует фигуры.
+     * Цвет фона холста (белый, непрозрачный) в формате 0xAARRGGBB.
+     */
+    public static final int BACKGROUND = 0xFFFFFFFF;
+
+    /**
+     * Наибольшее количество отрезков аппроксимации параболы (для крупных фигур).
+     */
+    static final int MAX_PARABOLA_STEPS = 30;
+
+    /**
+     * Желаемая длина отрезка аппроксимации параболы по горизонтали в пикселях.
+     */
+    private static final double PARABOLA_STEP_PIXELS = 4;
+
+    /**
+     * Допуск (в долях шага) при выборе линий привязанной сетки, попадающих в окно.
+     */
+    private static final double GRID_EPSILON = 1e-9;
+
+    /**
+     * Буферы координат вершин, переиспользуемые при выводе многоугольников и парабол
+     * (по паре на поток: отрисовка плиток идёт параллельно). Поверхности рисования не сохраняют
+     * ссылки на переданные массивы, поэтому один буфер годится для всех фигур.
+     */
+    private static final ThreadLocal<double[][]> SCRATCH = ThreadLocal.withInitial(() ->
+            new double[][]{new double[MAX_PARABOLA_STEPS + 1], new double[MAX_PARABOLA_STEPS + 1]});
+
+    /**
+     * Отрисовывает набор фигур на произвольной поверхности рисования.
+     * Выполняет очистку фона, рисует сетку (при необходимости) и все фигуры набора в порядке их индексов.
      *
-     * @param gc контекст рисования JavaFX
-     * @param width ширина холста в пикселях
-     * @param height высота холста в пикселях
-     * @param count общее количество генерируемых фигур
-     * @param xMin минимальное значение по оси X в логических координатах
-     * @param xMax максимальное значение по оси X в логических координатах
-     * @param yMin минимальное значение по оси Y в логических координатах
-     * @param yMax максимальное значение по оси Y в логических координатах
-     * @param density степень кластеризации фигур в центре области (0.0 — равномерно, 1.0 — строго в центре)
+     * @param target поверхность рисования
+     * @param batch набор фигур для отрисовки
+     * @param viewport соответствие логических координат пикселям поверхности
      * @param showGrid флаг: {@code true} — отобразить координатную сетку, {@code false} — скрыть
-     * @param allowedTypes список разрешённых типов фигур (не может быть пустым)
      */
-    public static void drawFigures(GraphicsContext gc, double width, double height,
-                                   int count, double xMin, double xMax, double yMin, double yMax,
-                                   double density, boolean showGrid, List<FigureType> allowedTypes) {
-        gc.setFill(Color.WHITE);
-        gc.fillRect(0, 0, width, height);
+    public static void drawBatch(RenderTarget target, FigureSource batch, Viewport viewport, boolean showGrid) {
+        target.clear(BACKGROUND);
 
-        Random random = new Random();
+        if (showGrid) {
+            drawGrid(target, viewport);
+        }
 
-        DoubleUnaryOperator toPixelX = x -> (x - xMin) / (xMax - xMin) * width;
-        DoubleUnaryOperator toPixelY = y -> (yMax - y) / (yMax - yMin) * height;
+        long started = System.nanoTime();
+        drawEach(target, batch, null, 0, batch.size(), viewport);
+        Metrics.DRAW.record(System.nanoTime() - started);
+        Metrics.FIGURES_DRAWN.add(batch.size());
+    }
+
+    /**
+     * Отрисовывает только фигуры, попадающие в окно просмотра, выбирая их через пространственный индекс.
+     * Время отрисовки определяется количеством видимых фигур, а не размером всей сцены.
+     * Результат совпадает с {@link #drawBatch(RenderTarget, FigureSource, Viewport, boolean)}.
+     *
+     * @param target поверхность рисования
+     * @param index пространственный индекс сцены
+     * @param viewport окно просмотра (логическая область и размер холста)
+     * @param showGrid флаг: {@code true} — отобразить координатную сетку, {@code false} — скрыть
+     */
+    public static void drawVisible(RenderTarget target, SpatialIndex index, Viewport viewport, boolean showGrid) {
+        target.clear(BACKGROUND);
 
         if (showGrid) {
-            drawGrid(gc, width, height, xMin, xMax, yMin, yMax, toPixelX, toPixelY);
+            drawGrid(target, viewport);
         }
 
-        for (int i = 0; i < count; i++) {
-            drawRandomFigure(gc, width, height, xMin, xMax, yMin, yMax, density, allowedTypes, random, toPixelX, toPixelY);
+        drawSelected(target, index.getBatch(), queryVisible(index, viewport), viewport);
+    }
+
+    /**
+     * Отрисовывает выбранные фигуры набора в порядке возрастания индексов.
+     *
+     * @param target поверхность рисования
+     * @param batch набор фигур
+     * @param indices индексы фигур по возрастанию
+     * @param viewport соответствие логических координат пикселям поверхности
+     */
+    static void drawSelected(RenderTarget target, FigureSource batch, int[] indices, Viewport viewport) {
+        long started = System.nanoTime();
+        drawEach(target, batch, indices, 0, indices.length, viewport);
+        Metrics.DRAW.record(System.nanoTime() - started);
+        Metrics.FIGURES_DRAWN.add(indices.length);
+    }
+
+    /**
+     * Отрисовывает фигуры по одной в заданном порядке. Если записывается событие JFR
+     * {@link PipelineEvents.FigureDraw}, время отрисовки накапливается по типам фигур.
+     *
+     * @param target поверхность рисования
+     * @param batch набор фигур
+     * @param indices индексы фигур; {@code null} — фигуры с индексами {@code from..to-1}
+     * @param from первая позиция (включительно)
+     * @param to последняя позиция (не включительно)
+     * @param viewport соответствие логических координат пикселям
+     */
+    static void drawEach(RenderTarget target, FigureSource batch, int[] indices, int from, int to, Viewport viewport) {
+        PipelineEvents.FigureTimer timer = PipelineEvents.FigureTimer.start(viewport);
+        if (timer == null) {
+            for (int k = from; k < to; k++) {
+                drawFigure(target, batch, indices == null ? k : indices[k], viewport);
+            }
+            return;
+        }
+        for (int k = from; k < to; k++) {
+            int i = indices == null ? k : indices[k];
+            long started = System.nanoTime();
+            drawFigure(target, batch, i, viewport);
+            timer.add(batch.typeOrdinal(i), System.nanoTime() - started);
         }
+        timer.commit();
+    }
+
+    /**
+     * Находит фигуры, видимые в окне просмотра. Область запроса расширена на пиксель,
+     * как и отсечение в {@link #drawGeometry}.
+     *
+     * @param index пространственный индекс сцены
+     * @param viewport окно просмотра
+     * @return индексы видимых фигур по возрастанию
+     */
+    static int[] queryVisible(SpatialIndex index, Viewport viewport) {
+        return queryPixels(index, viewport, 0, 0, viewport.getWidth(), viewport.getHeight());
+    }
+
+    /**
+     * Находит фигуры, задевающие прямоугольник холста {@code [x0, x1) × [y0, y1)} (с запасом в пиксель).
+     *
+     * @param index пространственный индекс сцены
+     * @param viewport окно просмотра
+     * @param x0 левая граница в пикселях
+     * @param y0 верхняя граница в пикселях
+     * @param x1 правая граница в пикселях
+     * @param y1 нижняя граница в пикселях
+     * @return индексы фигур по возрастанию
+     */
+    static int[] queryPixels(SpatialIndex index, Viewport viewport, double x0, double y0, double x1, double y1) {
+        return index.query(viewport.toLogicalX(x0 - 1), viewport.toLogicalY(y1 + 1),
+                viewport.toLogicalX(x1 + 1), viewport.toLogicalY(y0 - 1));
     }
 
     /**
      * Рисует координатную сетку и оси X/Y на холсте.
      * Сетка состоит из 10 линий по каждой оси, оси выделены чёрным цветом.
      *
-     * @param gc контекст рисования
-     * @param w ширина холста
-     * @param h высота холста
-     * @param xMin минимальное логическое значение X
-     * @param xMax максимальное логическое значение X
-     * @param yMin минимальное логическое значение Y
-     * @param yMax максимальное логическое значение Y
-     * @param toPixelX функция преобразования логической координаты X → пиксель
-     * @param toPixelY функция преобразования логической координаты Y → пиксель
-     */
-    private static void drawGrid(GraphicsContext gc, double w, double h,
-                                 double xMin, double xMax, double yMin, double yMax,
-                                 DoubleUnaryOperator toPixelX, DoubleUnaryOperator toPixelY) {
-        gc.setStroke(Color.rgb(230, 230, 230));
+     * @param target поверхность рисования
+     * @param viewport соответствие логических координат пикселям
+     */
+    static void drawGrid(RenderTarget target, Viewport viewport) {
+        long started = System.nanoTime();
+        PipelineEvents.Grid event = new PipelineEvents.Grid();
+        event.begin();
+        double w = viewport.getWidth();
+        double h = viewport.getHeight();
+        double xMin = viewport.getXMin();
+        double xMax = viewport.getXMax();
+        double yMin = viewport.getYMin();
+        double yMax = viewport.getYMax();
+
+        target.setStroke(0xE6E6E6);
         double stepX = (xMax - xMin) / 10;
         for (double x = xMin; x <= xMax; x += stepX) {
-            double px = toPixelX.applyAsDouble(x);
-            gc.strokeLine(px, 0, px, h);
+            double px = viewport.toPixelX(x);
+            target.strokeLine(px, 0, px, h);
         }
         double stepY = (yMax - yMin) / 10;
         for (double y = yMin; y <= yMax; y += stepY) {
-            double py = toPixelY.applyAsDouble(y);
-            gc.strokeLine(0, py, w, py);
+            double py = viewport.toPixelY(y);
+            target.strokeLine(0, py, w, py);
         }
 
-        gc.setStroke(Color.BLACK);
-        double ox = toPixelX.applyAsDouble(0);
-        double oy = toPixelY.applyAsDouble(0);
-        if (ox >= 0 && ox <= w) gc.strokeLine(ox, 0, ox, h);
-        if (oy >= 0 && oy <= h) gc.strokeLine(0, oy, w, oy);
+        drawAxes(target, viewport);
+        gridDone(event, started, viewport);
     }
 
     /**
-     * Отрисовывает одну случайную фигуру заданного типа в указанной области.
-     * Цвет и размер фигуры генерируются случайно.
+     * Рисует координатную сетку, привязанную к логическим координатам: линии проходят через
+     * {@code originX + k·stepX} и {@code originY + k·stepY}. При сдвиге окна линии сдвигаются вместе
+     * с фигурами, поэтому сетку можно перерисовывать по частям.
      *
-     * @param gc контекст рисования
-     * @param w ширина холста
-     * @param h высота холста
-     * @param xMin минимальное логическое значение X
-     * @param xMax максимальное логическое значение X
-     * @param yMin минимальное логическое значение Y
-     * @param yMax максимальное логическое значение Y
-     * @param density степень кластеризации (0.0–1.0)
-     * @param allowedTypes список разрешённых типов фигур
-     * @param random экземпляр генератора случайных чисел
-     * @param toPixelX преобразователь X-координат
-     * @param toPixelY преобразователь Y-координат
-     */
-    private static void drawRandomFigure(GraphicsContext gc, double w, double h,
-                                         double xMin, double xMax, double yMin, double yMax,
-                                         double density, List<FigureType> allowedTypes,
-                                         Random random,
-                                         DoubleUnaryOperator toPixelX, DoubleUnaryOperator toPixelY) {
-        gc.setStroke(Color.rgb(random.nextInt(200), random.nextInt(200), random.nextInt(200)));
-
-        FigureType type = allowedTypes.get(random.nextInt(allowedTypes.size()));
-        double centerX, centerY;
-
-        if (density > 0) {
-            double clusterX = (xMin + xMax) / 2;
-            double clusterY = (yMin + yMax) / 2;
-            double rangeX = (xMax - xMin) * (1 - density);
-            double rangeY = (yMax - yMin) * (1 - density);
-            centerX = clusterX + (random.nextDouble() - 0.5) * rangeX;
-            centerY = clusterY + (random.nextDouble() - 0.5) * rangeY;
-        } else {
-            centerX = xMin + random.nextDouble() * (xMax - xMin);
-            centerY = yMin + random.nextDouble() * (yMax - yMin);
+     * @param target поверхность рисования
+     * @param viewport соответствие логических координат пикселям
+     * @param originX логическая X-координата одной из вертикальных линий
+     * @param stepX шаг вертикальных линий
+     * @param originY логическая Y-координата одной из горизонтальных линий
+     * @param stepY шаг горизонтальных линий
+     */
+    static void drawGrid(RenderTarget target, Viewport viewport, double originX, double stepX,
+                         double originY, double stepY) {
+        long started = System.nanoTime();
+        PipelineEvents.Grid event = new PipelineEvents.Grid();
+        event.begin();
+        double w = viewport.getWidth();
+        double h = viewport.getHeight();
+
+        target.setStroke(0xE6E6E6);
+        long firstX = (long) Math.ceil((viewport.getXMin() - originX) / stepX - GRID_EPSILON);
+        long lastX = (long) Math.floor((viewport.getXMax() - originX) / stepX + GRID_EPSILON);
+        for (long k = firstX; k <= lastX; k++) {
+            double px = viewport.toPixelX(originX + k * stepX);
+            target.strokeLine(px, 0, px, h);
+        }
+        long firstY = (long) Math.ceil((viewport.getYMin() - originY) / stepY - GRID_EPSILON);
+        long lastY = (long) Math.floor((viewport.getYMax() - originY) / stepY + GRID_EPSILON);
+        for (long k = firstY; k <= lastY; k++) {
+            double py = viewport.toPixelY(originY + k * stepY);
+            target.strokeLine(0, py, w, py);
         }
 
-        double size = 5 + random.nextDouble() * 40;
+        drawAxes(target, viewport);
+        gridDone(event, started, viewport);
+    }
+
+    /**
+     * Фиксирует событие и метрику отрисовки сетки.
+     *
+     * @param event событие, начатое перед отрисовкой
+     * @param started время начала по {@link System#nanoTime()}
+     * @param viewport окно просмотра
+     */
+    private static void gridDone(PipelineEvents.Grid event, long started, Viewport viewport) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.width = (int) viewport.getWidth();
+            event.height = (int) viewport.getHeight();
+            event.commit();
+        }
+        Metrics.GRID.record(System.nanoTime() - started);
+    }
+
+    /**
+     * Рисует оси X/Y чёрным цветом, если они попадают на холст.
+     *
+     * @param target поверхность рисования
+     * @param viewport соответствие логических координат пикселям
+     */
+    private static void drawAxes(RenderTarget target, Viewport viewport) {
+        double w = viewport.getWidth();
+        double h = viewport.getHeight();
+        target.setStroke(0x000000);
+        double ox = viewport.toPixelX(0);
+        double oy = viewport.toPixelY(0);
+        if (ox >= 0 && ox <= w) target.strokeLine(ox, 0, ox, h);
+        if (oy >= 0 && oy <= h) target.strokeLine(0, oy, w, oy);
+    }
+
+    /**
+     * Отрисовывает одну фигуру из набора. Тип, цвет, центр и размер берутся из {@link FigureSource}.
+     *
+     * @param target поверхность рисования
+     * @param batch набор фигур
+     * @param index индекс фигуры в наборе
+     * @param viewport соответствие логических координат пикселям
+     */
+    static void drawFigure(RenderTarget target, FigureSource batch, int index, Viewport viewport) {
+        target.setStroke(batch.rgb(index));
+        drawGeometry(target, batch, index, viewport);
+    }
+
+    /**
+     * Выводит геометрию фигуры текущим цветом обводки, не меняя его.
+     * Используется пакетной отрисовкой, где цвет задаётся один раз на весь пакет.
+     * <p>
+     * Перед выводом выполняются отсечение и выбор уровня детализации по размеру фигуры на экране:
+     * фигуры, ограничивающий прямоугольник которых лежит вне холста, пропускаются; фигуры меньше
+     * пикселя по обеим осям выводятся одной точкой; количество отрезков параболы пропорционально
+     * её ширине в пикселях. Решения зависят только от фигуры и окна просмотра, но не от области
+     * отсечения поверхности, поэтому плиточная и полосовая отрисовка дают тот же результат.
+     *
+     * @param target поверхность рисования
+     * @param batch набор фигур
+     * @param index индекс фигуры в наборе
+     * @param viewport соответствие логических координат пикселям
+     */
+    static void drawGeometry(RenderTarget target, FigureSource batch, int index, Viewport viewport) {
+        FigureType type = batch.type(index);
+        double centerX = batch.centerX(index);
+        double centerY = batch.centerY(index);
+        double size = batch.size(index);
+
+        // Все типы фигур укладываются в квадрат центр ± размер
+        double boundsLeft = viewport.toPixelX(centerX - size);
+        double boundsRight = viewport.toPixelX(centerX + size);
+        double boundsTop = viewport.toPixelY(centerY + size);
+        double boundsBottom = viewport.toPixelY(centerY - size);
+        double pixelWidth = Math.abs(boundsRight - boundsLeft);
+        double pixelHeight = Math.abs(boundsBottom - boundsTop);
+        if (Math.max(boundsLeft, boundsRight) < -1 || Math.min(boundsLeft, boundsRight) > viewport.getWidth() + 1
+                || Math.max(boundsTop, boundsBottom) < -1 || Math.min(boundsTop, boundsBottom) > viewport.getHeight() + 1) {
+            return;
+        }
+        if (pixelWidth < 1 && pixelHeight < 1) {
+            target.plot(viewport.toPixelX(centerX), viewport.toPixelY(centerY));
+            return;
+        }
 
         switch (type) {
             case LINE -> {
@@ -132,66 +311,65 @@ public class DrawingRenderer {
                 double y1 = centerY;
                 double x2 = centerX + size;
                 double y2 = centerY + size;
-                gc.strokeLine(toPixelX.applyAsDouble(x1), toPixelY.applyAsDouble(y1),
-                        toPixelX.applyAsDouble(x2), toPixelY.applyAsDouble(y2));
+                target.strokeLine(viewport.toPixelX(x1), viewport.toPixelY(y1),
+                        viewport.toPixelX(x2), viewport.toPixelY(y2));
             }
             case CIRCLE -> {
-                double px = toPixelX.applyAsDouble(centerX - size);
-                double py = toPixelY.applyAsDouble(centerY + size);
-                double pw = toPixelX.applyAsDouble(centerX + size) - px;
-                double ph = toPixelY.applyAsDouble(centerY - size) - py;
-                gc.strokeOval(px, py, pw, ph);
+                double px = viewport.toPixelX(centerX - size);
+                double py = viewport.toPixelY(centerY + size);
+                double pw = viewport.toPixelX(centerX + size) - px;
+                double ph = viewport.toPixelY(centerY - size) - py;
+                target.strokeOval(px, py, pw, ph);
             }
             case RECTANGLE -> {
-                double px = toPixelX.applyAsDouble(centerX - size);
-                double py = toPixelY.applyAsDouble(centerY + size);
-                double pw = toPixelX.applyAsDouble(centerX + size) - px;
-                double ph = toPixelY.applyAsDouble(centerY - size) - py;
-                gc.strokeRect(px, py, pw, ph);
+                double px = viewport.toPixelX(centerX - size);
+                double py = viewport.toPixelY(centerY + size);
+                double pw = viewport.toPixelX(centerX + size) - px;
+                double ph = viewport.toPixelY(centerY - size) - py;
+                target.strokeRect(px, py, pw, ph);
             }
             case TRIANGLE -> {
-                double x0 = toPixelX.applyAsDouble(centerX);
-                double y0 = toPixelY.applyAsDouble(centerY - size);
-                double x1 = toPixelX.applyAsDouble(centerX - size);
-                double y1 = toPixelY.applyAsDouble(centerY + size);
-                double x2 = toPixelX.applyAsDouble(centerX + size);
-                double y2 = toPixelY.applyAsDouble(centerY + size);
-                gc.strokePolygon(new double[]{x0, x1, x2}, new double[]{y0, y1, y2}, 3);
+                double[][] scratch = SCRATCH.get();
+                double[] xs = scratch[0];
+                double[] ys = scratch[1];
+                xs[0] = viewport.toPixelX(centerX);
+                ys[0] = viewport.toPixelY(centerY - size);
+                xs[1] = viewport.toPixelX(centerX - size);
+                ys[1] = viewport.toPixelY(centerY + size);
+                xs[2] = viewport.toPixelX(centerX + size);
+                ys[2] = viewport.toPixelY(centerY + size);
+                target.strokePolygon(xs, ys, 3);
             }
             case PARABOLA -> {
-                int steps = 30;
+                int steps = (int) Math.max(2, Math.min(MAX_PARABOLA_STEPS, Math.ceil(pixelWidth / PARABOLA_STEP_PIXELS)));
                 double startX = centerX - size;
                 double endX = centerX + size;
 
-                // Первая точка параболы
-                double firstX = startX;
-                double firstY = centerY + (firstX - centerX) * (firstX - centerX) / size;
-                double px0 = toPixelX.applyAsDouble(firstX);
-                double py0 = toPixelY.applyAsDouble(firstY);
-
-                gc.beginPath();
-                gc.moveTo(px0, py0);
-
-                for (int i = 1; i <= steps; i++) {
+                double[][] scratch = SCRATCH.get();
+                double[] xs = scratch[0];
+                double[] ys = scratch[1];
+                for (int i = 0; i <= steps; i++) {
                     double x = startX + (endX - startX) * i / steps;
                     double y = centerY + (x - centerX) * (x - centerX) / size;
-                    double px = toPixelX.applyAsDouble(x);
-                    double py = toPixelY.applyAsDouble(y);
-                    gc.lineTo(px, py);
+                    xs[i] = viewport.toPixelX(x);
+                    ys[i] = viewport.toPixelY(y);
                 }
-                gc.stroke();
+                target.strokePolyline(xs, ys, steps + 1);
             }
             case TRAPEZOID -> {
                 double top = size * 0.6;
-                double x1 = toPixelX.applyAsDouble(centerX - size);
-                double y1 = toPixelY.applyAsDouble(centerY + size);
-                double x2 = toPixelX.applyAsDouble(centerX - top);
-                double y2 = toPixelY.applyAsDouble(centerY - size);
-                double x3 = toPixelX.applyAsDouble(centerX + top);
-                double y3 = toPixelY.applyAsDouble(centerY - size);
-                double x4 = toPixelX.applyAsDouble(centerX + size);
-                double y4 = toPixelY.applyAsDouble(centerY + size);
-                gc.strokePolygon(new double[]{x1, x2, x3, x4}, new double[]{y1, y2, y3, y4}, 4);
+                double[][] scratch = SCRATCH.get();
+                double[] xs = scratch[0];
+                double[] ys = scratch[1];
+                xs[0] = viewport.toPixelX(centerX - size);
+                ys[0] = viewport.toPixelY(centerY + size);
+                xs[1] = viewport.toPixelX(centerX - top);
+                ys[1] = viewport.toPixelY(centerY - size);
+                xs[2] = viewport.toPixelX(centerX + top);
+                ys[2] = viewport.toPixelY(centerY - size);
+                xs[3] = viewport.toPixelX(centerX + size);
+                ys[3] = viewport.toPixelY(centerY + size);
+                target.strokePolygon(xs, ys, 4);
             }
         }
     }
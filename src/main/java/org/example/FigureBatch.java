@@ -0,0 +1,255 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Компактная модель сцены: набор фигур, хранящийся в параллельных примитивных массивах
+ * (struct-of-arrays) вместо отдельного объекта на каждую фигуру.
+ * Заполняется стадией генерации ({@link FigureGenerator}) и читается стадией отрисовки
+ * ({@link DrawingRenderer}), поэтому сцену можно перерисовать без повторного обращения к генератору случайных чисел.
+ * На одну фигуру приходится 17 байт: 10 млн фигур занимают около 170 МБ.
+ */
+public final class FigureBatch implements FigureSource {
+
+    /**
+     * Кэш значений перечисления, чтобы не копировать массив {@link FigureType#values()} при каждом чтении.
+     */
+    private static final FigureType[] TYPES = FigureType.values();
+
+    /**
+     * Количество байт, занимаемых одной фигурой во всех массивах.
+     */
+    public static final int BYTES_PER_FIGURE = Byte.BYTES + 3 * Float.BYTES + Integer.BYTES;
+
+    private byte[] types;
+    private float[] centerX;
+    private float[] centerY;
+    private float[] sizes;
+    private int[] colors;
+    private int size;
+
+    /**
+     * Создаёт пустой набор с заданной начальной ёмкостью.
+     *
+     * @param capacity начальная ёмкость (количество фигур)
+     */
+    public FigureBatch(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Ёмкость не может быть отрицательной: " + capacity);
+        }
+        types = new byte[capacity];
+        centerX = new float[capacity];
+        centerY = new float[capacity];
+        sizes = new float[capacity];
+        colors = new int[capacity];
+    }
+
+    /**
+     * Добавляет фигуру в конец набора, при необходимости расширяя массивы.
+     *
+     * @param type тип фигуры
+     * @param cx X-координата центра в логических координатах
+     * @param cy Y-координата центра в логических координатах
+     * @param figureSize размер фигуры в логических единицах
+     * @param rgb цвет обводки в формате 0xRRGGBB
+     */
+    public void add(FigureType type, double cx, double cy, double figureSize, int rgb) {
+        if (size == types.length) {
+            grow();
+        }
+        set(size++, type, cx, cy, figureSize, rgb);
+    }
+
+    /**
+     * Записывает фигуру в указанную позицию. Позиция должна быть меньше {@link #size()}.
+     * Используется для заполнения заранее размеченного набора по индексам.
+     *
+     * @param index индекс фигуры
+     * @param type тип фигуры
+     * @param cx X-координата центра
+     * @param cy Y-координата центра
+     * @param figureSize размер фигуры
+     * @param rgb цвет обводки в формате 0xRRGGBB
+     */
+    public void set(int index, FigureType type, double cx, double cy, double figureSize, int rgb) {
+        types[index] = (byte) type.ordinal();
+        centerX[index] = (float) cx;
+        centerY[index] = (float) cy;
+        sizes[index] = (float) figureSize;
+        colors[index] = rgb & 0xFFFFFF;
+    }
+
+    /**
+     * Устанавливает количество фигур в наборе, расширяя массивы при необходимости.
+     * Новые позиции должны быть заполнены через {@link #set}.
+     *
+     * @param newSize новое количество фигур
+     */
+    public void setSize(int newSize) {
+        if (newSize < 0) {
+            throw new IllegalArgumentException("Размер не может быть отрицательным: " + newSize);
+        }
+        if (newSize > types.length) {
+            resize(newSize);
+        }
+        size = newSize;
+    }
+
+    /**
+     * @return количество фигур в наборе
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index индекс фигуры
+     * @return тип фигуры
+     */
+    @Override
+    public FigureType type(int index) {
+        return TYPES[types[index]];
+    }
+
+    /**
+     * @param index индекс фигуры
+     * @return порядковый номер типа фигуры ({@link FigureType#ordinal()})
+     */
+    @Override
+    public int typeOrdinal(int index) {
+        return types[index];
+    }
+
+    /**
+     * @param index индекс фигуры
+     * @return X-координата центра в логических координатах
+     */
+    @Override
+    public float centerX(int index) {
+        return centerX[index];
+    }
+
+    /**
+     * @param index индекс фигуры
+     * @return Y-координата центра в логических координатах
+     */
+    @Override
+    public float centerY(int index) {
+        return centerY[index];
+    }
+
+    /**
+     * @param index индекс фигуры
+     * @return размер фигуры в логических единицах
+     */
+    @Override
+    public float size(int index) {
+        return sizes[index];
+    }
+
+    /**
+     * @param index индекс фигуры
+     * @return цвет обводки в формате 0xRRGGBB
+     */
+    @Override
+    public int rgb(int index) {
+        return colors[index];
+    }
+
+    @Override
+    public void copyGeometry(int from, int n, float[] centersX, float[] centersY, float[] figureSizes) {
+        System.arraycopy(centerX, from, centersX, 0, n);
+        System.arraycopy(centerY, from, centersY, 0, n);
+        System.arraycopy(sizes, from, figureSizes, 0, n);
+    }
+
+    /**
+     * Столбцы набора открыты генератору ({@link FigureGenerator}) для пакетного заполнения блоков
+     * и анимации ({@link AnimatedScene}) для сдвига фигур без вызова {@link #set} на каждую.
+     * Массивы действительны до следующего расширения набора ({@link #add}, {@link #setSize}).
+     *
+     * @return порядковые номера типов фигур
+     */
+    byte[] typeColumn() {
+        return types;
+    }
+
+    /**
+     * @return X-координаты центров (см. {@link #typeColumn()})
+     */
+    float[] centerXColumn() {
+        return centerX;
+    }
+
+    /**
+     * @return Y-координаты центров (см. {@link #typeColumn()})
+     */
+    float[] centerYColumn() {
+        return centerY;
+    }
+
+    /**
+     * @return размеры фигур (см. {@link #typeColumn()})
+     */
+    float[] sizeColumn() {
+        return sizes;
+    }
+
+    /**
+     * @return цвета обводки (см. {@link #typeColumn()})
+     */
+    int[] colorColumn() {
+        return colors;
+    }
+
+    /**
+     * Возвращает объём памяти, занимаемый массивами набора (по ёмкости, без заголовков объектов).
+     *
+     * @return размер в байтах
+     */
+    public long memoryFootprintBytes() {
+        return (long) types.length * BYTES_PER_FIGURE;
+    }
+
+    /**
+     * Создаёт новый набор из выбранных фигур в указанном порядке.
+     *
+     * @param indices индексы копируемых фигур
+     * @return новый набор размером {@code indices.length}
+     */
+    public FigureBatch subset(int[] indices) {
+        FigureBatch copy = new FigureBatch(indices.length);
+        for (int k = 0; k < indices.length; k++) {
+            int i = indices[k];
+            copy.types[k] = types[i];
+            copy.centerX[k] = centerX[i];
+            copy.centerY[k] = centerY[i];
+            copy.sizes[k] = sizes[i];
+            copy.colors[k] = colors[i];
+        }
+        copy.size = indices.length;
+        return copy;
+    }
+
+    /**
+     * Увеличивает ёмкость массивов примерно в полтора раза.
+     */
+    private void grow() {
+        int capacity = types.length;
+        resize(Math.max(16, capacity + (capacity >> 1)));
+    }
+
+    /**
+     * Копирует все массивы в массивы новой ёмкости.
+     *
+     * @param capacity новая ёмкость
+     */
+    private void resize(int capacity) {
+        types = Arrays.copyOf(types, capacity);
+        centerX = Arrays.copyOf(centerX, capacity);
+        centerY = Arrays.copyOf(centerY, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        colors = Arrays.copyOf(colors, capacity);
+    }
+}
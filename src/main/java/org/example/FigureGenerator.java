@@ -0,0 +1,382 @@
+package org.example;
+
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Стадия генерации сцены: заполняет {@link FigureBatch} случайными фигурами.
+ * Не зависит от средств отрисовки — результат читается отдельной стадией рендеринга.
+ * <p>
+ * Индексы фигур делятся на блоки по {@link #CHUNK_SIZE}; каждый блок получает собственный поток
+ * {@link SplittableRandom}, выделенный из корневого генератора с заданным зерном. Поэтому блоки можно
+ * заполнять параллельно, а сцена для одного зерна одинакова при любом количестве потоков.
+ * Центры фигур размещает {@link PlacementStrategy}: её раскладка готовится один раз из отдельного
+ * потока корневого генератора и затем пакетно заполняет координаты каждого блока.
+ * Тип, размер и цвет берутся из трёх счётчиковых потоков {@link BulkKernels} по индексу фигуры и заполняют
+ * столбцы набора целыми блоками (на SIMD, если доступен модуль {@code jdk.incubator.vector}).
+ * <p>
+ * В режиме без наложения ({@link GenerationParams#noOverlap()}) фигуры размещаются последовательно:
+ * фигура, ограничивающий прямоугольник которой задевает уже размещённую, уменьшается, а если не помещается
+ * и с наименьшим размером — отбрасывается. Отброшенные фигуры получают новые центры в следующих раундах,
+ * пока раунды дают заметный прирост. Пересечения проверяются через {@link SpatialHash}.
+ */
+public class FigureGenerator {
+
+    private static final Logger logger = LoggingConfig.getLogger(FigureGenerator.class);
+
+    /**
+     * Количество фигур в блоке с собственным потоком случайных чисел.
+     */
+    public static final int CHUNK_SIZE = 1 << 16;
+
+    /**
+     * Наименьший размер фигуры в логических единицах.
+     */
+    public static final double MIN_FIGURE_SIZE = 5;
+
+    /**
+     * Наибольший размер фигуры в логических единицах (не включительно).
+     */
+    public static final double MAX_FIGURE_SIZE = 45;
+
+    /**
+     * Во сколько раз уменьшается фигура, задевшая уже размещённую.
+     */
+    private static final double SHRINK = 0.7;
+
+    /**
+     * Наибольшее количество раундов размещения без наложения.
+     */
+    private static final int MAX_PLACEMENT_ROUNDS = 8;
+
+    /**
+     * Раунд, разместивший меньше этой доли своих кандидатов, считается последним: места почти не осталось.
+     */
+    private static final double MIN_ROUND_YIELD = 0.01;
+
+    /**
+     * Наименьшее количество кандидатов в повторном раунде, чтобы несколько оставшихся фигур
+     * не проверялись по одной случайной попытке.
+     */
+    private static final int MIN_ROUND_CANDIDATES = 1024;
+
+    /**
+     * Сторона ячейки хеша пересечений: прямоугольник наибольшей фигуры задевает не больше 5×5 ячеек.
+     */
+    private static final double HASH_CELL = 2 * MAX_FIGURE_SIZE / 4;
+
+    /**
+     * Генерирует сцену по параметрам, заполняя блоки параллельно.
+     *
+     * @param params параметры генерации
+     * @return заполненный набор фигур
+     */
+    public static FigureBatch generate(GenerationParams params) {
+        return generate(params, true);
+    }
+
+    /**
+     * Генерирует сцену по параметрам. Размещение без наложения всегда выполняется последовательно.
+     *
+     * @param params параметры генерации
+     * @param parallel {@code true} — заполнять блоки параллельно (результат от этого не зависит)
+     * @return заполненный набор фигур
+     */
+    public static FigureBatch generate(GenerationParams params, boolean parallel) {
+        if (params.noOverlap()) {
+            FigureBatch batch = new FigureBatch(params.count());
+            generateInOrder(params, batch, ready -> true);
+            return batch;
+        }
+        return generate(params.count(), PlacementStrategy.Area.of(params), params.placement(),
+                params.allowedTypes(), params.seed(), parallel);
+    }
+
+    /**
+     * Генерирует набор случайных фигур в заданной логической области с равномерным размещением
+     * ({@link Placement#UNIFORM}).
+     *
+     * @param count количество фигур
+     * @param xMin минимальное значение по оси X в логических координатах
+     * @param xMax максимальное значение по оси X в логических координатах
+     * @param yMin минимальное значение по оси Y в логических координатах
+     * @param yMax максимальное значение по оси Y в логических координатах
+     * @param density степень кластеризации фигур в центре области (0.0 — равномерно, 1.0 — строго в центре)
+     * @param allowedTypes список разрешённых типов фигур (не может быть пустым)
+     * @param seed зерно генератора случайных чисел
+     * @param parallel {@code true} — заполнять блоки параллельно (результат от этого не зависит)
+     * @return заполненный набор фигур
+     */
+    public static FigureBatch generate(int count, double xMin, double xMax, double yMin, double yMax,
+                                       double density, List<FigureType> allowedTypes, long seed, boolean parallel) {
+        return generate(count, new PlacementStrategy.Area(xMin, xMax, yMin, yMax, density), Placement.UNIFORM,
+                allowedTypes, seed, parallel);
+    }
+
+    /**
+     * Генерирует набор случайных фигур, размещая их указанной стратегией.
+     *
+     * @param count количество фигур
+     * @param area логическая область и кучность
+     * @param placement способ размещения центров фигур
+     * @param allowedTypes список разрешённых типов фигур (не может быть пустым)
+     * @param seed зерно генератора случайных чисел
+     * @param parallel {@code true} — заполнять блоки параллельно (результат от этого не зависит)
+     * @return заполненный набор фигур
+     */
+    public static FigureBatch generate(int count, PlacementStrategy.Area area, PlacementStrategy placement,
+                                       List<FigureType> allowedTypes, long seed, boolean parallel) {
+        long started = System.nanoTime();
+        PipelineEvents.Generation event = new PipelineEvents.Generation();
+        event.begin();
+        FigureBatch batch = new FigureBatch(count);
+        batch.setSize(count);
+
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        SplittableRandom root = new SplittableRandom(seed);
+        PlacementStrategy.Layout layout = placement.prepare(count, area, root.split());
+        SplittableRandom[] streams = splitStreams(root, chunks);
+        Attributes attributes = Attributes.draw(root);
+        byte[] ordinals = ordinals(allowedTypes);
+
+        IntStream chunkIndices = IntStream.range(0, chunks);
+        if (parallel && chunks > 1) {
+            chunkIndices = chunkIndices.parallel();
+        }
+        chunkIndices.forEach(c -> {
+            int from = c * CHUNK_SIZE;
+            int to = Math.min(count, from + CHUNK_SIZE);
+            fillChunk(batch, from, to, layout, ordinals, attributes, streams[c]);
+        });
+        generated(event, started, count, parallel && chunks > 1);
+        return batch;
+    }
+
+    /**
+     * Генерирует сцену последовательно, блок за блоком в порядке индексов, сообщая о каждом готовом блоке.
+     * Результат совпадает с {@link #generate(GenerationParams)} для тех же параметров.
+     * Используется для постепенной отрисовки, пока генерация ещё идёт.
+     *
+     * @param params параметры генерации
+     * @param batch набор, который заполняется (его размер устанавливается равным количеству фигур,
+     *              а в режиме без наложения — количеству размещённых фигур)
+     * @param progress получает количество готовых фигур после каждого блока;
+     *                 {@code false} — прервать генерацию
+     * @return количество сгенерированных фигур
+     */
+    public static int generateInOrder(GenerationParams params, FigureBatch batch, IntPredicate progress) {
+        long started = System.nanoTime();
+        PipelineEvents.Generation event = new PipelineEvents.Generation();
+        event.begin();
+        if (params.noOverlap()) {
+            int placed = fillNonOverlapping(params, batch, progress);
+            generated(event, started, placed, false);
+            return placed;
+        }
+        int count = params.count();
+        batch.setSize(count);
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        SplittableRandom root = new SplittableRandom(params.seed());
+        PlacementStrategy.Layout layout =
+                params.placement().prepare(count, PlacementStrategy.Area.of(params), root.split());
+        SplittableRandom[] streams = splitStreams(root, chunks);
+        Attributes attributes = Attributes.draw(root);
+        byte[] ordinals = ordinals(params.allowedTypes());
+
+        for (int c = 0; c < chunks; c++) {
+            int from = c * CHUNK_SIZE;
+            int to = Math.min(count, from + CHUNK_SIZE);
+            fillChunk(batch, from, to, layout, ordinals, attributes, streams[c]);
+            if (!progress.test(to)) {
+                generated(event, started, to, false);
+                return to;
+            }
+        }
+        generated(event, started, count, false);
+        return count;
+    }
+
+    /**
+     * Размещает фигуры без наложения ограничивающих прямоугольников (см. описание класса).
+     * Кандидаты каждого раунда берутся из новой раскладки: в первом раунде на все фигуры, в следующих —
+     * на оставшиеся, но не меньше {@link #MIN_ROUND_CANDIDATES}. Кандидаты получают тип, цвет и размер
+     * так же, как при обычной генерации.
+     *
+     * @param params параметры генерации
+     * @param batch набор, который заполняется; в конце его размер равен количеству размещённых фигур
+     * @param progress получает количество размещённых фигур после каждого блока кандидатов;
+     *                 {@code false} — прервать генерацию
+     * @return количество размещённых фигур
+     */
+    private static int fillNonOverlapping(GenerationParams params, FigureBatch batch, IntPredicate progress) {
+        int count = params.count();
+        batch.setSize(count);
+        PlacementStrategy.Area area = PlacementStrategy.Area.of(params);
+        FigureType[] types = params.allowedTypes().toArray(new FigureType[0]);
+        SplittableRandom root = new SplittableRandom(params.seed());
+        SpatialHash occupied = new SpatialHash(HASH_CELL);
+        int chunkLength = Math.min(Math.max(count, MIN_ROUND_CANDIDATES), CHUNK_SIZE);
+        double[] centersX = new double[chunkLength];
+        double[] centersY = new double[chunkLength];
+        double[] sizes = new double[chunkLength];
+        int[] colors = new int[chunkLength];
+        int[] choices = new int[chunkLength];
+        int placed = 0;
+
+        for (int round = 0; round < MAX_PLACEMENT_ROUNDS && placed < count; round++) {
+            int candidates = round == 0 ? count : Math.max(count - placed, MIN_ROUND_CANDIDATES);
+            int placedBefore = placed;
+            PlacementStrategy.Layout layout = params.placement().prepare(candidates, area, root.split());
+            int chunks = (candidates + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            SplittableRandom[] streams = splitStreams(root, chunks);
+            Attributes attributes = Attributes.draw(root);
+            for (int c = 0; c < chunks && placed < count; c++) {
+                int from = c * CHUNK_SIZE;
+                int to = Math.min(candidates, from + CHUNK_SIZE);
+                int n = to - from;
+                layout.fill(centersX, centersY, from, to, streams[c]);
+                BulkKernels.randomDoubles(attributes.sizeSeed(), from, MIN_FIGURE_SIZE,
+                        MAX_FIGURE_SIZE - MIN_FIGURE_SIZE, sizes, n);
+                BulkKernels.randomColors(attributes.colorSeed(), from, colors, 0, n);
+                BulkKernels.randomIndices(attributes.typeSeed(), from, types.length, choices, n);
+                for (int k = 0; k < n && placed < count; k++) {
+                    FigureType type = types[choices[k]];
+                    double size = sizes[k];
+                    double cx = centersX[k];
+                    double cy = centersY[k];
+                    double bottom = type.bottomFactor();
+                    while (occupied.intersects(cx - size, cy + bottom * size, cx + size, cy + size)) {
+                        if (size == MIN_FIGURE_SIZE) {
+                            size = 0;
+                            break;
+                        }
+                        size = Math.max(MIN_FIGURE_SIZE, size * SHRINK);
+                    }
+                    if (size > 0) {
+                        occupied.insert(cx - size, cy + bottom * size, cx + size, cy + size);
+                        batch.set(placed++, type, cx, cy, size, colors[k]);
+                    }
+                }
+                if (!progress.test(placed)) {
+                    batch.setSize(placed);
+                    return placed;
+                }
+            }
+            if (placed - placedBefore < candidates * MIN_ROUND_YIELD) {
+                break;
+            }
+        }
+        batch.setSize(placed);
+        if (placed < count) {
+            logger.warn("Без наложения размещено {} фигур из {}: остальные не помещаются в области", placed, count);
+        }
+        return placed;
+    }
+
+    /**
+     * Фиксирует событие и метрики генерации.
+     *
+     * @param event событие, начатое перед генерацией
+     * @param started время начала по {@link System#nanoTime()}
+     * @param figures количество сгенерированных фигур
+     * @param parallel генерация выполнялась параллельно
+     */
+    private static void generated(PipelineEvents.Generation event, long started, int figures, boolean parallel) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.figures = figures;
+            event.parallel = parallel;
+            event.commit();
+        }
+        Metrics.GENERATION.record(System.nanoTime() - started);
+        Metrics.FIGURES_GENERATED.add(figures);
+    }
+
+    /**
+     * Выделяет из корневого генератора по одному потоку случайных чисел на блок.
+     *
+     * @param root корневой генератор (после выделения потока раскладки)
+     * @param chunks количество блоков
+     * @return потоки случайных чисел в порядке блоков
+     */
+    private static SplittableRandom[] splitStreams(SplittableRandom root, int chunks) {
+        SplittableRandom[] streams = new SplittableRandom[chunks];
+        for (int c = 0; c < chunks; c++) {
+            streams[c] = root.split();
+        }
+        return streams;
+    }
+
+    /**
+     * Зёрна счётчиковых потоков атрибутов фигур. Значение фигуры с индексом {@code i} —
+     * {@code i}-е значение потока, поэтому любой блок заполняется независимо от остальных.
+     *
+     * @param typeSeed зерно потока типов
+     * @param sizeSeed зерно потока размеров
+     * @param colorSeed зерно потока цветов
+     */
+    private record Attributes(long typeSeed, long sizeSeed, long colorSeed) {
+
+        /**
+         * Выбирает зёрна из корневого генератора (после выделения потоков блоков).
+         *
+         * @param root корневой генератор
+         * @return зёрна потоков
+         */
+        static Attributes draw(SplittableRandom root) {
+            long typeSeed = root.nextLong();
+            long sizeSeed = root.nextLong();
+            long colorSeed = root.nextLong();
+            return new Attributes(typeSeed, sizeSeed, colorSeed);
+        }
+    }
+
+    /**
+     * @param allowedTypes разрешённые типы фигур
+     * @return порядковые номера типов в том же порядке
+     */
+    private static byte[] ordinals(List<FigureType> allowedTypes) {
+        byte[] ordinals = new byte[allowedTypes.size()];
+        for (int t = 0; t < ordinals.length; t++) {
+            ordinals[t] = (byte) allowedTypes.get(t).ordinal();
+        }
+        return ordinals;
+    }
+
+    /**
+     * Заполняет диапазон индексов набора случайными фигурами: раскладка заполняет центры блока
+     * из его потока случайных чисел, а тип, размер и цвет пакетно записываются прямо в столбцы набора.
+     *
+     * @param batch набор фигур
+     * @param from первый индекс (включительно)
+     * @param to последний индекс (не включительно)
+     * @param layout раскладка сцены
+     * @param ordinals порядковые номера разрешённых типов фигур
+     * @param attributes зёрна потоков атрибутов
+     * @param random поток случайных чисел блока
+     */
+    private static void fillChunk(FigureBatch batch, int from, int to, PlacementStrategy.Layout layout,
+                                  byte[] ordinals, Attributes attributes, SplittableRandom random) {
+        int n = to - from;
+        double[] centersX = new double[n];
+        double[] centersY = new double[n];
+        layout.fill(centersX, centersY, from, to, random);
+        BulkKernels.toFloats(centersX, batch.centerXColumn(), from, n);
+        BulkKernels.toFloats(centersY, batch.centerYColumn(), from, n);
+
+        BulkKernels.randomFloats(attributes.sizeSeed(), from, MIN_FIGURE_SIZE, MAX_FIGURE_SIZE - MIN_FIGURE_SIZE,
+                batch.sizeColumn(), from, n);
+        BulkKernels.randomColors(attributes.colorSeed(), from, batch.colorColumn(), from, n);
+
+        int[] choices = new int[n];
+        BulkKernels.randomIndices(attributes.typeSeed(), from, ordinals.length, choices, n);
+        byte[] typeColumn = batch.typeColumn();
+        for (int k = 0; k < n; k++) {
+            typeColumn[from + k] = ordinals[choices[k]];
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.example;
+
+/**
+ * Источник фигур для чтения: то, что нужно стадии отрисовки от сцены.
+ * Реализуется набором в памяти ({@link FigureBatch}) и сценой, отображённой из файла
+ * ({@link SceneFile.MappedScene}), поэтому отрисовка, индексирование и экспорт работают
+ * с обоими представлениями без копирования данных.
+ */
+public interface FigureSource {
+
+    /**
+     * @return количество фигур
+     */
+    int size();
+
+    /**
+     * @param index индекс фигуры
+     * @return тип фигуры
+     */
+    FigureType type(int index);
+
+    /**
+     * @param index индекс фигуры
+     * @return порядковый номер типа фигуры ({@link FigureType#ordinal()})
+     */
+    int typeOrdinal(int index);
+
+    /**
+     * @param index индекс фигуры
+     * @return X-координата центра в логических координатах
+     */
+    float centerX(int index);
+
+    /**
+     * @param index индекс фигуры
+     * @return Y-координата центра в логических координатах
+     */
+    float centerY(int index);
+
+    /**
+     * @param index индекс фигуры
+     * @return размер фигуры в логических единицах
+     */
+    float size(int index);
+
+    /**
+     * @param index индекс фигуры
+     * @return цвет обводки в формате 0xRRGGBB
+     */
+    int rgb(int index);
+
+    /**
+     * Копирует центры и размеры фигур {@code from..from+n-1} в массивы с позиции 0.
+     * Используется пакетными вычислениями, которым нужны столбцы координат целиком.
+     *
+     * @param from первый индекс фигуры
+     * @param n количество фигур
+     * @param centersX X-координаты центров
+     * @param centersY Y-координаты центров
+     * @param figureSizes размеры фигур
+     */
+    default void copyGeometry(int from, int n, float[] centersX, float[] centersY, float[] figureSizes) {
+        for (int k = 0; k < n; k++) {
+            centersX[k] = centerX(from + k);
+            centersY[k] = centerY(from + k);
+            figureSizes[k] = size(from + k);
+        }
+    }
+}
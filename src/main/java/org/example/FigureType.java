@@ -55,4 +55,16 @@ public enum FigureType {
     public String getLabel() {
         return label;
     }
+
+    /**
+     * Возвращает нижнюю границу фигуры относительно центра в долях размера.
+     * По горизонтали все фигуры занимают {@code centerX ± size}, по вертикали —
+     * от {@code centerY + bottomFactor() · size} до {@code centerY + size}:
+     * линия и парабола лежат не ниже центра, остальные фигуры симметричны относительно него.
+     *
+     * @return множитель размера для нижней границы (0 или −1)
+     */
+    public double bottomFactor() {
+        return this == LINE || this == PARABOLA ? 0 : -1;
+    }
 }
\ No newline at end of file
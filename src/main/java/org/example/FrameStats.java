@@ -0,0 +1,128 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Статистика кадров анимации: время подготовки каждого кадра (шаг сцены и отрисовка)
+ * и количество пропущенных кадров — интервалов обновления экрана, к которым новый кадр не был готов.
+ * <p>
+ * Времена кадров хранятся целиком (4 байта на кадр, около 0,9 МБ на час при 60 к/с), поэтому
+ * перцентили точные, а не по корзинам, как в {@link Metrics.Histogram}: для оценки запаса
+ * до бюджета кадра важна разница в доли миллисекунды. Одновременно времена записываются
+ * в {@link Metrics#FRAME}, а пропуски — в {@link Metrics#FRAMES_DROPPED}.
+ * <p>
+ * Запись кадров и пропусков может идти из разных потоков; методы синхронизированы.
+ */
+public final class FrameStats {
+
+    /**
+     * Бюджет кадра при 60 кадрах в секунду.
+     */
+    public static final long FRAME_BUDGET_NANOS = 1_000_000_000L / 60;
+
+    /**
+     * Количество последних кадров, по которым считается текущая сводка ({@link #recent()}): одна секунда при 60 к/с.
+     */
+    private static final int RECENT_FRAMES = 60;
+
+    private final long started = System.nanoTime();
+    private int[] micros = new int[1024];
+    private int frames;
+    private long shown;
+    private long dropped;
+
+    /**
+     * Сводка по кадрам.
+     *
+     * @param frames количество подготовленных кадров
+     * @param p50 медиана времени кадра в миллисекундах
+     * @param p95 95-й перцентиль в миллисекундах
+     * @param p99 99-й перцентиль в миллисекундах
+     * @param max наибольшее время кадра в миллисекундах
+     * @param overBudget доля кадров дольше {@link #FRAME_BUDGET_NANOS}
+     * @param dropped количество пропущенных кадров
+     * @param fps показанных кадров в секунду
+     */
+    public record Summary(int frames, double p50, double p95, double p99, double max, double overBudget,
+                          long dropped, double fps) {
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%.0f к/с · кадр p50 %.2f / p95 %.2f / p99 %.2f мс (макс. %.2f) · дольше 16,7 мс: %.1f %% · пропущено %d",
+                    fps, p50, p95, p99, max, overBudget * 100, dropped);
+        }
+    }
+
+    /**
+     * Учитывает подготовленный кадр.
+     *
+     * @param nanos время подготовки кадра в наносекундах
+     */
+    public synchronized void frame(long nanos) {
+        if (frames == micros.length) {
+            micros = Arrays.copyOf(micros, frames * 2);
+        }
+        micros[frames++] = (int) Math.min(Integer.MAX_VALUE, nanos / 1000);
+        Metrics.FRAME.record(nanos);
+    }
+
+    /**
+     * Учитывает интервал обновления экрана.
+     *
+     * @param fresh {@code true} — показан новый кадр, {@code false} — новый кадр не готов (кадр пропущен)
+     */
+    public synchronized void display(boolean fresh) {
+        if (fresh) {
+            shown++;
+        } else {
+            dropped++;
+            Metrics.FRAMES_DROPPED.increment();
+        }
+    }
+
+    /**
+     * @return сводка по последним {@value #RECENT_FRAMES} кадрам (пропуски и частота — за всё время)
+     */
+    public synchronized Summary recent() {
+        return summarize(Math.max(0, frames - RECENT_FRAMES));
+    }
+
+    /**
+     * @return сводка по всем кадрам
+     */
+    public synchronized Summary total() {
+        return summarize(0);
+    }
+
+    /**
+     * @param from первый учитываемый кадр
+     * @return сводка по кадрам {@code from..frames-1}
+     */
+    private Summary summarize(int from) {
+        int[] sorted = Arrays.copyOfRange(micros, from, frames);
+        Arrays.sort(sorted);
+        int over = 0;
+        for (int i = sorted.length - 1; i >= 0 && sorted[i] * 1000L > FRAME_BUDGET_NANOS; i--) {
+            over++;
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        return new Summary(frames, percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1000.0,
+                sorted.length == 0 ? 0 : (double) over / sorted.length, dropped, seconds > 0 ? shown / seconds : 0);
+    }
+
+    /**
+     * @param sorted времена кадров по возрастанию в микросекундах
+     * @param quantile доля (0.0–1.0)
+     * @return перцентиль (ближайший ранг) в миллисекундах; 0, если кадров нет
+     */
+    private static double percentile(int[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1000.0;
+    }
+}
@@ -0,0 +1,86 @@
+package org.example;
+
+import java.util.List;
+
+/**
+ * Параметры генерации рисунка — те же, что собирает форма {@link Main}, плюс зерно генератора.
+ * При одинаковых параметрах генерация всегда даёт одну и ту же сцену.
+ *
+ * @param count количество фигур
+ * @param xMin минимальное значение по оси X в логических координатах
+ * @param xMax максимальное значение по оси X в логических координатах
+ * @param yMin минимальное значение по оси Y в логических координатах
+ * @param yMax максимальное значение по оси Y в логических координатах
+ * @param density степень кластеризации (0.0–1.0)
+ * @param placement способ размещения фигур
+ * @param noOverlap размещать фигуры без наложения ограничивающих прямоугольников
+ *                  (тогда фигур может получиться меньше {@code count})
+ * @param showGrid флаг отображения координатной сетки
+ * @param allowedTypes список разрешённых типов фигур (не может быть пустым)
+ * @param seed зерно генератора случайных чисел
+ */
+public record GenerationParams(int count, double xMin, double xMax, double yMin, double yMax,
+                               double density, Placement placement, boolean noOverlap, boolean showGrid,
+                               List<FigureType> allowedTypes, long seed) {
+
+    /**
+     * Проверяет параметры и фиксирует неизменяемую копию списка типов.
+     */
+    public GenerationParams {
+        if (count < 0) {
+            throw new IllegalArgumentException("Количество фигур не может быть отрицательным: " + count);
+        }
+        if (!(xMax > xMin) || !(yMax > yMin)) {
+            throw new IllegalArgumentException("Диапазон координат пуст: x=[" + xMin + ", " + xMax
+                    + "], y=[" + yMin + ", " + yMax + "]");
+        }
+        if (density < 0 || density > 1) {
+            throw new IllegalArgumentException("Кучность должна быть от 0.0 до 1.0: " + density);
+        }
+        if (placement == null) {
+            throw new IllegalArgumentException("Не задан способ размещения фигур");
+        }
+        if (allowedTypes.isEmpty()) {
+            throw new IllegalArgumentException("Список типов фигур пуст");
+        }
+        allowedTypes = List.copyOf(allowedTypes);
+    }
+
+    /**
+     * Создаёт параметры с равномерным размещением фигур ({@link Placement#UNIFORM}), допускающим наложение.
+     *
+     * @param count количество фигур
+     * @param xMin минимальное значение по оси X
+     * @param xMax максимальное значение по оси X
+     * @param yMin минимальное значение по оси Y
+     * @param yMax максимальное значение по оси Y
+     * @param density степень кластеризации (0.0–1.0)
+     * @param showGrid флаг отображения координатной сетки
+     * @param allowedTypes список разрешённых типов фигур
+     * @param seed зерно генератора случайных чисел
+     */
+    public GenerationParams(int count, double xMin, double xMax, double yMin, double yMax,
+                            double density, boolean showGrid, List<FigureType> allowedTypes, long seed) {
+        this(count, xMin, xMax, yMin, yMax, density, Placement.UNIFORM, false, showGrid, allowedTypes, seed);
+    }
+
+    /**
+     * @param newSeed зерно генератора случайных чисел
+     * @return те же параметры с другим зерном
+     */
+    public GenerationParams withSeed(long newSeed) {
+        return new GenerationParams(count, xMin, xMax, yMin, yMax, density, placement, noOverlap, showGrid,
+                allowedTypes, newSeed);
+    }
+
+    /**
+     * Создаёт окно просмотра всей логической области на холсте заданного размера.
+     *
+     * @param width ширина холста в пикселях
+     * @param height высота холста в пикселях
+     * @return окно просмотра
+     */
+    public Viewport viewport(double width, double height) {
+        return new Viewport(xMin, xMax, yMin, yMax, width, height);
+    }
+}
@@ -0,0 +1,383 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Генератор нагрузки для сервера отрисовки ({@code ./gradlew loadtest --args="..."}): {@code --concurrency}
+ * клиентов в замкнутом цикле отправляют один и тот же GET-запрос, каждый следующий — сразу после получения
+ * предыдущего ответа целиком. Сначала идёт разогрев ({@code --warmup}), его запросы не учитываются.
+ * Получив отказ (503), клиент выжидает время из заголовка {@code Retry-After}, а без заголовка —
+ * экспоненциально растущую паузу ({@link #MIN_BACKOFF_NANOS}–{@link #MAX_BACKOFF_NANOS});
+ * после ошибки соединения пауза такая же. Так перегруженный сервер не засыпается повторными запросами.
+ * <p>
+ * Итог: запросов в секунду, объём переданных данных, количество отклонённых (503) и ошибочных запросов
+ * и перцентили задержки успешных запросов — от отправки до последнего байта ответа. Задержки хранятся
+ * целиком, поэтому перцентили точные.
+ */
+public class LoadGenerator {
+
+    private static final String DEFAULT_URL = "http://localhost:8080" + RenderServer.PNG_PATH
+            + "?count=1000&size=800x600&seed=42";
+
+    /**
+     * Начальная пауза после отказа без заголовка {@code Retry-After} или ошибки соединения.
+     */
+    static final long MIN_BACKOFF_NANOS = 10_000_000L;
+
+    /**
+     * Наибольшая пауза после отказа без заголовка {@code Retry-After} или ошибки соединения.
+     */
+    static final long MAX_BACKOFF_NANOS = 1_000_000_000L;
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Использование: ./gradlew loadtest --args=\"[параметры]\"",
+            "  --url URL         адрес запроса (по умолчанию " + DEFAULT_URL + ")",
+            "  --concurrency N   одновременных клиентов (по умолчанию 8)",
+            "  --duration S      длительность замера в секундах (по умолчанию 10)",
+            "  --requests N      завершить после N запросов замера (по умолчанию — по времени)",
+            "  --warmup S        разогрев в секундах, не входит в итог (по умолчанию 2)",
+            "При ответе 503 клиент ждёт время из Retry-After (или растущую паузу) перед повтором.",
+            "  --help            показать эту справку");
+
+    /**
+     * Параметры нагрузки.
+     *
+     * @param uri адрес запроса
+     * @param concurrency одновременных клиентов
+     * @param durationNanos длительность замера
+     * @param requests наибольшее количество запросов замера; 0 — без ограничения
+     * @param warmupNanos длительность разогрева
+     */
+    record Options(URI uri, int concurrency, long durationNanos, long requests, long warmupNanos) {
+    }
+
+    /**
+     * Итоги замера.
+     *
+     * @param ok успешных ответов (200)
+     * @param rejected отклонённых ответов (503)
+     * @param errors прочих ответов и ошибок соединения
+     * @param bytes байт в успешных ответах
+     * @param nanos длительность замера
+     * @param latencies задержки успешных запросов по возрастанию, в наносекундах
+     */
+    record Report(long ok, long rejected, long errors, long bytes, long nanos, long[] latencies) {
+
+        /**
+         * @return успешных запросов в секунду
+         */
+        double requestsPerSecond() {
+            return ok * 1e9 / Math.max(1, nanos);
+        }
+
+        /**
+         * @param quantile доля (0.0–1.0)
+         * @return перцентиль задержки (ближайший ранг) в миллисекундах; 0, если успешных запросов нет
+         */
+        double percentile(double quantile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(quantile * latencies.length);
+            return latencies[Math.max(0, rank - 1)] / 1e6;
+        }
+    }
+
+    /**
+     * Точка входа генератора нагрузки.
+     *
+     * @param args аргументы командной строки
+     */
+    public static void main(String[] args) {
+        LoggingConfig.init();
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Разбирает аргументы, выполняет замер и печатает итоги.
+     *
+     * @param args аргументы командной строки
+     * @param out поток для итогов
+     * @param err поток для сообщений об ошибках
+     * @return код завершения процесса: 0 — успех, 1 — ни одного успешного ответа, 2 — неверные аргументы
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        if (Arrays.asList(args).contains("--help")) {
+            out.println(USAGE);
+            return 0;
+        }
+        Options options;
+        try {
+            options = parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+        out.printf(Locale.ROOT, "Нагрузка: %s, клиентов %d, разогрев %.0f с%n",
+                options.uri(), options.concurrency(), options.warmupNanos() / 1e9);
+        Report report = measure(options);
+        out.printf(Locale.ROOT, "Запросов: %d за %.2f с — успешно %d, отклонено (503) %d, ошибок %d%n",
+                report.ok() + report.rejected() + report.errors(), report.nanos() / 1e9,
+                report.ok(), report.rejected(), report.errors());
+        out.printf(Locale.ROOT, "%.1f запросов/с, %.2f МБ/с%n",
+                report.requestsPerSecond(), report.bytes() / (1024.0 * 1024.0) / Math.max(1e-9, report.nanos() / 1e9));
+        out.printf(Locale.ROOT, "Задержка, мс: p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, макс. %.2f%n",
+                report.percentile(0.50), report.percentile(0.90), report.percentile(0.99),
+                report.percentile(0.999), report.percentile(1.0));
+        return report.ok() > 0 ? 0 : 1;
+    }
+
+    /**
+     * Разбирает аргументы командной строки. Значения можно задавать как {@code --key value} или {@code --key=value}.
+     *
+     * @param args аргументы командной строки
+     * @return параметры нагрузки
+     * @throws IllegalArgumentException если аргументы некорректны
+     */
+    static Options parse(String[] args) {
+        URI uri = URI.create(DEFAULT_URL);
+        int concurrency = 8;
+        double duration = 10;
+        long requests = 0;
+        double warmup = 2;
+
+        for (int i = 0; i < args.length; i++) {
+            String key = args[i];
+            String value;
+            int eq = key.indexOf('=');
+            if (eq > 0) {
+                value = key.substring(eq + 1);
+                key = key.substring(0, eq);
+            } else if (i + 1 < args.length) {
+                value = args[++i];
+            } else {
+                throw new IllegalArgumentException("Не указано значение для " + key);
+            }
+            try {
+                switch (key) {
+                    case "--url" -> uri = URI.create(value);
+                    case "--concurrency" -> concurrency = Integer.parseInt(value);
+                    case "--duration" -> duration = Double.parseDouble(value);
+                    case "--requests" -> requests = Long.parseLong(value);
+                    case "--warmup" -> warmup = Double.parseDouble(value);
+                    default -> throw new IllegalArgumentException("Неизвестный параметр: " + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Некорректное число для " + key + ": " + value);
+            }
+        }
+
+        if (!"http".equals(uri.getScheme())) {
+            throw new IllegalArgumentException("Поддерживаются только адреса http://: " + uri);
+        }
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Количество клиентов должно быть положительным: " + concurrency);
+        }
+        if (!(duration > 0) || requests < 0 || !(warmup >= 0)) {
+            throw new IllegalArgumentException("Длительность и количество запросов должны быть положительными");
+        }
+        return new Options(uri, concurrency, (long) (duration * 1e9), requests, (long) (warmup * 1e9));
+    }
+
+    /**
+     * Выполняет разогрев и замер.
+     *
+     * @param options параметры нагрузки
+     * @return итоги замера
+     */
+    static Report measure(Options options) {
+        ExecutorService clients = RenderServer.newRequestExecutor("load-client");
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(clients)
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(options.uri()).GET().build();
+
+        long measureFrom = System.nanoTime() + options.warmupNanos();
+        long deadline = measureFrom + options.durationNanos();
+        AtomicLong issued = new AtomicLong();
+        List<Client> loops = new ArrayList<>(options.concurrency());
+        List<Future<?>> futures = new ArrayList<>(options.concurrency());
+        try {
+            for (int i = 0; i < options.concurrency(); i++) {
+                Client loop = new Client(client, request, measureFrom, deadline, options.requests(), issued);
+                loops.add(loop);
+                futures.add(clients.submit(loop));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ошибка клиента нагрузки", e.getCause());
+        } finally {
+            clients.shutdownNow();
+        }
+        long finished = Math.min(System.nanoTime(), deadline);
+
+        int ok = 0;
+        long rejected = 0, errors = 0, bytes = 0;
+        for (Client loop : loops) {
+            ok += loop.count;
+            rejected += loop.rejected;
+            errors += loop.errors;
+            bytes += loop.bytes;
+        }
+        long[] latencies = new long[ok];
+        int pos = 0;
+        for (Client loop : loops) {
+            System.arraycopy(loop.latencies, 0, latencies, pos, loop.count);
+            pos += loop.count;
+        }
+        Arrays.sort(latencies);
+        return new Report(ok, rejected, errors, bytes, Math.max(1, finished - measureFrom), latencies);
+    }
+
+    /**
+     * Один клиент: последовательно отправляет запросы до конца замера и копит свои задержки
+     * без синхронизации; итоги читаются после его завершения. После отказа или ошибки соединения
+     * клиент выжидает паузу (не дольше конца замера).
+     */
+    private static final class Client implements Runnable {
+
+        private final HttpClient client;
+        private final HttpRequest request;
+        private final long measureFrom;
+        private final long deadline;
+        private final long limit;
+        private final AtomicLong issued;
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long rejected;
+        private long errors;
+        private long bytes;
+        private long backoffNanos = MIN_BACKOFF_NANOS;
+
+        Client(HttpClient client, HttpRequest request, long measureFrom, long deadline, long limit, AtomicLong issued) {
+            this.client = client;
+            this.request = request;
+            this.measureFrom = measureFrom;
+            this.deadline = deadline;
+            this.limit = limit;
+            this.issued = issued;
+        }
+
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                long started = System.nanoTime();
+                if (started >= deadline) {
+                    return;
+                }
+                boolean measured = started >= measureFrom;
+                if (measured && limit > 0 && issued.incrementAndGet() > limit) {
+                    return;
+                }
+                int status;
+                long received;
+                long retryAfterNanos = -1;
+                try {
+                    HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                    try (InputStream body = response.body()) {
+                        received = body.transferTo(OutputStream.nullOutputStream());
+                    }
+                    status = response.statusCode();
+                    if (status == 503) {
+                        retryAfterNanos = retryAfterNanos(response);
+                    }
+                } catch (IOException e) {
+                    status = -1;
+                    received = 0;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (status == 200) {
+                    backoffNanos = MIN_BACKOFF_NANOS;
+                } else if (!pause(retryAfterNanos >= 0 ? retryAfterNanos : nextBackoff())) {
+                    return;
+                }
+                if (!measured) {
+                    continue;
+                }
+                if (status == 200) {
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - started;
+                    bytes += received;
+                } else if (status == 503) {
+                    rejected++;
+                } else {
+                    errors++;
+                }
+            }
+        }
+
+        /**
+         * @return текущая пауза без {@code Retry-After}; следующая будет вдвое длиннее (до {@link #MAX_BACKOFF_NANOS})
+         */
+        private long nextBackoff() {
+            long pause = backoffNanos;
+            backoffNanos = Math.min(MAX_BACKOFF_NANOS, backoffNanos * 2);
+            return pause;
+        }
+
+        /**
+         * Выжидает паузу, но не дольше конца замера.
+         *
+         * @param nanos длительность паузы
+         * @return {@code false}, если поток прерван
+         */
+        private boolean pause(long nanos) {
+            long sleep = Math.min(nanos, deadline - System.nanoTime());
+            if (sleep <= 0) {
+                return true;
+            }
+            try {
+                Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Читает заголовок {@code Retry-After} в виде количества секунд (дата HTTP не поддерживается).
+     *
+     * @param response ответ сервера
+     * @return пауза в наносекундах; -1, если заголовка нет или он некорректен
+     */
+    static long retryAfterNanos(HttpResponse<?> response) {
+        return response.headers().firstValue("Retry-After").map(value -> {
+            try {
+                long seconds = Long.parseLong(value.trim());
+                return seconds >= 0 ? Math.min(seconds, Long.MAX_VALUE / 1_000_000_000L) * 1_000_000_000L : -1L;
+            } catch (NumberFormatException e) {
+                return -1L;
+            }
+        }).orElse(-1L);
+    }
+}
@@ -1,16 +1,14 @@
 package org.example;
 
 import javafx.application.Application;
-import javafx.embed.swing.SwingFXUtils;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
-import javafx.scene.image.WritableImage;
 import javafx.scene.layout.*;
-import javafx.scene.canvas.Canvas;
 import javafx.scene.paint.Color;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
@@ -19,6 +17,7 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 /**
@@ -27,6 +26,17 @@ import java.util.stream.Collectors;
  */
 public class Main extends Application {
 
+    /**
+     * Бюджет кэша слоёв фигур окон просмотра в байтах (слой 800×600 занимает около 1,8 МБ).
+     */
+    private static final long LAYER_CACHE_BYTES = 64L << 20;
+
+    /**
+     * Слои фигур сгенерированных рисунков: повторная генерация с теми же параметрами (и зерном)
+     * показывает рисунок сразу.
+     */
+    private final RenderCache layerCache = new RenderCache(LAYER_CACHE_BYTES);
+
     /**
      * Точка входа в JavaFX-приложение. Вызывается системой при запуске.
      * Инициализирует главное окно с формой ввода параметров.
@@ -50,6 +60,13 @@ public class Main extends Application {
         TextField yMinField = new TextField("-100");
         TextField yMaxField = new TextField("100");
         TextField densityField = new TextField("0.3");
+        ComboBox<Placement> placementBox = new ComboBox<>();
+        placementBox.getItems().addAll(Placement.values());
+        placementBox.setValue(Placement.UNIFORM);
+        TextField seedField = new TextField();
+        seedField.setPromptText("случайное");
+
+        CheckBox overlapCheckbox = new CheckBox("Без наложения фигур");
 
         CheckBox gridCheckbox = new CheckBox("Показать координатную сетку");
         gridCheckbox.setSelected(true);
@@ -76,6 +93,10 @@ public class Main extends Application {
         grid.add(yMaxField, 1, row++);
         grid.add(new Label("Кучность (0.0–1.0):"), 0, row);
         grid.add(densityField, 1, row++);
+        grid.add(new Label("Размещение:"), 0, row);
+        grid.add(placementBox, 1, row++);
+        grid.add(new Label("Зерно (seed):"), 0, row);
+        grid.add(seedField, 1, row++);
 
         grid.add(new Label("Типы фигур:"), 0, row++);
         FlowPane typesBox = new FlowPane(10, 10);
@@ -84,6 +105,8 @@ public class Main extends Application {
         grid.add(typesBox, 0, row, 2, 1);
         row++;
 
+        grid.add(overlapCheckbox, 0, row, 2, 1);
+        row++;
         grid.add(gridCheckbox, 0, row, 2, 1);
         row++;
 
@@ -96,6 +119,8 @@ public class Main extends Application {
                 double yMin = Double.parseDouble(yMinField.getText().trim());
                 double yMax = Double.parseDouble(yMaxField.getText().trim());
                 double density = Double.parseDouble(densityField.getText().trim());
+                String seedText = seedField.getText().trim();
+                long seed = seedText.isEmpty() ? ThreadLocalRandom.current().nextLong() : Long.parseLong(seedText);
 
                 if (density < 0 || density > 1) {
                     showAlert("Кучность должна быть от 0.0 до 1.0");
@@ -114,17 +139,35 @@ public class Main extends Application {
 
                 boolean showGrid = gridCheckbox.isSelected();
 
-                openDrawingWindow(count, xMin, xMax, yMin, yMax, density, showGrid, selected);
-                primaryStage.close();
+                GenerationParams params = new GenerationParams(count, xMin, xMax, yMin, yMax,
+                        density, placementBox.getValue(), overlapCheckbox.isSelected(), showGrid, selected, seed);
+                openDrawingWindow(params, PanZoomView.load(params, 800, 600, layerCache));
 
             } catch (NumberFormatException ex) {
                 showAlert("Проверьте формат чисел!");
+            } catch (IllegalArgumentException ex) {
+                showAlert(ex.getMessage());
+            }
+        });
+
+        Button openBtn = new Button("Открыть сцену…");
+        openBtn.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Открыть сцену");
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Scene files", "*.scene"));
+            File file = chooser.showOpenDialog(primaryStage);
+            if (file == null) return;
+            try {
+                SceneFile.MappedScene scene = SceneFile.open(file.toPath());
+                openDrawingWindow(scene.params(), PanZoomView.open(scene, scene.params(), 800, 600));
+            } catch (IOException ex) {
+                showAlert("Не удалось открыть сцену:\n" + ex.getMessage());
             }
         });
 
-        grid.add(generateBtn, 0, row, 2, 1);
+        grid.add(new HBox(10, generateBtn, openBtn), 0, row, 2, 1);
 
-        Scene scene = new Scene(grid, 400, 500);
+        Scene scene = new Scene(grid, 400, 595);
         primaryStage.setScene(scene);
         primaryStage.show();
     }
@@ -143,60 +186,153 @@ public class Main extends Application {
 
     /**
      * Открывает новое окно для отрисовки случайного рисунка.
-     * Рисует фигуры на холсте, добавляет кнопку сохранения.
+     * Сцена (сгенерированная или открытая из файла) постепенно появляется в {@link PanZoomView}, не блокируя окно;
+     * пока идёт загрузка, показываются индикатор прогресса и кнопка отмены. После загрузки перетаскивание
+     * мышью сдвигает рисунок, колесо мыши масштабирует его. Добавляет кнопки сохранения, экспорта
+     * и возврата к исходному виду.
      *
-     * @param count количество фигур для генерации
-     * @param xMin минимальное значение по оси X
-     * @param xMax максимальное значение по оси X
-     * @param yMin минимальное значение по оси Y
-     * @param yMax максимальное значение по оси Y
-     * @param density степень кластеризации (0.0–1.0)
-     * @param showGrid флаг отображения координатной сетки
-     * @param allowedTypes список выбранных пользователем типов фигур
+     * @param params параметры генерации (включая зерно)
+     * @param view просмотр сцены (загружаемой или уже готовой)
      */
-    private void openDrawingWindow(int count, double xMin, double xMax, double yMin, double yMax,
-                                   double density, boolean showGrid, List<FigureType> allowedTypes) {
+    private void openDrawingWindow(GenerationParams params, PanZoomView view) {
         Stage stage = new Stage();
-        stage.setTitle("Случайный рисунок");
-
-        Canvas canvas = new Canvas(800, 600);
-        GraphicsContext gc;
-        gc = canvas.getGraphicsContext2D();
+        stage.setTitle("Случайный рисунок (seed " + params.seed() + ")");
 
         Button saveBtn = new Button("Сохранить как PNG");
-        saveBtn.setOnAction(e -> saveAsPng(stage, canvas, xMin, xMax, yMin, yMax, density, showGrid, allowedTypes));
+        saveBtn.setOnAction(e -> saveAsPng(stage, view));
+
+        Button posterBtn = new Button("Экспорт постера…");
+        posterBtn.setOnAction(e -> exportPoster(stage, params, view.getBatch()));
+
+        Button tilesBtn = new Button("Экспорт плиток…");
+        tilesBtn.setOnAction(e -> exportTiles(stage, params, view.getBatch()));
+
+        Button sceneBtn = new Button("Сохранить сцену…");
+        sceneBtn.setOnAction(e -> {
+            File file = chooseFile(stage, "Сохранить сцену", "Scene files", ".scene", "drawing.scene");
+            if (file == null) return;
+            runInBackground("scene-save", () -> SceneFile.save(file.toPath(), params, view.getBatch()),
+                    "Сцена сохранена:\n" + file.getAbsolutePath());
+        });
+
+        Button svgBtn = new Button("Экспорт SVG…");
+        svgBtn.setOnAction(e -> {
+            File file = chooseFile(stage, "Экспорт SVG", "SVG files", ".svg", "random_drawing.svg");
+            if (file == null) return;
+            runInBackground("svg-export", () -> SvgRenderTarget.export(view.getBatch(), params, 800, 600, file.toPath()),
+                    "SVG сохранён:\n" + file.getAbsolutePath());
+        });
+
+        Button resetBtn = new Button("Исходный вид");
+        resetBtn.setOnAction(e -> view.reset());
+
+        Button animateBtn = new Button("Анимация…");
+        animateBtn.setOnAction(e -> openAnimationWindow(params, view.getBatch()));
+
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.progressProperty().bind(view.progressProperty());
+        Button cancelBtn = new Button("Отмена");
+        cancelBtn.setOnAction(e -> view.cancel());
+
+        for (Button button : List.of(saveBtn, posterBtn, tilesBtn, sceneBtn, svgBtn, resetBtn, animateBtn)) {
+            button.disableProperty().bind(view.loadingProperty());
+        }
+        for (Control control : List.of(progressBar, cancelBtn)) {
+            control.visibleProperty().bind(view.loadingProperty());
+            control.managedProperty().bind(view.loadingProperty());
+        }
+
+        HBox buttons = new HBox(10, saveBtn, posterBtn, tilesBtn, sceneBtn, svgBtn, resetBtn,
+                animateBtn, progressBar, cancelBtn);
+        buttons.setAlignment(Pos.CENTER);
 
         BorderPane root = new BorderPane();
-        root.setCenter(canvas);
-        root.setBottom(saveBtn);
-        BorderPane.setAlignment(saveBtn, Pos.CENTER);
-        BorderPane.setMargin(saveBtn, new Insets(10));
+        root.setCenter(view);
+        root.setBottom(buttons);
+        BorderPane.setMargin(buttons, new Insets(10));
+
+        if (params.noOverlap()) {
+            view.loadingProperty().addListener((obs, wasLoading, isLoading) -> {
+                int placed = view.getBatch().size();
+                if (!isLoading && placed < params.count()) {
+                    stage.setTitle(stage.getTitle() + " — без наложения размещено " + placed + " из " + params.count());
+                }
+            });
+        }
 
         Scene scene = new Scene(root);
         stage.setScene(scene);
+        stage.setOnHidden(e -> view.cancel());
         stage.show();
+    }
+
+    /**
+     * Открывает окно анимации сцены: фигуры движутся выбранным способом, поверх изображения
+     * выводится статистика кадров. Анимируется копия сцены, исходная сцена не меняется.
+     * Копия собирается в фоновом потоке (сцена может быть огромной или отображённой из файла),
+     * окно показывается сразу, а анимация начинается, когда копия готова.
+     * При закрытии окна анимация останавливается, а итоговая статистика записывается в журнал.
+     *
+     * @param params параметры генерации
+     * @param batch сцена
+     */
+    private void openAnimationWindow(GenerationParams params, FigureSource batch) {
+        ComboBox<AnimatedScene.Mode> modeBox = new ComboBox<>();
+        modeBox.getItems().addAll(AnimatedScene.Mode.values());
+        modeBox.setValue(AnimatedScene.Mode.DRIFT);
+        modeBox.setDisable(true);
+
+        HBox controls = new HBox(10, new Label("Движение:"), modeBox);
+        controls.setAlignment(Pos.CENTER);
+
+        StackPane placeholder = new StackPane(new Label("Подготовка сцены…"));
+        placeholder.setPrefSize(800, 600);
 
-        // Рисуем
-        DrawingRenderer.drawFigures(gc, canvas.getWidth(), canvas.getHeight(),
-                count, xMin, xMax, yMin, yMax, density, showGrid, allowedTypes);
+        BorderPane root = new BorderPane();
+        root.setCenter(placeholder);
+        root.setBottom(controls);
+        BorderPane.setMargin(controls, new Insets(10));
+
+        Task<AnimatedScene> task = new Task<>() {
+            @Override
+            protected AnimatedScene call() {
+                return new AnimatedScene(batch, params, AnimatedScene.Mode.DRIFT, params.seed());
+            }
+        };
+
+        Stage stage = new Stage();
+        stage.setTitle("Анимация (" + batch.size() + " фигур)");
+        stage.setScene(new Scene(root));
+        stage.setOnHidden(e -> task.cancel());
+
+        task.setOnSucceeded(e -> {
+            if (!stage.isShowing()) return;
+            AnimationView view = new AnimationView(task.getValue(), params, 800, 600);
+            modeBox.setOnAction(ev -> view.setMode(modeBox.getValue()));
+            modeBox.setDisable(false);
+            root.setCenter(view);
+            stage.setOnHidden(ev -> view.stop());
+            view.start();
+        });
+        task.setOnFailed(e -> {
+            stage.close();
+            new Alert(Alert.AlertType.ERROR,
+                    "Не удалось подготовить анимацию:\n" + task.getException().getMessage()).showAndWait();
+        });
+
+        stage.show();
+        Thread worker = new Thread(task, "animation-prepare");
+        worker.setDaemon(true);
+        worker.start();
     }
 
     /**
-     * Сохраняет текущее содержимое холста в PNG-файл по выбору пользователя.
-     * Перерисовывает изображение "с нуля" для избежания артефактов.
+     * Сохраняет текущее изображение просмотра (с учётом сдвига и масштаба) в PNG-файл по выбору пользователя.
      *
      * @param stage родительское окно для диалога сохранения
-     * @param canvas холст с текущим изображением
-     * @param xMin минимальное значение по оси X
-     * @param xMax максимальное значение по оси X
-     * @param yMin минимальное значение по оси Y
-     * @param yMax максимальное значение по оси Y
-     * @param density степень кластеризации
-     * @param showGrid флаг отображения сетки
-     * @param allowedTypes список разрешённых типов фигур
+     * @param view просмотр сцены
      */
-    private void saveAsPng(Stage stage, Canvas canvas, double xMin, double xMax, double yMin, double yMax,
-                           double density, boolean showGrid, List<FigureType> allowedTypes) {
+    private void saveAsPng(Stage stage, PanZoomView view) {
         FileChooser chooser = new FileChooser();
         chooser.setTitle("Сохранить как PNG");
         chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PNG files", "*.png"));
@@ -210,19 +346,20 @@ public class Main extends Application {
         }
 
         try {
-            // Перерисовываем "чисто" в новое изображение (чтобы избежать артефактов)
-            double w = canvas.getWidth();
-            double h = canvas.getHeight();
-            WritableImage wi = new WritableImage((int) w, (int) h);
-            Canvas tmp = new Canvas(w, h);
-            GraphicsContext gc = tmp.getGraphicsContext2D();
-
-            DrawingRenderer.drawFigures(gc, w, h, 20, xMin, xMax, yMin, yMax, density, showGrid, allowedTypes);
-
-            tmp.snapshot(null, wi);
-
-            BufferedImage bi = SwingFXUtils.fromFXImage(wi, null);
+            BufferedImage bi = view.toBufferedImage();
+            long started = System.nanoTime();
+            PipelineEvents.PngEncode event = new PipelineEvents.PngEncode();
+            event.begin();
             ImageIO.write(bi, "png", file);
+            event.end();
+            if (event.shouldCommit()) {
+                event.width = bi.getWidth();
+                event.height = bi.getHeight();
+                event.compressedBytes = file.length();
+                event.commit();
+            }
+            Metrics.PNG_ENCODE.record(System.nanoTime() - started);
+            Metrics.PIXELS_ENCODED.add((long) bi.getWidth() * bi.getHeight());
 
             new Alert(Alert.AlertType.INFORMATION, "Изображение сохранено:\n" + file.getAbsolutePath()).showAndWait();
         } catch (IOException ex) {
@@ -230,6 +367,188 @@ public class Main extends Application {
         }
     }
 
+    /**
+     * Экспортирует текущую сцену в PNG большого размера (до десятков тысяч пикселей по стороне).
+     * Размер запрашивается у пользователя; изображение растеризуется и сжимается полосами
+     * в фоновом потоке через {@link PosterExporter}, не занимая поток JavaFX.
+     *
+     * @param stage родительское окно для диалогов
+     * @param params параметры генерации
+     * @param batch сцена, отображаемая на холсте
+     */
+    private void exportPoster(Stage stage, GenerationParams params, FigureSource batch) {
+        int[] size = askSize(stage, "Экспорт постера", "10000x10000");
+        if (size == null) return;
+        int width = size[0], height = size[1];
+
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Экспорт постера");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PNG files", "*.png"));
+        chooser.setInitialFileName("poster_" + width + "x" + height + ".png");
+        File chosen = chooser.showSaveDialog(stage);
+        if (chosen == null) return;
+        File file = chosen.getName().toLowerCase().endsWith(".png") ? chosen : new File(chosen.getAbsolutePath() + ".png");
+
+        int workers = Runtime.getRuntime().availableProcessors();
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws IOException {
+                PosterExporter.export(batch, params, width, height, file.toPath(), workers, true);
+                return null;
+            }
+        };
+        task.setOnSucceeded(e -> new Alert(Alert.AlertType.INFORMATION,
+                "Постер сохранён:\n" + file.getAbsolutePath()).showAndWait());
+        task.setOnFailed(e -> new Alert(Alert.AlertType.ERROR,
+                "Ошибка экспорта:\n" + task.getException().getMessage()).showAndWait());
+
+        Thread worker = new Thread(task, "poster-export");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Экспортирует текущую сцену в пирамиду плиток для просмотра с глубоким масштабированием.
+     * Размер наибольшего уровня и размещение файлов запрашиваются у пользователя; плитки рисуются
+     * в фоновом потоке через {@link TilePyramidExporter}.
+     *
+     * @param stage родительское окно для диалогов
+     * @param params параметры генерации
+     * @param batch сцена, отображаемая на холсте
+     */
+    private void exportTiles(Stage stage, GenerationParams params, FigureSource batch) {
+        int[] size = askSize(stage, "Экспорт плиток", "100000x100000");
+        if (size == null) return;
+
+        ChoiceDialog<TilePyramidExporter.Layout> layoutDialog = new ChoiceDialog<>(
+                TilePyramidExporter.Layout.DZI, TilePyramidExporter.Layout.values());
+        layoutDialog.initOwner(stage);
+        layoutDialog.setTitle("Экспорт плиток");
+        layoutDialog.setHeaderText(null);
+        layoutDialog.setContentText("Размещение файлов:");
+        Optional<TilePyramidExporter.Layout> layout = layoutDialog.showAndWait();
+        if (layout.isEmpty()) return;
+
+        File target;
+        if (layout.get() == TilePyramidExporter.Layout.DZI) {
+            target = chooseFile(stage, "Экспорт плиток", "Deep Zoom", ".dzi", "drawing.dzi");
+        } else {
+            DirectoryChooser chooser = new DirectoryChooser();
+            chooser.setTitle("Каталог плиток (пустой)");
+            target = chooser.showDialog(stage);
+        }
+        if (target == null) return;
+
+        int workers = Runtime.getRuntime().availableProcessors();
+        Task<TilePyramidExporter.Summary> task = new Task<>() {
+            @Override
+            protected TilePyramidExporter.Summary call() throws IOException {
+                return TilePyramidExporter.export(batch, params, size[0], size[1], target.toPath(), layout.get(), workers);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            TilePyramidExporter.Summary summary = task.getValue();
+            new Alert(Alert.AlertType.INFORMATION, "Плитки сохранены:\n" + target.getAbsolutePath()
+                    + "\nУровней: " + summary.levels() + ", плиток: " + summary.written()
+                    + ", пустых пропущено: " + summary.empty()).showAndWait();
+        });
+        task.setOnFailed(e -> new Alert(Alert.AlertType.ERROR,
+                "Ошибка экспорта:\n" + task.getException().getMessage()).showAndWait());
+
+        Thread worker = new Thread(task, "tiles-export");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Запрашивает у пользователя размер изображения.
+     *
+     * @param stage родительское окно для диалога
+     * @param title заголовок диалога
+     * @param initial размер по умолчанию
+     * @return ширина и высота или {@code null}, если ввод отменён или некорректен
+     */
+    private int[] askSize(Stage stage, String title, String initial) {
+        TextInputDialog sizeDialog = new TextInputDialog(initial);
+        sizeDialog.initOwner(stage);
+        sizeDialog.setTitle(title);
+        sizeDialog.setHeaderText(null);
+        sizeDialog.setContentText("Размер (ширина x высота):");
+        Optional<String> answer = sizeDialog.showAndWait();
+        if (answer.isEmpty()) return null;
+
+        int width, height;
+        try {
+            String[] parts = answer.get().trim().toLowerCase().split("[x×*]");
+            width = Integer.parseInt(parts[0].trim());
+            height = Integer.parseInt(parts[1].trim());
+        } catch (RuntimeException ex) {
+            showAlert("Укажите размер в виде 20000x15000");
+            return null;
+        }
+        if (width <= 0 || height <= 0) {
+            showAlert("Размер должен быть положительным");
+            return null;
+        }
+        return new int[]{width, height};
+    }
+
+    /**
+     * Запись файла, выполняемая в фоновом потоке.
+     */
+    @FunctionalInterface
+    private interface FileWrite {
+
+        /**
+         * @throws IOException при ошибке записи
+         */
+        void run() throws IOException;
+    }
+
+    /**
+     * Запрашивает у пользователя файл для сохранения и при необходимости дописывает расширение.
+     *
+     * @param stage родительское окно для диалога
+     * @param title заголовок диалога
+     * @param description описание фильтра файлов
+     * @param extension расширение с точкой (например, ".svg")
+     * @param initialName имя файла по умолчанию
+     * @return выбранный файл или {@code null}, если выбор отменён
+     */
+    private File chooseFile(Stage stage, String title, String description, String extension, String initialName) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(title);
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(description, "*" + extension));
+        chooser.setInitialFileName(initialName);
+        File chosen = chooser.showSaveDialog(stage);
+        if (chosen == null) return null;
+        return chosen.getName().toLowerCase().endsWith(extension) ? chosen : new File(chosen.getAbsolutePath() + extension);
+    }
+
+    /**
+     * Выполняет запись файла в фоновом потоке и сообщает о результате.
+     *
+     * @param threadName имя фонового потока
+     * @param write запись файла
+     * @param doneMessage сообщение об успешном завершении
+     */
+    private void runInBackground(String threadName, FileWrite write, String doneMessage) {
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws IOException {
+                write.run();
+                return null;
+            }
+        };
+        task.setOnSucceeded(e -> new Alert(Alert.AlertType.INFORMATION, doneMessage).showAndWait());
+        task.setOnFailed(e -> new Alert(Alert.AlertType.ERROR,
+                "Ошибка записи:\n" + task.getException().getMessage()).showAndWait());
+
+        Thread worker = new Thread(task, threadName);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
     /**
      * Статическая точка входа в приложение. Делегирует запуск JavaFX-платформе.
      *
@@ -0,0 +1,293 @@
+package org.example;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Реестр метрик процесса: счётчики и гистограммы задержек стадий генерации и отрисовки.
+ * Запись в метрику — несколько неблокирующих атомарных операций, поэтому метрики
+ * собираются всегда; текущие значения выводятся по запросу ({@link #dump()}).
+ * <p>
+ * Стадии, замеряемые приложением: {@link #GENERATION}, {@link #GRID}, {@link #DRAW},
+ * {@link #SNAPSHOT}, {@link #PNG_ENCODE}, {@link #FRAME}, {@link #SERVER_REQUEST}.
+ */
+public final class Metrics {
+
+    private static final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Время генерации сцены.
+     */
+    public static final Histogram GENERATION = histogram("generation");
+
+    /**
+     * Время отрисовки координатной сетки.
+     */
+    public static final Histogram GRID = histogram("grid");
+
+    /**
+     * Время отрисовки фигур за один вызов отрисовки.
+     */
+    public static final Histogram DRAW = histogram("draw");
+
+    /**
+     * Время снимка изображения.
+     */
+    public static final Histogram SNAPSHOT = histogram("snapshot");
+
+    /**
+     * Время кодирования PNG.
+     */
+    public static final Histogram PNG_ENCODE = histogram("png.encode");
+
+    /**
+     * Время подготовки кадра анимации (шаг сцены и отрисовка).
+     */
+    public static final Histogram FRAME = histogram("animation.frame");
+
+    /**
+     * Время обработки запроса сервером отрисовки: от постановки в очередь до отправки ответа.
+     */
+    public static final Histogram SERVER_REQUEST = histogram("server.request");
+
+    /**
+     * Сгенерировано фигур.
+     */
+    public static final Counter FIGURES_GENERATED = counter("figures.generated");
+
+    /**
+     * Передано на отрисовку фигур.
+     */
+    public static final Counter FIGURES_DRAWN = counter("figures.drawn");
+
+    /**
+     * Закодировано пикселей PNG.
+     */
+    public static final Counter PIXELS_ENCODED = counter("png.pixels");
+
+    /**
+     * Пропущено кадров анимации: новый кадр не был готов к обновлению экрана.
+     */
+    public static final Counter FRAMES_DROPPED = counter("animation.dropped");
+
+    /**
+     * Отклонено запросов сервером отрисовки (ответ 503): очередь заполнена.
+     */
+    public static final Counter SERVER_REJECTED = counter("server.rejected");
+
+    private Metrics() {
+    }
+
+    /**
+     * Монотонный счётчик.
+     */
+    public static final class Counter {
+
+        private final LongAdder value = new LongAdder();
+
+        private Counter() {
+        }
+
+        /**
+         * Увеличивает счётчик на единицу.
+         */
+        public void increment() {
+            value.increment();
+        }
+
+        /**
+         * Увеличивает счётчик.
+         *
+         * @param delta приращение
+         */
+        public void add(long delta) {
+            value.add(delta);
+        }
+
+        /**
+         * @return текущее значение
+         */
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    /**
+     * Гистограмма задержек в наносекундах с логарифмическими корзинами: четыре корзины
+     * на каждую степень двойки, то есть относительная погрешность перцентилей не больше 25 %.
+     */
+    public static final class Histogram {
+
+        /**
+         * Корзин на степень двойки (в виде показателя).
+         */
+        private static final int SUB_BITS = 2;
+
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+        private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        private Histogram() {
+        }
+
+        /**
+         * Учитывает одно измерение.
+         *
+         * @param nanos длительность в наносекундах (отрицательные значения считаются нулём)
+         */
+        public void record(long nanos) {
+            long value = Math.max(0, nanos);
+            buckets.incrementAndGet(bucket(value));
+            count.increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        /**
+         * @return количество измерений
+         */
+        public long count() {
+            return count.sum();
+        }
+
+        /**
+         * @return сумма измерений в наносекундах
+         */
+        public long sum() {
+            return sum.sum();
+        }
+
+        /**
+         * @return наибольшее измерение в наносекундах
+         */
+        public long max() {
+            return max.get();
+        }
+
+        /**
+         * Возвращает оценку перцентиля сверху — верхнюю границу корзины, в которую он попадает.
+         *
+         * @param quantile доля (0.0–1.0)
+         * @return оценка в наносекундах; 0, если измерений нет
+         */
+        public long percentile(double quantile) {
+            long total = 0;
+            long[] snapshot = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = buckets.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max());
+                }
+            }
+            return max();
+        }
+
+        /**
+         * Сбрасывает все измерения.
+         */
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            sum.reset();
+            max.reset();
+        }
+
+        /**
+         * @param value значение
+         * @return номер корзины
+         */
+        private static int bucket(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return exponent * SUB_BUCKETS + sub;
+        }
+
+        /**
+         * @param bucket номер корзины
+         * @return наибольшее значение, попадающее в корзину
+         */
+        private static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = bucket / SUB_BUCKETS;
+            long sub = bucket % SUB_BUCKETS;
+            return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+        }
+    }
+
+    /**
+     * Возвращает счётчик с указанным именем, создавая его при первом обращении.
+     *
+     * @param name имя счётчика
+     * @return счётчик
+     */
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    /**
+     * Возвращает гистограмму с указанным именем, создавая её при первом обращении.
+     *
+     * @param name имя гистограммы
+     * @return гистограмма
+     */
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new Histogram());
+    }
+
+    /**
+     * Формирует текстовый отчёт: по строке на метрику, в алфавитном порядке имён.
+     * Времена выводятся в миллисекундах.
+     *
+     * @return отчёт
+     */
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, Counter> entry : new TreeMap<>(counters).entrySet()) {
+            out.append(String.format(Locale.ROOT, "%-20s %d%n", entry.getKey(), entry.getValue().get()));
+        }
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            Histogram h = entry.getValue();
+            long n = h.count();
+            out.append(String.format(Locale.ROOT,
+                    "%-20s count=%d mean=%.3f p50=%.3f p90=%.3f p99=%.3f max=%.3f ms%n",
+                    entry.getKey(), n, n == 0 ? 0.0 : h.sum() / 1e6 / n,
+                    h.percentile(0.5) / 1e6, h.percentile(0.9) / 1e6, h.percentile(0.99) / 1e6, h.max() / 1e6));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Сбрасывает значения всех метрик (сами метрики остаются зарегистрированными).
+     */
+    public static void reset() {
+        counters.values().forEach(c -> c.value.reset());
+        histograms.values().forEach(Histogram::reset);
+    }
+}
@@ -0,0 +1,700 @@
+package org.example;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.scene.Cursor;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Pane;
+import org.apache.logging.log4j.Logger;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Интерактивный просмотр сцены: перетаскивание мышью сдвигает изображение, колесо мыши
+ * масштабирует его относительно указателя.
+ * <p>
+ * Сетка с осями и фигуры хранятся в двух отдельных растровых слоях ({@link RasterRenderTarget}),
+ * которые выводятся как изображения друг над другом. При сдвиге окна
+ * ({@link Viewport#panned(int, int)}) содержимое слоёв переносится на целое число пикселей,
+ * а перерисовываются только открывшиеся полосы — фигуры для них выбираются через {@link SpatialIndex}.
+ * Растеризация не зависит от области отсечения, поэтому собранное по полосам изображение совпадает
+ * с полной перерисовкой. Масштабирование перерисовывает слои целиком.
+ * <p>
+ * События мыши только меняют окно просмотра; перерисовка выполняется не чаще одного раза за кадр
+ * в {@link AnimationTimer}. Должен использоваться в потоке JavaFX Application Thread.
+ * <p>
+ * Сцена загружается постепенно: генерация ({@link #load}) или построение индекса открытой сцены
+ * ({@link #open}) идёт в фоновом потоке, а готовые фигуры дорисовываются в каждом кадре в пределах
+ * бюджета времени, так что поток JavaFX не занят дольше одного кадра при любом количестве фигур.
+ * Готовый слой фигур сгенерированной сцены сохраняется в {@link RenderCache}: при повторной загрузке
+ * тех же параметров он выводится сразу, а генерация идёт в фоне только ради индекса для сдвига и масштаба.
+ */
+public class PanZoomView extends Pane {
+
+    private static final Logger logger = LoggingConfig.getLogger(PanZoomView.class);
+
+    /**
+     * Прозрачный цвет фона слоя фигур в формате 0xAARRGGBB.
+     */
+    private static final int TRANSPARENT = 0x00000000;
+
+    /**
+     * Увеличение за один щелчок колеса мыши.
+     */
+    private static final double ZOOM_PER_NOTCH = 1.25;
+
+    /**
+     * Смещение колеса мыши, соответствующее одному щелчку.
+     */
+    private static final double SCROLL_NOTCH = 40;
+
+    /**
+     * Наибольшее приближение относительно исходного окна.
+     */
+    private static final double MAX_ZOOM = 1e6;
+
+    /**
+     * Наибольшее отдаление относительно исходного окна.
+     */
+    private static final double MIN_ZOOM = 1e-3;
+
+    /**
+     * Бюджет времени на дорисовку фигур в одном кадре при постепенной загрузке (половина кадра при 60 Гц).
+     */
+    private static final long FRAME_BUDGET_NANOS = 8_000_000;
+
+    /**
+     * Количество фигур, отрисовываемых между проверками бюджета времени.
+     */
+    private static final int SLICE = 512;
+
+    private final boolean showGrid;
+    private final int width;
+    private final int height;
+    private final Viewport home;
+    private final Layer gridLayer;
+    private final Layer figureLayer;
+    private final AnimationTimer timer;
+    private final ReadOnlyDoubleWrapper progress = new ReadOnlyDoubleWrapper(this, "progress", 1);
+    private final ReadOnlyBooleanWrapper loading = new ReadOnlyBooleanWrapper(this, "loading", false);
+
+    private FigureSource batch;
+    private SpatialIndex index;
+    private Loader loader;
+    private Viewport viewport;
+    private double gridStepX;
+    private double gridStepY;
+    private int pendingDx;
+    private int pendingDy;
+    private boolean fullRepaint = true;
+    private double dragX;
+    private double dragY;
+
+    /**
+     * Создаёт пустой просмотр: слои, таймер перерисовки и обработчики мыши.
+     *
+     * @param params параметры генерации
+     * @param width ширина в пикселях
+     * @param height высота в пикселях
+     */
+    private PanZoomView(GenerationParams params, int width, int height) {
+        this.showGrid = params.showGrid();
+        this.width = width;
+        this.height = height;
+        this.home = params.viewport(width, height);
+        this.viewport = home;
+        this.gridLayer = new Layer(width, height);
+        this.figureLayer = new Layer(width, height);
+
+        getChildren().addAll(gridLayer.view, figureLayer.view);
+        setPrefSize(width, height);
+        setMinSize(width, height);
+        setMaxSize(width, height);
+        setCursor(Cursor.OPEN_HAND);
+
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (loader != null) {
+                    loader.step();
+                }
+                update();
+                if (loader == null) {
+                    stop();
+                }
+            }
+        };
+
+        addEventHandler(MouseEvent.MOUSE_PRESSED, this::onPressed);
+        addEventHandler(MouseEvent.MOUSE_DRAGGED, this::onDragged);
+        addEventHandler(MouseEvent.MOUSE_RELEASED, e -> setCursor(Cursor.OPEN_HAND));
+        addEventHandler(ScrollEvent.SCROLL, this::onScroll);
+    }
+
+    /**
+     * Создаёт просмотр и запускает постепенную загрузку сцены: генерация выполняется в фоновом потоке,
+     * готовые фигуры появляются на экране по мере генерации. Сдвиг и масштабирование становятся
+     * доступны после загрузки (или отмены).
+     *
+     * @param params параметры генерации
+     * @param width ширина в пикселях
+     * @param height высота в пикселях
+     * @param cache кэш слоя фигур; {@code null} — без кэша
+     * @return просмотр, загружающий сцену
+     */
+    public static PanZoomView load(GenerationParams params, int width, int height, RenderCache cache) {
+        PanZoomView view = new PanZoomView(params, width, height);
+        Loader sceneLoader = view.new Loader(params, new FigureBatch(params.count()));
+        view.startLoading(sceneLoader);
+        if (cache != null) {
+            sceneLoader.useCache(cache, new RenderCache.Key(RenderCache.LAYER, params, width, height));
+        }
+        return view;
+    }
+
+    /**
+     * Создаёт просмотр готовой сцены (например, отображённой из файла) и запускает её постепенную загрузку:
+     * пространственный индекс строится в фоновом потоке, а фигуры дорисовываются по мере кадров.
+     * Просмотр можно показать сразу, сколько бы фигур ни было в сцене.
+     *
+     * @param scene сцена (не должна меняться, пока используется просмотр)
+     * @param params параметры генерации (исходная логическая область и флаг сетки)
+     * @param width ширина в пикселях
+     * @param height высота в пикселях
+     * @return просмотр, загружающий сцену
+     */
+    public static PanZoomView open(FigureSource scene, GenerationParams params, int width, int height) {
+        PanZoomView view = new PanZoomView(params, width, height);
+        view.startLoading(view.new Loader(scene));
+        return view;
+    }
+
+    /**
+     * Очищает слои, рисует сетку и запускает постепенную загрузку.
+     *
+     * @param sceneLoader загрузка сцены
+     */
+    private void startLoading(Loader sceneLoader) {
+        fullRepaint = false;
+        updateGridStep();
+        repaintGrid(0, 0, width, height);
+        figureLayer.target.resetClip();
+        figureLayer.target.clear(TRANSPARENT);
+        gridLayer.upload();
+        figureLayer.upload();
+
+        loader = sceneLoader;
+        batch = sceneLoader.source;
+        progress.set(0);
+        loading.set(true);
+        timer.start();
+    }
+
+    /**
+     * Отменяет постепенную загрузку: генерация останавливается, сценой становятся уже отрисованные фигуры.
+     * Если загрузка не идёт, ничего не делает.
+     */
+    public void cancel() {
+        if (loader != null) {
+            loader.cancel();
+        }
+    }
+
+    /**
+     * @return доля отрисованных фигур при загрузке (0.0–1.0)
+     */
+    public ReadOnlyDoubleProperty progressProperty() {
+        return progress.getReadOnlyProperty();
+    }
+
+    /**
+     * @return {@code true}, пока идёт постепенная загрузка сцены
+     */
+    public ReadOnlyBooleanProperty loadingProperty() {
+        return loading.getReadOnlyProperty();
+    }
+
+    /**
+     * @return отображаемая сцена (во время загрузки — заполняемый набор)
+     */
+    public FigureSource getBatch() {
+        return batch;
+    }
+
+    /**
+     * Возвращает исходное окно просмотра, заданное параметрами генерации.
+     */
+    public void reset() {
+        if (loader != null) {
+            return;
+        }
+        viewport = home;
+        requestFullRepaint();
+    }
+
+    /**
+     * @return текущее окно просмотра
+     */
+    public Viewport getViewport() {
+        return viewport;
+    }
+
+    /**
+     * Собирает текущее изображение (фигуры поверх сетки) в одно изображение.
+     *
+     * @return изображение размером с просмотр
+     */
+    public BufferedImage toBufferedImage() {
+        update();
+        long started = System.nanoTime();
+        PipelineEvents.Snapshot event = new PipelineEvents.Snapshot();
+        event.begin();
+        RasterRenderTarget composite = new RasterRenderTarget(width, height);
+        int[] out = composite.getPixels();
+        for (int i = 0; i < out.length; i++) {
+            int figure = figureLayer.pixels[i];
+            out[i] = figure != TRANSPARENT ? figure : gridLayer.pixels[i];
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.width = width;
+            event.height = height;
+            event.commit();
+        }
+        Metrics.SNAPSHOT.record(System.nanoTime() - started);
+        return composite.toBufferedImage();
+    }
+
+    /**
+     * Запоминает точку начала перетаскивания.
+     *
+     * @param e событие мыши
+     */
+    private void onPressed(MouseEvent e) {
+        dragX = e.getX();
+        dragY = e.getY();
+        setCursor(Cursor.CLOSED_HAND);
+    }
+
+    /**
+     * Сдвигает окно просмотра на целое число пикселей вслед за указателем.
+     *
+     * @param e событие мыши
+     */
+    private void onDragged(MouseEvent e) {
+        if (loader != null) {
+            return;
+        }
+        int dx = (int) Math.round(e.getX() - dragX);
+        int dy = (int) Math.round(e.getY() - dragY);
+        if (dx == 0 && dy == 0) {
+            return;
+        }
+        dragX += dx;
+        dragY += dy;
+        viewport = viewport.panned(dx, dy);
+        pendingDx += dx;
+        pendingDy += dy;
+        timer.start();
+    }
+
+    /**
+     * Масштабирует окно просмотра относительно указателя.
+     *
+     * @param e событие прокрутки
+     */
+    private void onScroll(ScrollEvent e) {
+        if (loader != null || e.getDeltaY() == 0) {
+            return;
+        }
+        double factor = Math.pow(ZOOM_PER_NOTCH, e.getDeltaY() / SCROLL_NOTCH);
+        Viewport zoomed = viewport.zoomed(factor, e.getX(), e.getY());
+        double zoom = (home.getXMax() - home.getXMin()) / (zoomed.getXMax() - zoomed.getXMin());
+        if (zoom > MAX_ZOOM || zoom < MIN_ZOOM) {
+            return;
+        }
+        viewport = zoomed;
+        requestFullRepaint();
+    }
+
+    /**
+     * Помечает оба слоя для полной перерисовки в следующем кадре.
+     */
+    private void requestFullRepaint() {
+        fullRepaint = true;
+        timer.start();
+    }
+
+    /**
+     * Приводит слои в соответствие с текущим окном просмотра: переносит содержимое и перерисовывает
+     * открывшиеся полосы либо, после масштабирования или слишком большого сдвига, перерисовывает всё.
+     */
+    private void update() {
+        int dx = pendingDx;
+        int dy = pendingDy;
+        pendingDx = 0;
+        pendingDy = 0;
+
+        if (fullRepaint || Math.abs(dx) >= width || Math.abs(dy) >= height) {
+            long started = System.nanoTime();
+            fullRepaint = false;
+            updateGridStep();
+            repaint(0, 0, width, height);
+            logger.debug("Полная перерисовка просмотра {}x{} (x [{}; {}], y [{}; {}]) за {} мс",
+                    width, height, viewport.getXMin(), viewport.getXMax(),
+                    viewport.getYMin(), viewport.getYMax(), (System.nanoTime() - started) / 1_000_000);
+        } else if (dx != 0 || dy != 0) {
+            gridLayer.shift(dx, dy);
+            figureLayer.shift(dx, dy);
+            if (dx > 0) {
+                repaint(0, 0, dx, height);
+            } else if (dx < 0) {
+                repaint(width + dx, 0, width, height);
+            }
+            if (dy > 0) {
+                repaint(0, 0, width, dy);
+            } else if (dy < 0) {
+                repaint(0, height + dy, width, height);
+            }
+        } else {
+            return;
+        }
+        gridLayer.upload();
+        figureLayer.upload();
+    }
+
+    /**
+     * Перерисовывает прямоугольник {@code [x0, x1) × [y0, y1)} обоих слоёв.
+     *
+     * @param x0 левая граница в пикселях
+     * @param y0 верхняя граница в пикселях
+     * @param x1 правая граница в пикселях
+     * @param y1 нижняя граница в пикселях
+     */
+    private void repaint(int x0, int y0, int x1, int y1) {
+        repaintGrid(x0, y0, x1, y1);
+
+        RasterRenderTarget figures = figureLayer.target;
+        figures.setClip(x0, y0, x1, y1);
+        figures.clear(TRANSPARENT);
+        int[] visible = DrawingRenderer.queryPixels(index, viewport, x0, y0, x1, y1);
+        DrawingRenderer.drawSelected(figures, batch, visible, viewport);
+    }
+
+    /**
+     * Перерисовывает прямоугольник {@code [x0, x1) × [y0, y1)} слоя сетки.
+     *
+     * @param x0 левая граница в пикселях
+     * @param y0 верхняя граница в пикселях
+     * @param x1 правая граница в пикселях
+     * @param y1 нижняя граница в пикселях
+     */
+    private void repaintGrid(int x0, int y0, int x1, int y1) {
+        RasterRenderTarget grid = gridLayer.target;
+        grid.setClip(x0, y0, x1, y1);
+        grid.clear(DrawingRenderer.BACKGROUND);
+        if (showGrid) {
+            DrawingRenderer.drawGrid(grid, viewport, home.getXMin(), gridStepX, home.getYMin(), gridStepY);
+        }
+    }
+
+    /**
+     * Подбирает шаг сетки: исходный шаг (десятая часть исходной области), умноженный на степень двойки,
+     * ближайшую к текущему масштабу, — так на экране остаётся около десяти линий по каждой оси.
+     */
+    private void updateGridStep() {
+        double scaleX = (viewport.getXMax() - viewport.getXMin()) / (home.getXMax() - home.getXMin());
+        double scaleY = (viewport.getYMax() - viewport.getYMin()) / (home.getYMax() - home.getYMin());
+        gridStepX = (home.getXMax() - home.getXMin()) / 10 * Math.pow(2, Math.round(Math.log(scaleX) / Math.log(2)));
+        gridStepY = (home.getYMax() - home.getYMin()) / 10 * Math.pow(2, Math.round(Math.log(scaleY) / Math.log(2)));
+    }
+
+    /**
+     * Возвращает массив индексов {@code from, from + 1, …, to - 1}.
+     *
+     * @param from первый индекс (включительно)
+     * @param to последний индекс (не включительно)
+     * @return массив индексов
+     */
+    private static int[] range(int from, int to) {
+        int[] indices = new int[to - from];
+        for (int k = 0; k < indices.length; k++) {
+            indices[k] = from + k;
+        }
+        return indices;
+    }
+
+    /**
+     * Копирует выбранные фигуры сцены в новый набор.
+     *
+     * @param source сцена
+     * @param indices индексы копируемых фигур
+     * @return новый набор размером {@code indices.length}
+     */
+    private static FigureBatch subset(FigureSource source, int[] indices) {
+        if (source instanceof FigureBatch batch) {
+            return batch.subset(indices);
+        }
+        FigureBatch copy = new FigureBatch(indices.length);
+        for (int i : indices) {
+            copy.add(source.type(i), source.centerX(i), source.centerY(i), source.size(i), source.rgb(i));
+        }
+        return copy;
+    }
+
+    /**
+     * Загруженная сцена вместе с её пространственным индексом.
+     *
+     * @param batch набор фигур
+     * @param index пространственный индекс набора
+     */
+    private record LoadedScene(FigureSource batch, SpatialIndex index) {
+    }
+
+    /**
+     * Постепенная загрузка сцены. Фоновый поток генерирует фигуры блоками в порядке индексов
+     * ({@link FigureGenerator#generateInOrder}) и публикует количество готовых фигур, а кадры анимации
+     * дорисовывают готовые фигуры в том же порядке в пределах {@link #FRAME_BUDGET_NANOS}.
+     * У готовой сцены все фигуры доступны сразу, и фоновый поток только строит индекс.
+     * Если слой фигур взят из кэша, фигуры не дорисовываются: загрузка лишь дожидается индекса.
+     */
+    private final class Loader {
+
+        private final FigureSource source;
+        private final ExecutorService executor;
+        private final long started = System.nanoTime();
+
+        private volatile int total;
+        private volatile int generated;
+        private volatile LoadedScene complete;
+        private volatile LoadedScene truncated;
+        private volatile Throwable failure;
+        private volatile boolean cancelled;
+        private int drawn;
+        private RenderCache cache;
+        private RenderCache.Key cacheKey;
+        private boolean prefilled;
+
+        /**
+         * Запускает генерацию сцены.
+         *
+         * @param params параметры генерации
+         * @param target заполняемый набор вместимостью {@code params.count()}
+         */
+        private Loader(GenerationParams params, FigureBatch target) {
+            this(target, params.count());
+            executor.execute(() -> generate(params, target));
+        }
+
+        /**
+         * Запускает загрузку готовой сцены: все фигуры доступны для отрисовки сразу.
+         *
+         * @param scene сцена
+         */
+        private Loader(FigureSource scene) {
+            this(scene, scene.size());
+            generated = total;
+            executor.execute(this::prepare);
+        }
+
+        private Loader(FigureSource source, int total) {
+            this.source = source;
+            this.total = total;
+            this.executor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "scene-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        /**
+         * Подключает кэш слоя фигур. При попадании слой сразу заполняется сохранёнными пикселями,
+         * при промахе готовый слой будет сохранён по окончании загрузки.
+         *
+         * @param cache кэш изображений
+         * @param key ключ слоя
+         */
+        private void useCache(RenderCache cache, RenderCache.Key key) {
+            this.cache = cache;
+            this.cacheKey = key;
+            int[] cached = cache.find(key);
+            if (cached != null) {
+                System.arraycopy(cached, 0, figureLayer.pixels, 0, cached.length);
+                figureLayer.upload();
+                prefilled = true;
+            }
+        }
+
+        /**
+         * Генерирует сцену (в фоновом потоке), затем готовит её к просмотру ({@link #prepare()}).
+         *
+         * @param params параметры генерации
+         * @param target заполняемый набор
+         */
+        private void generate(GenerationParams params, FigureBatch target) {
+            try {
+                int placed = FigureGenerator.generateInOrder(params, target, ready -> {
+                    generated = ready;
+                    return !cancelled;
+                });
+                if (cancelled) {
+                    return;
+                }
+                // Без наложения фигур может получиться меньше, чем запрошено
+                total = placed;
+            } catch (RuntimeException | OutOfMemoryError e) {
+                logger.error("Ошибка генерации сцены", e);
+                failure = e;
+                return;
+            }
+            prepare();
+        }
+
+        /**
+         * Строит пространственный индекс (в фоновом потоке).
+         * Отменённая загрузка индекс не строит: сцену заменит набор уже отрисованных фигур.
+         */
+        private void prepare() {
+            try {
+                if (!cancelled) {
+                    complete = new LoadedScene(source, SpatialIndex.build(source));
+                }
+            } catch (RuntimeException | OutOfMemoryError e) {
+                logger.error("Ошибка подготовки сцены", e);
+                failure = e;
+            }
+        }
+
+        /**
+         * Дорисовывает готовые фигуры в пределах бюджета кадра и, когда всё готово, передаёт сцену просмотру.
+         * Вызывается в потоке JavaFX в каждом кадре загрузки.
+         */
+        private void step() {
+            if (failure != null) {
+                cancel();
+            }
+            if (!cancelled) {
+                int available = prefilled ? drawn : generated;
+                int before = drawn;
+                long deadline = System.nanoTime() + FRAME_BUDGET_NANOS;
+                RasterRenderTarget figures = figureLayer.target;
+                figures.resetClip();
+                while (drawn < available && System.nanoTime() < deadline) {
+                    int end = Math.min(available, drawn + SLICE);
+                    int[] slice = range(drawn, end);
+                    DrawingRenderer.drawSelected(figures, source, slice, viewport);
+                    drawn = end;
+                }
+                if (drawn > before) {
+                    figureLayer.upload();
+                    progress.set((double) drawn / total);
+                } else if (prefilled) {
+                    progress.set((double) generated / total);
+                }
+            }
+            LoadedScene scene = cancelled ? truncated : prefilled || drawn == total ? complete : null;
+            if (scene != null) {
+                finish(scene);
+            }
+        }
+
+        /**
+         * Останавливает генерацию и в фоновом потоке собирает сцену из уже отрисованных фигур
+         * (в исходном порядке индексов, поэтому их отрисовка совпадает с тем, что уже на экране).
+         */
+        private void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            // Слой из кэша показывает всю сцену; она обрезается до сгенерированных фигур и перерисовывается
+            int[] drawnIndices = range(0, prefilled ? generated : drawn);
+            executor.execute(() -> {
+                FigureBatch subset = subset(source, drawnIndices);
+                truncated = new LoadedScene(subset, SpatialIndex.build(subset));
+            });
+        }
+
+        /**
+         * Делает загруженную сцену текущей и включает сдвиг и масштабирование.
+         *
+         * @param scene загруженная сцена
+         */
+        private void finish(LoadedScene scene) {
+            executor.shutdown();
+            batch = scene.batch();
+            index = scene.index();
+            loader = null;
+            if (prefilled && cancelled) {
+                requestFullRepaint();
+            } else if (cache != null && !prefilled && !cancelled) {
+                cache.put(cacheKey, figureLayer.pixels);
+            }
+            progress.set(1);
+            loading.set(false);
+            logger.info("Сцена загружена{}: {} из {} фигур за {} мс", cancelled ? " (отменено)" : "",
+                    scene.batch().size(), total, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    /**
+     * Растровый слой: буфер пикселей, поверхность рисования над ним и изображение JavaFX для вывода.
+     */
+    private static final class Layer {
+
+        private final int width;
+        private final int height;
+        private final int[] pixels;
+        private final RasterRenderTarget target;
+        private final WritableImage image;
+        private final ImageView view;
+
+        private Layer(int width, int height) {
+            this.width = width;
+            this.height = height;
+            this.pixels = new int[Math.multiplyExact(width, height)];
+            this.target = new RasterRenderTarget(pixels, width, height);
+            this.image = new WritableImage(width, height);
+            this.view = new ImageView(image);
+        }
+
+        /**
+         * Переносит содержимое буфера; освободившиеся полосы остаются со старыми пикселями
+         * и должны быть перерисованы.
+         *
+         * @param dx сдвиг вправо в пикселях
+         * @param dy сдвиг вниз в пикселях
+         */
+        private void shift(int dx, int dy) {
+            int length = width - Math.abs(dx);
+            int fromX = Math.max(0, -dx);
+            int toX = Math.max(0, dx);
+            if (dy > 0) {
+                for (int y = height - 1; y >= dy; y--) {
+                    System.arraycopy(pixels, (y - dy) * width + fromX, pixels, y * width + toX, length);
+                }
+            } else {
+                for (int y = 0; y < height + dy; y++) {
+                    System.arraycopy(pixels, (y - dy) * width + fromX, pixels, y * width + toX, length);
+                }
+            }
+        }
+
+        /**
+         * Копирует буфер в изображение JavaFX.
+         */
+        private void upload() {
+            image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(),
+                    pixels, 0, width);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.example;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * События Java Flight Recorder для стадий генерации и отрисовки.
+ * Пока запись JFR не включена, создание и фиксация событий почти ничего не стоят:
+ * JIT убирает их целиком. Запись: {@code -XX:StartFlightRecording=filename=render.jfr}
+ * или {@code jcmd <pid> JFR.start}; события находятся в категории «Drawing».
+ */
+public final class PipelineEvents {
+
+    private static final FigureType[] TYPES = FigureType.values();
+
+    private PipelineEvents() {
+    }
+
+    /**
+     * Генерация сцены.
+     */
+    @Name("org.example.Generation")
+    @Label("Генерация сцены")
+    @Category({"Drawing", "Pipeline"})
+    @StackTrace(false)
+    public static final class Generation extends Event {
+
+        @Label("Фигур")
+        public int figures;
+
+        @Label("Параллельно")
+        public boolean parallel;
+    }
+
+    /**
+     * Отрисовка координатной сетки.
+     */
+    @Name("org.example.Grid")
+    @Label("Отрисовка сетки")
+    @Category({"Drawing", "Pipeline"})
+    @StackTrace(false)
+    public static final class Grid extends Event {
+
+        @Label("Ширина")
+        public int width;
+
+        @Label("Высота")
+        public int height;
+    }
+
+    /**
+     * Отрисовка фигур одного типа за один вызов отрисовки. Длительность события — общее время вызова,
+     * время самих фигур этого типа — в поле {@code drawTime}.
+     */
+    @Name("org.example.FigureDraw")
+    @Label("Отрисовка фигур")
+    @Description("Количество и суммарное время отрисовки фигур одного типа")
+    @Category({"Drawing", "Pipeline"})
+    @StackTrace(false)
+    public static final class FigureDraw extends Event {
+
+        @Label("Тип фигуры")
+        public String figureType;
+
+        @Label("Фигур")
+        public int figures;
+
+        @Label("Время отрисовки")
+        @Timespan(Timespan.NANOSECONDS)
+        public long drawTime;
+
+        @Label("Ширина")
+        public int width;
+
+        @Label("Высота")
+        public int height;
+    }
+
+    /**
+     * Снимок изображения (холста или слоёв просмотра).
+     */
+    @Name("org.example.Snapshot")
+    @Label("Снимок изображения")
+    @Category({"Drawing", "Pipeline"})
+    @StackTrace(false)
+    public static final class Snapshot extends Event {
+
+        @Label("Ширина")
+        public int width;
+
+        @Label("Высота")
+        public int height;
+    }
+
+    /**
+     * Кодирование изображения в PNG.
+     */
+    @Name("org.example.PngEncode")
+    @Label("Кодирование PNG")
+    @Category({"Drawing", "Pipeline"})
+    @StackTrace(false)
+    public static final class PngEncode extends Event {
+
+        @Label("Ширина")
+        public int width;
+
+        @Label("Высота")
+        public int height;
+
+        @Label("Сжатых данных")
+        @DataAmount
+        public long compressedBytes;
+    }
+
+    /**
+     * Накопитель времени отрисовки по типам фигур для события {@link FigureDraw}.
+     * Создаётся, только если событие включено в записи, поэтому без записи
+     * цикл отрисовки не вызывает {@link System#nanoTime()} на каждую фигуру.
+     */
+    static final class FigureTimer {
+
+        private static final EventType TYPE = EventType.getEventType(FigureDraw.class);
+
+        private final FigureDraw[] events = new FigureDraw[TYPES.length];
+        private final int[] figures = new int[TYPES.length];
+        private final long[] nanos = new long[TYPES.length];
+
+        private FigureTimer(Viewport viewport) {
+            for (int t = 0; t < TYPES.length; t++) {
+                events[t] = new FigureDraw();
+                events[t].figureType = TYPES[t].name();
+                events[t].width = (int) viewport.getWidth();
+                events[t].height = (int) viewport.getHeight();
+                events[t].begin();
+            }
+        }
+
+        /**
+         * Начинает замер, если событие {@link FigureDraw} записывается.
+         *
+         * @param viewport окно просмотра (размер изображения)
+         * @return накопитель или {@code null}, если событие не записывается
+         */
+        static FigureTimer start(Viewport viewport) {
+            return TYPE.isEnabled() ? new FigureTimer(viewport) : null;
+        }
+
+        /**
+         * Учитывает отрисованную фигуру.
+         *
+         * @param typeOrdinal порядковый номер типа фигуры
+         * @param elapsed время отрисовки в наносекундах
+         */
+        void add(int typeOrdinal, long elapsed) {
+            figures[typeOrdinal]++;
+            nanos[typeOrdinal] += elapsed;
+        }
+
+        /**
+         * Фиксирует по одному событию на каждый встретившийся тип фигур.
+         */
+        void commit() {
+            for (int t = 0; t < TYPES.length; t++) {
+                FigureDraw event = events[t];
+                event.end();
+                if (figures[t] > 0 && event.shouldCommit()) {
+                    event.figures = figures[t];
+                    event.drawTime = nanos[t];
+                    event.commit();
+                }
+            }
+        }
+    }
+}
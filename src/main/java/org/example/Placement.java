@@ -0,0 +1,157 @@
+package org.example;
+
+import java.util.SplittableRandom;
+
+/**
+ * Встроенные способы размещения фигур. Входят в {@link GenerationParams}, поэтому сохраняются
+ * в файле сцены и участвуют в ключе кэша изображений.
+ */
+public enum Placement implements PlacementStrategy {
+
+    /**
+     * Равномерно по прямоугольнику, сжатому к центру области в {@code 1 − кучность} раз.
+     * Координаты берутся из двух счётчиковых потоков {@link BulkKernels} по номеру фигуры,
+     * поэтому блок заполняется пакетно, без обращения к генератору блока.
+     */
+    UNIFORM("Равномерно") {
+        @Override
+        public Layout prepare(int count, Area area, SplittableRandom random) {
+            double rangeX = area.width() * (1 - area.density());
+            double rangeY = area.height() * (1 - area.density());
+            double left = area.centerX() - rangeX / 2;
+            double bottom = area.centerY() - rangeY / 2;
+            long seedX = random.nextLong();
+            long seedY = random.nextLong();
+            return (xs, ys, from, to, chunkRandom) -> {
+                BulkKernels.randomDoubles(seedX, from, left, rangeX, xs, to - from);
+                BulkKernels.randomDoubles(seedY, from, bottom, rangeY, ys, to - from);
+            };
+        }
+    },
+
+    /**
+     * Нормальное распределение вокруг центра области: стандартное отклонение — шестая часть
+     * области, уменьшенная в {@code 1 − кучность} раз. Точки за пределами области выбираются заново.
+     */
+    GAUSSIAN("Нормальное") {
+        @Override
+        public Layout prepare(int count, Area area, SplittableRandom random) {
+            double sigmaX = area.width() * (1 - area.density()) / 6;
+            double sigmaY = area.height() * (1 - area.density()) / 6;
+            double centerX = area.centerX();
+            double centerY = area.centerY();
+            return (xs, ys, from, to, chunkRandom) -> {
+                for (int k = 0, n = to - from; k < n; k++) {
+                    double x, y;
+                    do {
+                        x = centerX + chunkRandom.nextGaussian() * sigmaX;
+                        y = centerY + chunkRandom.nextGaussian() * sigmaY;
+                    } while (!area.contains(x, y));
+                    xs[k] = x;
+                    ys[k] = y;
+                }
+            };
+        }
+    },
+
+    /**
+     * Несколько скоплений ({@value #MIN_CLUSTERS}–{@value #MAX_CLUSTERS}) со случайными центрами и весами:
+     * фигура выбирает скопление пропорционально весу и отклоняется от его центра по нормальному закону.
+     * Чем больше кучность, тем теснее скопления.
+     */
+    CLUSTERS("Скопления") {
+        @Override
+        public Layout prepare(int count, Area area, SplittableRandom random) {
+            int clusters = MIN_CLUSTERS + random.nextInt(MAX_CLUSTERS - MIN_CLUSTERS + 1);
+            double[] centersX = new double[clusters];
+            double[] centersY = new double[clusters];
+            double[] cumulative = new double[clusters];
+            double total = 0;
+            for (int c = 0; c < clusters; c++) {
+                centersX[c] = area.xMin() + random.nextDouble() * area.width();
+                centersY[c] = area.yMin() + random.nextDouble() * area.height();
+                total += 0.25 + random.nextDouble() * 0.75;
+                cumulative[c] = total;
+            }
+            for (int c = 0; c < clusters; c++) {
+                cumulative[c] /= total;
+            }
+            double spread = (1 - area.density()) / (4 * Math.sqrt(clusters));
+            double sigmaX = area.width() * spread;
+            double sigmaY = area.height() * spread;
+            return (xs, ys, from, to, chunkRandom) -> {
+                for (int k = 0, n = to - from; k < n; k++) {
+                    double u = chunkRandom.nextDouble();
+                    int c = 0;
+                    while (c < clusters - 1 && cumulative[c] <= u) {
+                        c++;
+                    }
+                    double x, y;
+                    do {
+                        x = centersX[c] + chunkRandom.nextGaussian() * sigmaX;
+                        y = centersY[c] + chunkRandom.nextGaussian() * sigmaY;
+                    } while (!area.contains(x, y));
+                    xs[k] = x;
+                    ys[k] = y;
+                }
+            };
+        }
+    },
+
+    /**
+     * Пуассоновское распределение по диску ({@link PoissonDiskSampler}) в том же прямоугольнике,
+     * что и {@link #UNIFORM}: центры случайны, но не ближе друг к другу, чем допускает их количество.
+     * Выборка строится целиком при подготовке, блоки только копируют свои точки.
+     */
+    POISSON_DISK("Пуассоновский диск") {
+        @Override
+        public Layout prepare(int count, Area area, SplittableRandom random) {
+            double rangeX = area.width() * (1 - area.density());
+            double rangeY = area.height() * (1 - area.density());
+            double left = area.centerX() - rangeX / 2;
+            double bottom = area.centerY() - rangeY / 2;
+            PoissonDiskSampler.Points points =
+                    PoissonDiskSampler.sample(count, left, left + rangeX, bottom, bottom + rangeY, random);
+            return (xs, ys, from, to, chunkRandom) -> {
+                System.arraycopy(points.xs(), from, xs, 0, to - from);
+                System.arraycopy(points.ys(), from, ys, 0, to - from);
+            };
+        }
+    };
+
+    /**
+     * Наименьшее количество скоплений для {@link #CLUSTERS}.
+     */
+    public static final int MIN_CLUSTERS = 3;
+
+    /**
+     * Наибольшее количество скоплений для {@link #CLUSTERS}.
+     */
+    public static final int MAX_CLUSTERS = 8;
+
+    /**
+     * Отображаемое название способа размещения для GUI.
+     */
+    private final String label;
+
+    /**
+     * Конструктор перечисления.
+     * @param label читаемое название способа размещения для отображения в интерфейсе
+     */
+    Placement(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Возвращает локализованное название способа размещения.
+     * @return строка — метка для отображения (например, "Скопления")
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,103 @@
+package org.example;
+
+import java.util.SplittableRandom;
+
+/**
+ * Способ размещения центров фигур в логической области.
+ * Генератор ({@link FigureGenerator}) обращается к стратегии пакетно: сначала один раз
+ * готовит раскладку всей сцены ({@link #prepare}), затем для каждого блока фигур
+ * заполняет массивы координат центров ({@link Layout#fill}).
+ * <p>
+ * Подготовка выполняется последовательно и может строить общие для всей сцены данные
+ * (центры скоплений, выборку точек). Заполнение блоков может идти параллельно, поэтому
+ * раскладка после подготовки должна только читаться. Встроенные стратегии — {@link Placement}.
+ */
+public interface PlacementStrategy {
+
+    /**
+     * Готовит раскладку сцены.
+     *
+     * @param count количество фигур
+     * @param area область размещения
+     * @param random поток случайных чисел подготовки (общие данные раскладки берутся только из него)
+     * @return раскладка, заполняющая координаты блоков
+     */
+    Layout prepare(int count, Area area, SplittableRandom random);
+
+    /**
+     * Раскладка одной сцены.
+     */
+    interface Layout {
+
+        /**
+         * Заполняет координаты центров фигур с индексами {@code from..to-1}:
+         * центр фигуры {@code from + k} записывается в {@code xs[k]} и {@code ys[k]}.
+         *
+         * @param xs X-координаты центров (не короче {@code to - from})
+         * @param ys Y-координаты центров (не короче {@code to - from})
+         * @param from первый индекс фигуры (включительно)
+         * @param to последний индекс фигуры (не включительно)
+         * @param random поток случайных чисел блока
+         */
+        void fill(double[] xs, double[] ys, int from, int to, SplittableRandom random);
+    }
+
+    /**
+     * Область размещения: логический диапазон координат и кучность.
+     *
+     * @param xMin минимальное значение по оси X
+     * @param xMax максимальное значение по оси X
+     * @param yMin минимальное значение по оси Y
+     * @param yMax максимальное значение по оси Y
+     * @param density степень кластеризации (0.0–1.0); каждая стратегия трактует её по-своему
+     */
+    record Area(double xMin, double xMax, double yMin, double yMax, double density) {
+
+        /**
+         * @param params параметры генерации
+         * @return область размещения по параметрам
+         */
+        public static Area of(GenerationParams params) {
+            return new Area(params.xMin(), params.xMax(), params.yMin(), params.yMax(), params.density());
+        }
+
+        /**
+         * @return ширина области
+         */
+        public double width() {
+            return xMax - xMin;
+        }
+
+        /**
+         * @return высота области
+         */
+        public double height() {
+            return yMax - yMin;
+        }
+
+        /**
+         * @return X-координата центра области
+         */
+        public double centerX() {
+            return (xMin + xMax) / 2;
+        }
+
+        /**
+         * @return Y-координата центра области
+         */
+        public double centerY() {
+            return (yMin + yMax) / 2;
+        }
+
+        /**
+         * Проверяет, лежит ли точка в области (включая границы).
+         *
+         * @param x X точки
+         * @param y Y точки
+         * @return {@code true}, если точка в области
+         */
+        public boolean contains(double x, double y) {
+            return x >= xMin && x <= xMax && y >= yMin && y <= yMax;
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package org.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Потоковый кодировщик PNG (8 бит на канал, RGB): принимает изображение полосами строк
+ * и сразу сжимает их в поток IDAT, не держа всё изображение в памяти.
+ * <p>
+ * Поддерживает два режима сжатия:
+ * <ul>
+ *     <li>последовательный — один поток DEFLATE на всё изображение ({@link #writeRows});</li>
+ *     <li>параллельный — каждая полоса сжимается независимо в рабочем потоке ({@link #deflateBand}),
+ *     а писатель склеивает сжатые полосы в единый поток zlib ({@link #writeBand}), как это делает pigz.</li>
+ * </ul>
+ * Строки фильтруются фильтром Sub, который зависит только от текущей строки.
+ */
+public class PngStreamWriter implements Closeable {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * Размер одного чанка IDAT в байтах.
+     */
+    private static final int IDAT_CHUNK_SIZE = 1 << 16;
+
+    /**
+     * Модуль контрольной суммы Adler-32.
+     */
+    private static final int ADLER_BASE = 65521;
+
+    private final OutputStream out;
+    private final int width;
+    private final int height;
+    private final boolean parallelDeflate;
+    private final IdatOutputStream idat;
+    private final DeflaterOutputStream deflaterStream;
+    private final Deflater deflater;
+
+    private final PipelineEvents.PngEncode event = new PipelineEvents.PngEncode();
+    private final long started = System.nanoTime();
+    private long adler = 1;
+    private int rowsWritten;
+    private boolean finished;
+
+    /**
+     * Результат независимого сжатия одной полосы строк.
+     *
+     * @param compressed сжатые данные (raw DEFLATE без заголовка zlib)
+     * @param adler контрольная сумма Adler-32 несжатых отфильтрованных строк
+     * @param rawLength длина несжатых данных в байтах
+     * @param rows количество строк в полосе
+     */
+    public record CompressedBand(byte[] compressed, long adler, long rawLength, int rows) {
+    }
+
+    /**
+     * Создаёт кодировщик и записывает сигнатуру PNG и заголовок IHDR.
+     *
+     * @param out выходной поток (не закрывается при {@link #close()})
+     * @param width ширина изображения в пикселях
+     * @param height высота изображения в пикселях
+     * @param level уровень сжатия DEFLATE (0–9)
+     * @param parallelDeflate {@code true} — полосы передаются уже сжатыми через {@link #writeBand}
+     * @throws IOException при ошибке записи
+     */
+    public PngStreamWriter(OutputStream out, int width, int height, int level, boolean parallelDeflate) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Некорректный размер изображения: " + width + "x" + height);
+        }
+        if (3L * width + 1 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Слишком широкое изображение: " + width);
+        }
+        this.out = out;
+        this.width = width;
+        this.height = height;
+        this.parallelDeflate = parallelDeflate;
+        event.begin();
+
+        out.write(SIGNATURE);
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream data = new DataOutputStream(header);
+        data.writeInt(width);
+        data.writeInt(height);
+        data.writeByte(8);  // глубина цвета
+        data.writeByte(2);  // тип цвета: RGB
+        data.writeByte(0);  // метод сжатия
+        data.writeByte(0);  // метод фильтрации
+        data.writeByte(0);  // без чересстрочности
+        writeChunk(out, "IHDR", header.toByteArray(), 0, header.size());
+
+        idat = new IdatOutputStream(out);
+        if (parallelDeflate) {
+            deflater = null;
+            deflaterStream = null;
+            // Заголовок zlib: CM=8, CINFO=7, FLEVEL=2 (по умолчанию)
+            idat.write(0x78);
+            idat.write(0x9C);
+        } else {
+            deflater = new Deflater(level);
+            deflaterStream = new DeflaterOutputStream(idat, deflater, IDAT_CHUNK_SIZE);
+        }
+    }
+
+    /**
+     * Возвращает размер буфера отфильтрованных строк для полосы заданной высоты.
+     *
+     * @param width ширина изображения в пикселях
+     * @param rows количество строк
+     * @return размер в байтах
+     */
+    public static int rawBandSize(int width, int rows) {
+        return Math.toIntExact((3L * width + 1) * rows);
+    }
+
+    /**
+     * Преобразует строки ARGB в отфильтрованные строки PNG (байт фильтра Sub и RGB).
+     *
+     * @param argb пиксели полосы, строки подряд
+     * @param width ширина изображения в пикселях
+     * @param rows количество строк
+     * @param raw выходной буфер размером не менее {@link #rawBandSize(int, int)}
+     * @return количество записанных байт
+     */
+    public static int filterRows(int[] argb, int width, int rows, byte[] raw) {
+        return filterRows(argb, 0, width, rows, raw);
+    }
+
+    /**
+     * Преобразует строки ARGB, начиная с заданного элемента, в отфильтрованные строки PNG —
+     * полосу большого изображения без копирования её пикселей.
+     *
+     * @param argb пиксели изображения, строки подряд
+     * @param offset индекс первого пикселя полосы
+     * @param width ширина изображения в пикселях
+     * @param rows количество строк
+     * @param raw выходной буфер размером не менее {@link #rawBandSize(int, int)}
+     * @return количество записанных байт
+     */
+    public static int filterRows(int[] argb, int offset, int width, int rows, byte[] raw) {
+        int pos = 0;
+        for (int y = 0; y < rows; y++) {
+            raw[pos++] = 1;  // фильтр Sub
+            int row = offset + y * width;
+            int prevR = 0, prevG = 0, prevB = 0;
+            for (int x = 0; x < width; x++) {
+                int p = argb[row + x];
+                int r = (p >> 16) & 0xFF;
+                int g = (p >> 8) & 0xFF;
+                int b = p & 0xFF;
+                raw[pos++] = (byte) (r - prevR);
+                raw[pos++] = (byte) (g - prevG);
+                raw[pos++] = (byte) (b - prevB);
+                prevR = r;
+                prevG = g;
+                prevB = b;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Независимо сжимает полосу отфильтрованных строк. Может вызываться из любого потока.
+     * Каждая полоса, кроме последней, завершается сбросом (full flush), чтобы сжатые полосы
+     * можно было склеить в единый поток DEFLATE.
+     *
+     * @param raw отфильтрованные строки
+     * @param length длина данных в байтах
+     * @param rows количество строк в полосе
+     * @param level уровень сжатия (0–9)
+     * @param last {@code true} для последней полосы изображения
+     * @return сжатая полоса
+     */
+    public static CompressedBand deflateBand(byte[] raw, int length, int rows, int level, boolean last) {
+        Adler32 checksum = new Adler32();
+        checksum.update(raw, 0, length);
+
+        Deflater bandDeflater = new Deflater(level, true);
+        try {
+            bandDeflater.setInput(raw, 0, length);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, length / 4));
+            byte[] buffer = new byte[IDAT_CHUNK_SIZE];
+            if (last) {
+                bandDeflater.finish();
+                while (!bandDeflater.finished()) {
+                    int n = bandDeflater.deflate(buffer);
+                    compressed.write(buffer, 0, n);
+                }
+            } else {
+                int n;
+                do {
+                    n = bandDeflater.deflate(buffer, 0, buffer.length, Deflater.FULL_FLUSH);
+                    compressed.write(buffer, 0, n);
+                } while (n == buffer.length || !bandDeflater.needsInput());
+            }
+            return new CompressedBand(compressed.toByteArray(), checksum.getValue(), length, rows);
+        } finally {
+            bandDeflater.end();
+        }
+    }
+
+    /**
+     * Сжимает и записывает полосу отфильтрованных строк в последовательном режиме.
+     *
+     * @param raw отфильтрованные строки
+     * @param length длина данных в байтах
+     * @param rows количество строк в полосе
+     * @throws IOException при ошибке записи
+     */
+    public void writeRows(byte[] raw, int length, int rows) throws IOException {
+        if (parallelDeflate) {
+            throw new IllegalStateException("В параллельном режиме полосы передаются через writeBand");
+        }
+        checkRows(rows);
+        deflaterStream.write(raw, 0, length);
+        rowsWritten += rows;
+    }
+
+    /**
+     * Записывает заранее сжатую полосу в параллельном режиме. Полосы должны идти сверху вниз.
+     *
+     * @param band сжатая полоса
+     * @throws IOException при ошибке записи
+     */
+    public void writeBand(CompressedBand band) throws IOException {
+        if (!parallelDeflate) {
+            throw new IllegalStateException("В последовательном режиме строки передаются через writeRows");
+        }
+        checkRows(band.rows());
+        idat.write(band.compressed());
+        adler = adler32Combine(adler, band.adler(), band.rawLength());
+        rowsWritten += band.rows();
+    }
+
+    /**
+     * Завершает поток IDAT и записывает чанк IEND.
+     *
+     * @throws IOException при ошибке записи или если переданы не все строки
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (rowsWritten != height) {
+            throw new IOException("Записано строк: " + rowsWritten + " из " + height);
+        }
+        if (parallelDeflate) {
+            idat.write((int) (adler >>> 24));
+            idat.write((int) (adler >>> 16));
+            idat.write((int) (adler >>> 8));
+            idat.write((int) adler);
+        } else {
+            deflaterStream.finish();
+            deflater.end();
+        }
+        idat.flushChunk();
+        writeChunk(out, "IEND", new byte[0], 0, 0);
+        out.flush();
+        finished = true;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.width = width;
+            event.height = height;
+            event.compressedBytes = idat.written;
+            event.commit();
+        }
+        Metrics.PNG_ENCODE.record(System.nanoTime() - started);
+        Metrics.PIXELS_ENCODED.add((long) width * height);
+    }
+
+    /**
+     * Завершает изображение, если это ещё не сделано. Выходной поток не закрывается.
+     *
+     * @throws IOException при ошибке записи
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * @return ширина изображения в пикселях
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return высота изображения в пикселях
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Проверяет, что полоса не выходит за высоту изображения.
+     *
+     * @param rows количество строк в полосе
+     */
+    private void checkRows(int rows) {
+        if (finished || rows < 0 || rowsWritten + rows > height) {
+            throw new IllegalStateException("Лишние строки: " + (rowsWritten + rows) + " из " + height);
+        }
+    }
+
+    /**
+     * Объединяет контрольные суммы Adler-32 двух последовательных блоков данных
+     * (аналог {@code adler32_combine} из zlib).
+     *
+     * @param adler1 сумма первого блока
+     * @param adler2 сумма второго блока
+     * @param len2 длина второго блока в байтах
+     * @return сумма объединённых данных
+     */
+    static long adler32Combine(long adler1, long adler2, long len2) {
+        long rem = len2 % ADLER_BASE;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = (rem * sum1) % ADLER_BASE;
+        sum1 += (adler2 & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((adler1 >> 16) & 0xFFFF) + ((adler2 >> 16) & 0xFFFF) + ADLER_BASE - rem;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum1 >= ADLER_BASE) sum1 -= ADLER_BASE;
+        if (sum2 >= 2L * ADLER_BASE) sum2 -= 2L * ADLER_BASE;
+        if (sum2 >= ADLER_BASE) sum2 -= ADLER_BASE;
+        return sum1 | (sum2 << 16);
+    }
+
+    /**
+     * Записывает чанк PNG: длину, тип, данные и CRC.
+     *
+     * @param out выходной поток
+     * @param type тип чанка из четырёх символов
+     * @param data данные
+     * @param offset смещение данных
+     * @param length длина данных
+     * @throws IOException при ошибке записи
+     */
+    private static void writeChunk(OutputStream out, String type, byte[] data, int offset, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, offset, length);
+        writeInt(out, length);
+        out.write(typeBytes);
+        out.write(data, offset, length);
+        writeInt(out, (int) crc.getValue());
+    }
+
+    /**
+     * Записывает 32-битное целое в порядке big-endian.
+     *
+     * @param out выходной поток
+     * @param v значение
+     * @throws IOException при ошибке записи
+     */
+    private static void writeInt(OutputStream out, int v) throws IOException {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    /**
+     * Поток, нарезающий сжатые данные на чанки IDAT фиксированного размера.
+     */
+    private static final class IdatOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[IDAT_CHUNK_SIZE];
+        private int count;
+        private long written;
+
+        IdatOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flushChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    flushChunk();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        /**
+         * Записывает накопленные данные отдельным чанком IDAT.
+         *
+         * @throws IOException при ошибке записи
+         */
+        void flushChunk() throws IOException {
+            if (count > 0) {
+                writeChunk(out, "IDAT", buffer, 0, count);
+                written += count;
+                count = 0;
+            }
+        }
+    }
+}
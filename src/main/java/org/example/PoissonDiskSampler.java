@@ -0,0 +1,280 @@
+package org.example;
+
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Выборка точек с пуассоновским распределением по диску (blue noise): точки случайны,
+ * но никакие две не ближе заданного радиуса, поэтому они покрывают область равномерно, без сгустков и пустот.
+ * <p>
+ * Алгоритм Бридсона: область покрывается вспомогательной сеткой с ячейкой {@code r/√2}, в каждую ячейку
+ * попадает не больше одной точки, и проверка кандидата смотрит только окрестность 5×5 ячеек без углов.
+ * Каждая точка порождает не больше {@link #CANDIDATES} кандидатов, поэтому время и память линейны
+ * по количеству точек — миллион точек строится за одну-две секунды.
+ * Кандидаты берутся, как в варианте М. Робертса, на расстоянии чуть больше {@code r} в равноотстоящих
+ * направлениях со случайным начальным углом: выборка получается плотнее, а кандидатов нужно меньше,
+ * чем при случайных точках кольца {@code r..2r}.
+ * <p>
+ * Радиус подбирается по количеству точек с запасом так, чтобы насыщенная выборка содержала
+ * не меньше нужного количества; из неё берётся случайное подмножество в случайном порядке.
+ */
+public final class PoissonDiskSampler {
+
+    private static final Logger logger = LoggingConfig.getLogger(PoissonDiskSampler.class);
+
+    /**
+     * Кандидатов на активную точку, после которых она считается окружённой.
+     */
+    static final int CANDIDATES = 12;
+
+    /**
+     * Поворот направления кандидата на {@code 2π / CANDIDATES}.
+     */
+    private static final double STEP_COS = Math.cos(2 * Math.PI / CANDIDATES);
+    private static final double STEP_SIN = Math.sin(2 * Math.PI / CANDIDATES);
+
+    /**
+     * Относительный зазор расстояния кандидата до родительской точки сверх радиуса.
+     */
+    private static final double EPSILON = 1e-7;
+
+    /**
+     * Доля {@code площадь / количество}, задающая квадрат радиуса: насыщенная выборка
+     * содержит около {@code 0.82 · площадь / r²} точек, то есть примерно на 17 % больше нужного.
+     */
+    private static final double FILL_FACTOR = 0.7;
+
+    /**
+     * Точки выборки.
+     *
+     * @param xs X-координаты
+     * @param ys Y-координаты
+     */
+    public record Points(double[] xs, double[] ys) {
+    }
+
+    private PoissonDiskSampler() {
+    }
+
+    /**
+     * Строит выборку из заданного количества точек в прямоугольнике.
+     * Если прямоугольник вырожден (нулевая ширина или высота), точки распределяются по нему равномерно.
+     *
+     * @param count количество точек
+     * @param xMin левая граница
+     * @param xMax правая граница
+     * @param yMin нижняя граница
+     * @param yMax верхняя граница
+     * @param random поток случайных чисел
+     * @return ровно {@code count} точек в случайном порядке
+     */
+    public static Points sample(int count, double xMin, double xMax, double yMin, double yMax, SplittableRandom random) {
+        double width = xMax - xMin;
+        double height = yMax - yMin;
+        if (count == 0 || !(width > 0) || !(height > 0)) {
+            double[] xs = new double[count];
+            double[] ys = new double[count];
+            for (int i = 0; i < count; i++) {
+                xs[i] = xMin + random.nextDouble() * width;
+                ys[i] = yMin + random.nextDouble() * height;
+            }
+            return new Points(xs, ys);
+        }
+
+        double radius = Math.sqrt(FILL_FACTOR * width * height / count);
+        while (true) {
+            Points saturated = saturate(count, radius, xMin, yMin, width, height, random);
+            int found = saturated.xs().length;
+            if (found >= count) {
+                return choose(saturated, count, random);
+            }
+            // Узкая область или неудачная выборка: уменьшаем радиус и повторяем
+            logger.debug("Выборка с радиусом {} содержит {} точек из {}, радиус уменьшается", radius, found, count);
+            radius *= Math.max(0.5, Math.min(0.95, Math.sqrt((double) found / count) * 0.95));
+        }
+    }
+
+    /**
+     * Строит насыщенную выборку. Точки наращиваются от уже поставленных, пока рядом хотя бы с одной
+     * из них есть свободное место; затем каждая пустая ячейка сетки получает одну случайную попытку,
+     * и удачная попытка снова запускает наращивание. Второй проход закрывает области, до которых
+     * наращивание не дошло (например, в полосе уже радиуса).
+     *
+     * @param expected ожидаемое количество точек (начальная ёмкость массивов)
+     * @param radius наименьшее расстояние между точками
+     * @param xMin левая граница
+     * @param yMin нижняя граница
+     * @param width ширина области
+     * @param height высота области
+     * @param random поток случайных чисел
+     * @return точки выборки в порядке добавления
+     */
+    private static Points saturate(int expected, double radius, double xMin, double yMin,
+                                   double width, double height, SplittableRandom random) {
+        Sampling sampling = new Sampling(expected, radius, width, height);
+        for (int cell = 0; cell < sampling.grid.length; cell++) {
+            if (sampling.grid[cell] == 0) {
+                double x = (cell % sampling.cols + random.nextDouble()) * sampling.cell;
+                double y = (cell / sampling.cols + random.nextDouble()) * sampling.cell;
+                if (x < width && y < height && sampling.tryAdd(x, y)) {
+                    sampling.grow(width, height, random);
+                }
+            }
+        }
+        double[] xs = Arrays.copyOf(sampling.xs, sampling.size);
+        double[] ys = Arrays.copyOf(sampling.ys, sampling.size);
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] += xMin;
+            ys[i] += yMin;
+        }
+        return new Points(xs, ys);
+    }
+
+    /**
+     * Состояние построения выборки: точки (относительно левого нижнего угла области),
+     * вспомогательная сетка и список активных точек, рядом с которыми ещё может быть место.
+     */
+    private static final class Sampling {
+
+        private final double cell;
+        private final int cols;
+        private final int rows;
+        private final double minDistanceSq;
+        private final double distance;
+
+        /**
+         * Номер точки + 1 в ячейке; 0 — ячейка пуста.
+         */
+        private final int[] grid;
+
+        private double[] xs;
+        private double[] ys;
+        private int[] active;
+        private int size;
+        private int activeSize;
+
+        /**
+         * @param expected ожидаемое количество точек
+         * @param radius наименьшее расстояние между точками
+         * @param width ширина области
+         * @param height высота области
+         */
+        Sampling(int expected, double radius, double width, double height) {
+            cell = radius / Math.sqrt(2);
+            cols = (int) Math.min(Integer.MAX_VALUE, Math.max(1, Math.ceil(width / cell)));
+            rows = (int) Math.min(Integer.MAX_VALUE, Math.max(1, Math.ceil(height / cell)));
+            long cells = (long) cols * rows;
+            if (cells > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Слишком много ячеек для выборки: " + cols + "x" + rows);
+            }
+            grid = new int[(int) cells];
+            minDistanceSq = radius * radius;
+            distance = radius * (1 + EPSILON);
+            int capacity = Math.max(16, expected + expected / 4);
+            xs = new double[capacity];
+            ys = new double[capacity];
+            active = new int[capacity];
+        }
+
+        /**
+         * Наращивает выборку от активных точек, пока они не кончатся.
+         *
+         * @param width ширина области
+         * @param height высота области
+         * @param random поток случайных чисел
+         */
+        void grow(double width, double height, SplittableRandom random) {
+            while (activeSize > 0) {
+                int slot = random.nextInt(activeSize);
+                int parent = active[slot];
+                boolean placed = false;
+                double angle = random.nextDouble() * 2 * Math.PI;
+                double dx = Math.cos(angle) * distance;
+                double dy = Math.sin(angle) * distance;
+                for (int attempt = 0; attempt < CANDIDATES && !placed; attempt++) {
+                    if (attempt > 0) {
+                        double rotated = dx * STEP_COS - dy * STEP_SIN;
+                        dy = dx * STEP_SIN + dy * STEP_COS;
+                        dx = rotated;
+                    }
+                    double x = xs[parent] + dx;
+                    double y = ys[parent] + dy;
+                    placed = x >= 0 && x < width && y >= 0 && y < height && tryAdd(x, y);
+                }
+                if (!placed) {
+                    active[slot] = active[--activeSize];
+                }
+            }
+        }
+
+        /**
+         * Добавляет точку, если в окрестности 5×5 ячеек нет точек ближе допустимого расстояния.
+         * Угловые ячейки окрестности не проверяются: их точки не ближе {@code √2 · r/√2 = r}.
+         *
+         * @param x X точки (внутри области)
+         * @param y Y точки (внутри области)
+         * @return {@code true}, если точка добавлена
+         */
+        boolean tryAdd(double x, double y) {
+            int col = Math.min(cols - 1, (int) (x / cell));
+            int row = Math.min(rows - 1, (int) (y / cell));
+            int rowFrom = Math.max(0, row - 2), rowTo = Math.min(rows - 1, row + 2);
+            int colFrom = Math.max(0, col - 2), colTo = Math.min(cols - 1, col + 2);
+            for (int r = rowFrom; r <= rowTo; r++) {
+                int base = r * cols;
+                boolean edgeRow = r == row - 2 || r == row + 2;
+                for (int c = colFrom; c <= colTo; c++) {
+                    if (edgeRow && (c == col - 2 || c == col + 2)) {
+                        continue;
+                    }
+                    int point = grid[base + c] - 1;
+                    if (point >= 0) {
+                        double dx = xs[point] - x;
+                        double dy = ys[point] - y;
+                        if (dx * dx + dy * dy < minDistanceSq) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            if (size == xs.length) {
+                int grown = xs.length + (xs.length >> 1);
+                xs = Arrays.copyOf(xs, grown);
+                ys = Arrays.copyOf(ys, grown);
+                active = Arrays.copyOf(active, grown);
+            }
+            xs[size] = x;
+            ys[size] = y;
+            grid[row * cols + col] = size + 1;
+            active[activeSize++] = size;
+            size++;
+            return true;
+        }
+    }
+
+    /**
+     * Выбирает случайное подмножество точек в случайном порядке (частичная перестановка Фишера — Йетса).
+     *
+     * @param points насыщенная выборка
+     * @param count количество выбираемых точек
+     * @param random поток случайных чисел
+     * @return выбранные точки
+     */
+    private static Points choose(Points points, int count, SplittableRandom random) {
+        double[] xs = points.xs();
+        double[] ys = points.ys();
+        int found = xs.length;
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(found - i);
+            double x = xs[i];
+            xs[i] = xs[j];
+            xs[j] = x;
+            double y = ys[i];
+            ys[i] = ys[j];
+            ys[j] = y;
+        }
+        return count == found ? points : new Points(Arrays.copyOf(xs, count), Arrays.copyOf(ys, count));
+    }
+}
@@ -0,0 +1,182 @@
+package org.example;
+
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Экспорт сцены в PNG сколь угодно большого размера (постер).
+ * Изображение растеризуется горизонтальными полосами, и каждая полоса сразу уходит
+ * в потоковый кодировщик {@link PngStreamWriter}. Фигуры полосы выбираются пространственным индексом
+ * ({@link SpatialIndex}) по её прямоугольнику в момент растеризации, поэтому списки фигур существуют только
+ * для полос в работе. Пиковое потребление памяти — индекс (O(количество фигур), как и сама сцена)
+ * и O(ширина × высота полосы) на каждую обрабатываемую полосу; от общей высоты изображения оно не зависит.
+ * <p>
+ * В многопоточном режиме полосы растеризуются (и при необходимости сжимаются) параллельно,
+ * а одновременно в работе находится не более {@code workers + 1} полос.
+ */
+public class PosterExporter {
+
+    private static final Logger logger = LoggingConfig.getLogger(PosterExporter.class);
+
+    /**
+     * Высота полосы по умолчанию в строках.
+     */
+    public static final int DEFAULT_BAND_HEIGHT = 64;
+
+    /**
+     * Уровень сжатия DEFLATE по умолчанию: быстрый, но для рисунков на белом фоне почти не уступает максимальному.
+     */
+    public static final int DEFAULT_COMPRESSION = 6;
+
+    /**
+     * Экспортирует сцену в PNG-файл.
+     *
+     * @param batch сцена
+     * @param params параметры генерации (логическая область и флаг сетки)
+     * @param width ширина изображения в пикселях
+     * @param height высота изображения в пикселях
+     * @param file путь к выходному файлу
+     * @param workers количество рабочих потоков (1 — всё в текущем потоке)
+     * @param parallelDeflate {@code true} — сжимать полосы параллельно в рабочих потоках
+     * @throws IOException при ошибке записи
+     */
+    public static void export(FigureSource batch, GenerationParams params, int width, int height,
+                              Path file, int workers, boolean parallelDeflate) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            export(batch, params, width, height, out, workers, parallelDeflate, DEFAULT_BAND_HEIGHT);
+        }
+    }
+
+    /**
+     * Экспортирует сцену в PNG, записывая его в поток.
+     *
+     * @param batch сцена
+     * @param params параметры генерации (логическая область и флаг сетки)
+     * @param width ширина изображения в пикселях
+     * @param height высота изображения в пикселях
+     * @param out выходной поток (не закрывается)
+     * @param workers количество рабочих потоков (1 — всё в текущем потоке)
+     * @param parallelDeflate {@code true} — сжимать полосы параллельно в рабочих потоках
+     * @param bandHeight высота полосы в строках
+     * @throws IOException при ошибке записи
+     */
+    public static void export(FigureSource batch, GenerationParams params, int width, int height,
+                              OutputStream out, int workers, boolean parallelDeflate, int bandHeight) throws IOException {
+        long started = System.nanoTime();
+        Viewport viewport = params.viewport(width, height);
+        SpatialIndex index = SpatialIndex.build(batch);
+        int bands = (height + bandHeight - 1) / bandHeight;
+        boolean parallel = workers > 1;
+
+        try (PngStreamWriter writer = new PngStreamWriter(out, width, height, DEFAULT_COMPRESSION, parallel && parallelDeflate)) {
+            if (!parallel) {
+                int[] pixels = new int[Math.multiplyExact(width, bandHeight)];
+                byte[] raw = new byte[PngStreamWriter.rawBandSize(width, bandHeight)];
+                for (int band = 0; band < bands; band++) {
+                    int rows = renderBand(index, band, bandHeight, pixels, width, height, viewport, params.showGrid());
+                    int length = PngStreamWriter.filterRows(pixels, width, rows, raw);
+                    writer.writeRows(raw, length, rows);
+                }
+            } else {
+                writeParallel(writer, index, bands, bandHeight, width, height, viewport, params.showGrid(), workers,
+                        parallelDeflate);
+            }
+        }
+        logger.info("Экспорт {}x{} ({} фигур, {} полос по {} строк, потоков: {}) завершён за {} мс",
+                width, height, batch.size(), bands, bandHeight, workers,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Растеризует и кодирует полосы в пуле потоков, передавая результаты писателю строго по порядку.
+     *
+     * @param writer кодировщик PNG
+     * @param index пространственный индекс сцены
+     * @param total количество полос
+     * @param bandHeight высота полосы в строках
+     * @param width ширина изображения
+     * @param height высота изображения
+     * @param viewport соответствие логических координат пикселям
+     * @param showGrid флаг отображения сетки
+     * @param workers количество рабочих потоков
+     * @param parallelDeflate {@code true} — полосы сжимаются в рабочих потоках
+     * @throws IOException при ошибке записи или растеризации
+     */
+    private static void writeParallel(PngStreamWriter writer, SpatialIndex index, int total, int bandHeight,
+                                      int width, int height, Viewport viewport, boolean showGrid,
+                                      int workers, boolean parallelDeflate) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        ArrayDeque<Future<Object>> inFlight = new ArrayDeque<>();
+        int next = 0;
+        try {
+            while (next < total || !inFlight.isEmpty()) {
+                while (next < total && inFlight.size() <= workers) {
+                    int band = next++;
+                    inFlight.add(pool.submit(() -> {
+                        int[] pixels = new int[Math.multiplyExact(width, bandHeight)];
+                        int rows = renderBand(index, band, bandHeight, pixels, width, height, viewport, showGrid);
+                        byte[] raw = new byte[PngStreamWriter.rawBandSize(width, rows)];
+                        int length = PngStreamWriter.filterRows(pixels, width, rows, raw);
+                        if (parallelDeflate) {
+                            return PngStreamWriter.deflateBand(raw, length, rows, DEFAULT_COMPRESSION, band == total - 1);
+                        }
+                        return raw;
+                    }));
+                }
+                Object result = inFlight.poll().get();
+                if (result instanceof PngStreamWriter.CompressedBand compressed) {
+                    writer.writeBand(compressed);
+                } else {
+                    byte[] raw = (byte[]) result;
+                    writer.writeRows(raw, raw.length, raw.length / (3 * width + 1));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Экспорт прерван", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Ошибка растеризации полосы", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Растеризует одну полосу изображения в буфер. Фигуры полосы запрашиваются у индекса
+     * и рисуются в порядке возрастания индексов, как при отрисовке всей сцены.
+     *
+     * @param index пространственный индекс сцены
+     * @param band номер полосы
+     * @param bandHeight высота полосы в строках
+     * @param pixels буфер размером не менее {@code width * bandHeight}
+     * @param width ширина изображения
+     * @param height высота изображения
+     * @param viewport соответствие логических координат пикселям
+     * @param showGrid флаг отображения сетки
+     * @return количество строк в полосе (последняя полоса может быть короче)
+     */
+    private static int renderBand(SpatialIndex index, int band, int bandHeight, int[] pixels, int width, int height,
+                                  Viewport viewport, boolean showGrid) {
+        int y0 = band * bandHeight;
+        int rows = Math.min(bandHeight, height - y0);
+        int[] figures = DrawingRenderer.queryPixels(index, viewport, 0, y0, width, y0 + rows);
+        RasterRenderTarget target = new RasterRenderTarget(pixels, width, rows, 0, y0);
+        target.setClip(0, y0, width, y0 + rows);
+        target.clear(DrawingRenderer.BACKGROUND);
+        if (showGrid) {
+            DrawingRenderer.drawGrid(target, viewport);
+        }
+        DrawingRenderer.drawEach(target, index.getBatch(), figures, 0, figures.length, viewport);
+        return rows;
+    }
+}
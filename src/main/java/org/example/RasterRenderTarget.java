@@ -0,0 +1,458 @@
+package org.example;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * Чисто Java-растеризатор: рисует в массив {@code int[]} пикселей ARGB без JavaFX и без дисплея.
+ * Линии толщиной в один пиксель без сглаживания.
+ * <p>
+ * Растеризация не зависит от области отсечения: набор закрашиваемых пикселей примитива определяется
+ * только его координатами, а отсечение лишь отбрасывает пиксели вне области. Поэтому изображение,
+ * собранное из нескольких областей (плиток, полос), совпадает попиксельно с отрисовкой целиком.
+ * <p>
+ * Буфер может покрывать лишь часть большого холста: начало координат буфера задаётся смещением
+ * {@code (originX, originY)}, а все координаты рисования и отсечения остаются в системе всего холста.
+ * Так экспорт рисует гигантское изображение полосами, держа в памяти только текущую полосу.
+ */
+public class RasterRenderTarget implements RenderTarget {
+
+    /**
+     * Предел модуля координаты в пикселях; более далёкие точки прижимаются к нему,
+     * чтобы целочисленная арифметика растеризации не переполнялась.
+     */
+    private static final double COORD_LIMIT = 1 << 28;
+
+    /**
+     * Наибольшее количество отрезков при аппроксимации эллипса (степень двойки).
+     */
+    private static final int MAX_OVAL_SEGMENTS = 1024;
+
+    /**
+     * Таблицы косинусов и синусов единичной окружности для количества отрезков 2^k:
+     * {@code UNIT_COS[k][i] = cos(2πi / 2^k)}. Вычисляются один раз, чтобы не считать
+     * тригонометрию для каждого эллипса и каждой плитки заново.
+     */
+    private static final double[][] UNIT_COS = new double[Integer.numberOfTrailingZeros(MAX_OVAL_SEGMENTS) + 1][];
+    private static final double[][] UNIT_SIN = new double[UNIT_COS.length][];
+
+    static {
+        for (int k = 0; k < UNIT_COS.length; k++) {
+            int n = 1 << k;
+            UNIT_COS[k] = new double[n];
+            UNIT_SIN[k] = new double[n];
+            for (int i = 0; i < n; i++) {
+                double angle = 2 * Math.PI * i / n;
+                UNIT_COS[k][i] = Math.cos(angle);
+                UNIT_SIN[k][i] = Math.sin(angle);
+            }
+        }
+    }
+
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+    private final int originX;
+    private final int originY;
+
+    private int clipX0;
+    private int clipY0;
+    private int clipX1;
+    private int clipY1;
+
+    private int color = 0xFF000000;
+
+    /**
+     * Создаёт растр заданного размера, заполненный прозрачными пикселями.
+     *
+     * @param width ширина в пикселях
+     * @param height высота в пикселях
+     */
+    public RasterRenderTarget(int width, int height) {
+        this(new int[Math.multiplyExact(width, height)], width, height);
+    }
+
+    /**
+     * Создаёт растр поверх существующего буфера пикселей (строки подряд, без отступов).
+     *
+     * @param pixels буфер ARGB размером не менее {@code width * height}
+     * @param width ширина в пикселях
+     * @param height высота в пикселях
+     */
+    public RasterRenderTarget(int[] pixels, int width, int height) {
+        this(pixels, width, height, 0, 0);
+    }
+
+    /**
+     * Создаёт растр поверх буфера, покрывающего область {@code [originX, originX + width) × [originY, originY + height)}
+     * большего холста.
+     *
+     * @param pixels буфер ARGB размером не менее {@code width * height}
+     * @param width ширина буфера в пикселях
+     * @param height высота буфера в пикселях
+     * @param originX X-координата левого верхнего пикселя буфера на холсте
+     * @param originY Y-координата левого верхнего пикселя буфера на холсте
+     */
+    public RasterRenderTarget(int[] pixels, int width, int height, int originX, int originY) {
+        if (width < 0 || height < 0 || pixels.length < (long) width * height) {
+            throw new IllegalArgumentException("Некорректный размер растра: " + width + "x" + height);
+        }
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+        this.originX = originX;
+        this.originY = originY;
+        resetClip();
+    }
+
+    /**
+     * Ограничивает вывод прямоугольной областью {@code [x0, x1) × [y0, y1)} в координатах холста.
+     * Область пересекается с границами буфера.
+     *
+     * @param x0 левая граница (включительно)
+     * @param y0 верхняя граница (включительно)
+     * @param x1 правая граница (не включительно)
+     * @param y1 нижняя граница (не включительно)
+     */
+    public void setClip(int x0, int y0, int x1, int y1) {
+        clipX0 = Math.max(originX, x0);
+        clipY0 = Math.max(originY, y0);
+        clipX1 = Math.min(originX + width, x1);
+        clipY1 = Math.min(originY + height, y1);
+    }
+
+    /**
+     * Снимает ограничение области вывода.
+     */
+    public void resetClip() {
+        setClip(originX, originY, originX + width, originY + height);
+    }
+
+    /**
+     * @return буфер пикселей ARGB (без копирования)
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Возвращает {@link BufferedImage} типа ARGB, разделяющее буфер пикселей с растром (без копирования).
+     *
+     * @return изображение поверх буфера растра
+     */
+    public BufferedImage toBufferedImage() {
+        DataBufferInt buffer = new DataBufferInt(pixels, width * height);
+        ColorModel model = ColorModel.getRGBdefault();
+        WritableRaster raster = Raster.createPackedRaster(buffer, width, height, width,
+                new int[]{0x00FF0000, 0x0000FF00, 0x000000FF, 0xFF000000}, null);
+        return new BufferedImage(model, raster, false, null);
+    }
+
+    /**
+     * @return ширина буфера в пикселях
+     */
+    @Override
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * @return высота буфера в пикселях
+     */
+    @Override
+    public double getHeight() {
+        return height;
+    }
+
+    @Override
+    public void clear(int argb) {
+        for (int y = clipY0; y < clipY1; y++) {
+            int row = (y - originY) * width - originX;
+            Arrays.fill(pixels, row + clipX0, row + clipX1, argb);
+        }
+    }
+
+    @Override
+    public void setStroke(int rgb) {
+        color = 0xFF000000 | rgb;
+    }
+
+    @Override
+    public void strokeLine(double x1, double y1, double x2, double y2) {
+        drawLine(toFixed(x1), toFixed(y1), toFixed(x2), toFixed(y2));
+    }
+
+    @Override
+    public void strokeOval(double x, double y, double w, double h) {
+        if (isOutsideClip(x, y, x + w, y + h)) {
+            return;
+        }
+        double rx = w / 2;
+        double ry = h / 2;
+        double cx = x + rx;
+        double cy = y + ry;
+        int wanted = (int) Math.max(8, Math.min(MAX_OVAL_SEGMENTS, Math.ceil((Math.abs(w) + Math.abs(h)) * 0.75)));
+        int k = 32 - Integer.numberOfLeadingZeros(wanted - 1);
+        double[] cos = UNIT_COS[k];
+        double[] sin = UNIT_SIN[k];
+
+        if (rx > 0 && ry > 0) {
+            // Углы, при которых точка эллипса попадает в полосу отсечения (с запасом) по X или по Y:
+            // для узкой области отсечения это малая часть окружности
+            double cosFrom = Math.acos(clampUnit((clipX1 + 1 - cx) / rx));
+            double cosTo = Math.acos(clampUnit((clipX0 - 1 - cx) / rx));
+            double sinFrom = Math.asin(clampUnit((clipY0 - 1 - cy) / ry));
+            double sinTo = Math.asin(clampUnit((clipY1 + 1 - cy) / ry));
+            if (cosTo - cosFrom <= sinTo - sinFrom) {
+                if (cosTo - cosFrom < Math.PI / 2) {
+                    strokeOvalArc(cx, cy, rx, ry, cos, sin, cosFrom, cosTo);
+                    strokeOvalArc(cx, cy, rx, ry, cos, sin, 2 * Math.PI - cosTo, 2 * Math.PI - cosFrom);
+                    return;
+                }
+            } else if (sinTo - sinFrom < Math.PI / 2) {
+                strokeOvalArc(cx, cy, rx, ry, cos, sin, sinFrom, sinTo);
+                strokeOvalArc(cx, cy, rx, ry, cos, sin, Math.PI - sinTo, Math.PI - sinFrom);
+                return;
+            }
+        }
+        strokeOvalArc(cx, cy, rx, ry, cos, sin, 0, 2 * Math.PI);
+    }
+
+    /**
+     * Рисует отрезки аппроксимации эллипса, угловой интервал которых пересекает дугу {@code [from, to]}
+     * (с запасом в один отрезок с каждой стороны). Вершины отрезков те же, что и при обходе
+     * всего эллипса, поэтому обход по частям закрашивает те же пиксели внутри области отсечения.
+     *
+     * @param cx X центра
+     * @param cy Y центра
+     * @param rx горизонтальный радиус
+     * @param ry вертикальный радиус
+     * @param cos таблица косинусов для выбранного количества отрезков
+     * @param sin таблица синусов для выбранного количества отрезков
+     * @param from начальный угол дуги в радианах
+     * @param to конечный угол дуги в радианах
+     */
+    private void strokeOvalArc(double cx, double cy, double rx, double ry, double[] cos, double[] sin,
+                               double from, double to) {
+        int segments = cos.length;
+        int mask = segments - 1;
+        double perRadian = segments / (2 * Math.PI);
+        long first = (long) Math.floor(from * perRadian);
+        long last = (long) Math.ceil(to * perRadian) + 1;
+        if (last - first > segments) {
+            first = 1;
+            last = segments;
+        }
+        int j = (int) ((first - 1) & mask);
+        long prevX = toFixed(cx + rx * cos[j]);
+        long prevY = toFixed(cy + ry * sin[j]);
+        for (long i = first; i <= last; i++) {
+            j = (int) (i & mask);
+            long nextX = toFixed(cx + rx * cos[j]);
+            long nextY = toFixed(cy + ry * sin[j]);
+            drawLine(prevX, prevY, nextX, nextY);
+            prevX = nextX;
+            prevY = nextY;
+        }
+    }
+
+    @Override
+    public void strokeRect(double x, double y, double w, double h) {
+        if (isOutsideClip(x, y, x + w, y + h)) {
+            return;
+        }
+        long x0 = toFixed(x);
+        long y0 = toFixed(y);
+        long x1 = toFixed(x + w);
+        long y1 = toFixed(y + h);
+        drawLine(x0, y0, x1, y0);
+        drawLine(x1, y0, x1, y1);
+        drawLine(x1, y1, x0, y1);
+        drawLine(x0, y1, x0, y0);
+    }
+
+    @Override
+    public void strokePolygon(double[] xs, double[] ys, int n) {
+        strokePath(xs, ys, n, true);
+    }
+
+    @Override
+    public void strokePolyline(double[] xs, double[] ys, int n) {
+        strokePath(xs, ys, n, false);
+    }
+
+    @Override
+    public void plot(double x, double y) {
+        plot(toFixed(x), toFixed(y));
+    }
+
+    /**
+     * Рисует ломаную или многоугольник по вершинам.
+     *
+     * @param xs X-координаты вершин
+     * @param ys Y-координаты вершин
+     * @param n количество вершин
+     * @param closed {@code true} — соединить последнюю вершину с первой
+     */
+    private void strokePath(double[] xs, double[] ys, int n, boolean closed) {
+        if (n <= 0) {
+            return;
+        }
+        double minX = xs[0], maxX = xs[0], minY = ys[0], maxY = ys[0];
+        for (int i = 1; i < n; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        if (isOutsideClip(minX, minY, maxX, maxY)) {
+            return;
+        }
+        long firstX = toFixed(xs[0]);
+        long firstY = toFixed(ys[0]);
+        long prevX = firstX;
+        long prevY = firstY;
+        for (int i = 1; i < n; i++) {
+            long nextX = toFixed(xs[i]);
+            long nextY = toFixed(ys[i]);
+            drawLine(prevX, prevY, nextX, nextY);
+            prevX = nextX;
+            prevY = nextY;
+        }
+        if (closed || n == 1) {
+            drawLine(prevX, prevY, firstX, firstY);
+        }
+    }
+
+    /**
+     * Проверяет, что прямоугольник (с запасом в один пиксель) не пересекает область отсечения.
+     * Используется только для раннего отказа и не влияет на набор закрашиваемых пикселей.
+     *
+     * @param x0 первая X-граница
+     * @param y0 первая Y-граница
+     * @param x1 вторая X-граница
+     * @param y1 вторая Y-граница
+     * @return {@code true}, если фигура гарантированно не попадает в область отсечения
+     */
+    private boolean isOutsideClip(double x0, double y0, double x1, double y1) {
+        double minX = Math.min(x0, x1), maxX = Math.max(x0, x1);
+        double minY = Math.min(y0, y1), maxY = Math.max(y0, y1);
+        return maxX < clipX0 - 1 || minX > clipX1 + 1 || maxY < clipY0 - 1 || minY > clipY1 + 1;
+    }
+
+    /**
+     * Рисует отрезок между центрами пикселей алгоритмом Брезенхэма.
+     * Пиксели перебираются только в пределах области отсечения по главной оси,
+     * а начальное смещение по второй оси вычисляется точно, поэтому результат не зависит от отсечения.
+     *
+     * @param x0 X начала в пикселях
+     * @param y0 Y начала в пикселях
+     * @param x1 X конца в пикселях
+     * @param y1 Y конца в пикселях
+     */
+    private void drawLine(long x0, long y0, long x1, long y1) {
+        long dx = x1 - x0;
+        long dy = y1 - y0;
+        if (Math.abs(dx) >= Math.abs(dy)) {
+            if (dx < 0) {
+                long t = x0; x0 = x1; x1 = t;
+                t = y0; y0 = y1; y1 = t;
+                dx = -dx;
+                dy = -dy;
+            }
+            if (dx == 0) {
+                plot(x0, y0);
+                return;
+            }
+            long from = Math.max(x0, clipX0);
+            long to = Math.min(x1, clipX1 - 1L);
+            if (from > to) {
+                return;
+            }
+            long twoDx = 2 * dx;
+            long numerator = 2 * (from - x0) * dy + dx;
+            long y = y0 + Math.floorDiv(numerator, twoDx);
+            long rem = Math.floorMod(numerator, twoDx);
+            long step = 2 * dy;
+            for (long x = from; x <= to; x++) {
+                if (y >= clipY0 && y < clipY1) {
+                    pixels[(int) (y - originY) * width + (int) (x - originX)] = color;
+                }
+                rem += step;
+                if (rem >= twoDx) {
+                    rem -= twoDx;
+                    y++;
+                } else if (rem < 0) {
+                    rem += twoDx;
+                    y--;
+                }
+            }
+        } else {
+            if (dy < 0) {
+                long t = x0; x0 = x1; x1 = t;
+                t = y0; y0 = y1; y1 = t;
+                dx = -dx;
+                dy = -dy;
+            }
+            long from = Math.max(y0, clipY0);
+            long to = Math.min(y1, clipY1 - 1L);
+            if (from > to) {
+                return;
+            }
+            long twoDy = 2 * dy;
+            long numerator = 2 * (from - y0) * dx + dy;
+            long x = x0 + Math.floorDiv(numerator, twoDy);
+            long rem = Math.floorMod(numerator, twoDy);
+            long step = 2 * dx;
+            for (long y = from; y <= to; y++) {
+                if (x >= clipX0 && x < clipX1) {
+                    pixels[(int) (y - originY) * width + (int) (x - originX)] = color;
+                }
+                rem += step;
+                if (rem >= twoDy) {
+                    rem -= twoDy;
+                    x++;
+                } else if (rem < 0) {
+                    rem += twoDy;
+                    x--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Закрашивает один пиксель, если он попадает в область отсечения.
+     *
+     * @param x X пикселя
+     * @param y Y пикселя
+     */
+    private void plot(long x, long y) {
+        if (x >= clipX0 && x < clipX1 && y >= clipY0 && y < clipY1) {
+            pixels[(int) (y - originY) * width + (int) (x - originX)] = color;
+        }
+    }
+
+    /**
+     * Ограничивает значение отрезком {@code [-1, 1]} (областью определения арккосинуса и арксинуса).
+     *
+     * @param v значение
+     * @return ограниченное значение
+     */
+    private static double clampUnit(double v) {
+        return Math.max(-1, Math.min(1, v));
+    }
+
+    /**
+     * Переводит дробную пиксельную координату в номер пикселя с ограничением диапазона.
+     *
+     * @param v координата в пикселях
+     * @return номер пикселя
+     */
+    private static long toFixed(double v) {
+        return (long) Math.floor(Math.max(-COORD_LIMIT, Math.min(COORD_LIMIT, v)));
+    }
+}
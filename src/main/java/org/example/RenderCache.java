@@ -0,0 +1,508 @@
+package org.example;
+
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Кэш готовых изображений: повторный запрос с теми же параметрами генерации и размером холста
+ * возвращает копию сохранённых пикселей вместо генерации и отрисовки. Им пользуются сервер отрисовки
+ * (рисунки с явно заданным зерном) и окно просмотра (слой фигур, {@link #LAYER}).
+ * <p>
+ * Записи хранятся в порядке последнего обращения (LRU) и вытесняются, когда суммарный размер
+ * пикселей превышает бюджет. Если задан каталог вытеснения, вытесненные записи сжимаются
+ * и сохраняются на диск (со своим бюджетом), а при следующем запросе читаются обратно. Перечень записей
+ * на диске хранится только в памяти, поэтому файлы записей прежних запусков удаляются при создании кэша,
+ * а текущие — в {@link #clear()}.
+ * Ошибки диска не прерывают работу: запись просто считается отсутствующей.
+ * <p>
+ * Кэш потокобезопасен. Отрисовка и работа с диском выполняются вне блокировки; одновременные
+ * промахи по одному ключу объединяются: изображение рисует первый запрос, а остальные дожидаются
+ * его результата ({@link CompletableFuture} на ключ).
+ */
+public final class RenderCache {
+
+    private static final Logger logger = LoggingConfig.getLogger(RenderCache.class);
+
+    /**
+     * Бюджет памяти по умолчанию в байтах.
+     */
+    public static final long DEFAULT_BUDGET_BYTES = 256L << 20;
+
+    /**
+     * Обозначение изображений, отрисованных в растр ({@link RasterRenderTarget}).
+     */
+    public static final String RASTER = "raster";
+
+    /**
+     * Обозначение слоя фигур окна просмотра: фигуры на прозрачном фоне, без сетки.
+     */
+    public static final String LAYER = "layer";
+
+    /**
+     * Уровень сжатия записей, вытесненных на диск: важнее скорость, рисунки на белом фоне сжимаются и так хорошо.
+     */
+    private static final int SPILL_COMPRESSION = Deflater.BEST_SPEED;
+
+    /**
+     * Количество пикселей, которое записывается на диск и читается с него за один раз.
+     * Запись переносится частями, поэтому не нужен буфер размером со всё изображение.
+     */
+    private static final int SPILL_CHUNK_PIXELS = 1 << 16;
+
+    /**
+     * Имя файла записи на диске (и его временной копии при сохранении).
+     */
+    private static final Pattern SPILL_FILE = Pattern.compile("[0-9a-f]{64}\\.px(\\.tmp)?");
+
+    private final long budgetBytes;
+    private final Path spillDir;
+    private final long diskBudgetBytes;
+
+    private final LinkedHashMap<Key, int[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Key, Long> spilled = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentHashMap<Key, CompletableFuture<int[]>> inFlight = new ConcurrentHashMap<>();
+    private long bytes;
+    private long diskBytes;
+    private long hits;
+    private long diskHits;
+    private long misses;
+    private long coalesced;
+    private long evictions;
+    private long spills;
+
+    /**
+     * Канонический ключ изображения. Числа с плавающей точкой нормализуются ({@code -0.0} → {@code 0.0}),
+     * поэтому равные по смыслу запросы дают равные ключи. Порядок типов фигур сохраняется:
+     * он влияет на результат генерации.
+     *
+     * @param renderer способ отрисовки (например, {@link #RASTER})
+     * @param params параметры генерации
+     * @param width ширина изображения в пикселях
+     * @param height высота изображения в пикселях
+     */
+    public record Key(String renderer, GenerationParams params, int width, int height) {
+
+        /**
+         * Нормализует параметры генерации.
+         */
+        public Key {
+            params = new GenerationParams(params.count(), params.xMin() + 0.0, params.xMax() + 0.0,
+                    params.yMin() + 0.0, params.yMax() + 0.0, params.density() + 0.0, params.placement(),
+                    params.noOverlap(), params.showGrid(), params.allowedTypes(), params.seed());
+        }
+
+        /**
+         * @return каноническая строка ключа
+         */
+        public String canonical() {
+            return renderer + ";count=" + params.count()
+                    + ";x=" + params.xMin() + ".." + params.xMax()
+                    + ";y=" + params.yMin() + ".." + params.yMax()
+                    + ";density=" + params.density() + ";placement=" + params.placement().name()
+                    + ";noOverlap=" + params.noOverlap() + ";grid=" + params.showGrid()
+                    + ";types=" + params.allowedTypes().stream().map(Enum::name).collect(Collectors.joining(","))
+                    + ";seed=" + params.seed() + ";size=" + width + "x" + height;
+        }
+
+        /**
+         * @return имя файла записи на диске (SHA-256 канонической строки)
+         */
+        String fileName() {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical().getBytes(StandardCharsets.UTF_8));
+                return HexFormat.of().formatHex(digest) + ".px";
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 недоступен", e);
+            }
+        }
+
+        /**
+         * @return размер пикселей изображения в байтах
+         */
+        long sizeBytes() {
+            return (long) width * height * Integer.BYTES;
+        }
+    }
+
+    /**
+     * Счётчики кэша.
+     *
+     * @param hits попадания в память
+     * @param diskHits попадания в записи на диске
+     * @param misses промахи (изображение отрисовано заново)
+     * @param coalesced промахи, дождавшиеся одновременной отрисовки того же изображения
+     * @param evictions вытеснения из памяти
+     * @param spills записи, сохранённые на диск
+     * @param bytes байт пикселей в памяти
+     * @param entries записей в памяти
+     * @param diskBytes байт пикселей (до сжатия) в записях на диске
+     */
+    public record Stats(long hits, long diskHits, long misses, long coalesced, long evictions, long spills,
+                        long bytes, int entries, long diskBytes) {
+
+        /**
+         * @return доля запросов, обслуженных без отрисовки (0.0–1.0)
+         */
+        public double hitRate() {
+            long total = hits + diskHits + misses + coalesced;
+            return total == 0 ? 0 : (double) (hits + diskHits + coalesced) / total;
+        }
+    }
+
+    /**
+     * Создаёт кэш в памяти без вытеснения на диск.
+     *
+     * @param budgetBytes бюджет памяти в байтах
+     */
+    public RenderCache(long budgetBytes) {
+        this(budgetBytes, null, 0);
+    }
+
+    /**
+     * Создаёт кэш с вытеснением записей на диск.
+     *
+     * @param budgetBytes бюджет памяти в байтах
+     * @param spillDir каталог для сжатых записей; {@code null} — не сохранять на диск
+     * @param diskBudgetBytes бюджет диска в байтах несжатых пикселей
+     */
+    public RenderCache(long budgetBytes, Path spillDir, long diskBudgetBytes) {
+        if (budgetBytes < 0 || diskBudgetBytes < 0) {
+            throw new IllegalArgumentException("Бюджет кэша не может быть отрицательным");
+        }
+        this.budgetBytes = budgetBytes;
+        this.spillDir = spillDir;
+        this.diskBudgetBytes = diskBudgetBytes;
+        if (spillDir != null) {
+            try {
+                Files.createDirectories(spillDir);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Не удалось создать каталог кэша: " + spillDir, e);
+            }
+            deleteLeftovers();
+        }
+    }
+
+    /**
+     * Ищет изображение в кэше, не отрисовывая его. Для тех, кто рисует постепенно и сохраняет результат
+     * через {@link #put}, когда он готов; отсутствие записи считается промахом.
+     *
+     * @param key ключ изображения
+     * @return пиксели ARGB (собственная копия вызывающего) или {@code null}
+     */
+    public int[] find(Key key) {
+        int[] cached = lookup(key);
+        if (cached != null) {
+            return cached.clone();
+        }
+        synchronized (this) {
+            misses++;
+        }
+        return null;
+    }
+
+    /**
+     * Сохраняет готовое изображение (копию переданных пикселей).
+     *
+     * @param key ключ изображения
+     * @param pixels пиксели размером {@code width * height}
+     * @throws IllegalArgumentException если размер не совпадает с ключом
+     */
+    public void put(Key key, int[] pixels) {
+        if (pixels.length != (long) key.width() * key.height()) {
+            throw new IllegalArgumentException("Размер изображения не совпадает с ключом: " + pixels.length);
+        }
+        store(key, pixels.clone());
+    }
+
+    /**
+     * Возвращает изображение по ключу из кэша; при промахе получает его от {@code renderer} и сохраняет.
+     * Если то же изображение уже рисуется другим потоком, дожидается его результата вместо повторной отрисовки.
+     *
+     * @param key ключ изображения
+     * @param renderer отрисовка при промахе; возвращает пиксели размером {@code width * height}
+     * @return пиксели ARGB (собственная копия вызывающего)
+     */
+    public int[] get(Key key, Supplier<int[]> renderer) {
+        int[] cached = lookup(key);
+        if (cached != null) {
+            return cached.clone();
+        }
+        CompletableFuture<int[]> mine = new CompletableFuture<>();
+        CompletableFuture<int[]> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            synchronized (this) {
+                coalesced++;
+            }
+            try {
+                return running.join().clone();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            int[] pixels;
+            synchronized (this) {
+                // Запись могла появиться между поиском и регистрацией отрисовки
+                pixels = entries.get(key);
+                if (pixels == null) {
+                    misses++;
+                }
+            }
+            if (pixels != null) {
+                mine.complete(pixels);
+                return pixels.clone();
+            }
+            pixels = renderer.get();
+            if (pixels.length != (long) key.width() * key.height()) {
+                throw new IllegalArgumentException("Размер изображения не совпадает с ключом: " + pixels.length);
+            }
+            int[] stored = pixels.clone();
+            store(key, stored);
+            mine.complete(stored);
+            return pixels;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * @return текущие значения счётчиков
+     */
+    public synchronized Stats stats() {
+        return new Stats(hits, diskHits, misses, coalesced, evictions, spills, bytes, entries.size(), diskBytes);
+    }
+
+    /**
+     * Удаляет все записи из памяти и с диска. Счётчики сохраняются.
+     */
+    public void clear() {
+        List<Key> files;
+        synchronized (this) {
+            entries.clear();
+            bytes = 0;
+            files = new ArrayList<>(spilled.keySet());
+            spilled.clear();
+            diskBytes = 0;
+        }
+        files.forEach(this::deleteSpill);
+    }
+
+    /**
+     * Ищет запись в памяти, затем на диске. Запись с диска возвращается в память.
+     *
+     * @param key ключ изображения
+     * @return пиксели записи (без копирования) или {@code null}
+     */
+    private int[] lookup(Key key) {
+        synchronized (this) {
+            int[] pixels = entries.get(key);
+            if (pixels != null) {
+                hits++;
+                return pixels;
+            }
+            if (!spilled.containsKey(key)) {
+                return null;
+            }
+        }
+        int[] pixels = readSpill(key);
+        synchronized (this) {
+            if (pixels == null) {
+                return null;
+            }
+            diskHits++;
+        }
+        store(key, pixels);
+        return pixels;
+    }
+
+    /**
+     * Сохраняет запись в памяти и вытесняет самые давние записи сверх бюджета (при необходимости на диск).
+     *
+     * @param key ключ изображения
+     * @param pixels пиксели, принадлежащие кэшу
+     */
+    private void store(Key key, int[] pixels) {
+        List<Map.Entry<Key, int[]>> evicted = new ArrayList<>();
+        synchronized (this) {
+            long size = key.sizeBytes();
+            if (size > budgetBytes) {
+                evicted.add(Map.entry(key, pixels));
+            } else {
+                int[] previous = entries.put(key, pixels);
+                if (previous == null) {
+                    bytes += size;
+                }
+                Iterator<Map.Entry<Key, int[]>> eldest = entries.entrySet().iterator();
+                while (bytes > budgetBytes && eldest.hasNext()) {
+                    Map.Entry<Key, int[]> entry = eldest.next();
+                    eldest.remove();
+                    bytes -= entry.getKey().sizeBytes();
+                    evictions++;
+                    evicted.add(entry);
+                }
+            }
+        }
+        if (spillDir != null) {
+            for (Map.Entry<Key, int[]> entry : evicted) {
+                spill(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Сжимает запись и сохраняет её на диск, вытесняя самые давние записи диска сверх бюджета.
+     *
+     * @param key ключ изображения
+     * @param pixels пиксели
+     */
+    private void spill(Key key, int[] pixels) {
+        long size = key.sizeBytes();
+        if (size > diskBudgetBytes) {
+            return;
+        }
+        synchronized (this) {
+            if (spilled.containsKey(key)) {
+                return;
+            }
+        }
+        Path file = spillDir.resolve(key.fileName());
+        Path temp = spillDir.resolve(key.fileName() + ".tmp");
+        Deflater deflater = new Deflater(SPILL_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new DeflaterOutputStream(Files.newOutputStream(temp), deflater, 1 << 16), 1 << 16))) {
+            out.writeInt(key.width());
+            out.writeInt(key.height());
+            ByteBuffer buffer = ByteBuffer.allocate(SPILL_CHUNK_PIXELS * Integer.BYTES);
+            for (int from = 0; from < pixels.length; from += SPILL_CHUNK_PIXELS) {
+                int n = Math.min(SPILL_CHUNK_PIXELS, pixels.length - from);
+                buffer.clear();
+                buffer.asIntBuffer().put(pixels, from, n);
+                out.write(buffer.array(), 0, n * Integer.BYTES);
+            }
+        } catch (IOException e) {
+            logger.warn("Не удалось сохранить запись кэша {}: {}", file, e.getMessage());
+            return;
+        } finally {
+            deflater.end();
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Не удалось сохранить запись кэша {}: {}", file, e.getMessage());
+            return;
+        }
+
+        List<Key> removed = new ArrayList<>();
+        synchronized (this) {
+            spills++;
+            if (spilled.put(key, size) == null) {
+                diskBytes += size;
+            }
+            Iterator<Map.Entry<Key, Long>> eldest = spilled.entrySet().iterator();
+            while (diskBytes > diskBudgetBytes && eldest.hasNext()) {
+                Map.Entry<Key, Long> entry = eldest.next();
+                eldest.remove();
+                diskBytes -= entry.getValue();
+                removed.add(entry.getKey());
+            }
+        }
+        removed.forEach(this::deleteSpill);
+    }
+
+    /**
+     * Читает запись с диска.
+     *
+     * @param key ключ изображения
+     * @return пиксели или {@code null}, если запись недоступна или повреждена
+     */
+    private int[] readSpill(Key key) {
+        Path file = spillDir.resolve(key.fileName());
+        try (InputStream raw = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(raw), 1 << 16))) {
+            if (in.readInt() != key.width() || in.readInt() != key.height()) {
+                throw new IOException("размер не совпадает с ключом");
+            }
+            int[] pixels = new int[Math.multiplyExact(key.width(), key.height())];
+            byte[] buffer = new byte[SPILL_CHUNK_PIXELS * Integer.BYTES];
+            for (int from = 0; from < pixels.length; from += SPILL_CHUNK_PIXELS) {
+                int n = Math.min(SPILL_CHUNK_PIXELS, pixels.length - from);
+                in.readFully(buffer, 0, n * Integer.BYTES);
+                ByteBuffer.wrap(buffer, 0, n * Integer.BYTES).asIntBuffer().get(pixels, from, n);
+            }
+            return pixels;
+        } catch (IOException e) {
+            logger.warn("Не удалось прочитать запись кэша {}: {}", file, e.getMessage());
+            synchronized (this) {
+                Long size = spilled.remove(key);
+                if (size != null) {
+                    diskBytes -= size;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Удаляет из каталога вытеснения файлы записей, оставшиеся от прежних запусков. Другие файлы не трогает.
+     */
+    private void deleteLeftovers() {
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spillDir)) {
+            for (Path file : files) {
+                if (SPILL_FILE.matcher(file.getFileName().toString()).matches() && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Не удалось очистить каталог кэша {}: {}", spillDir, e.getMessage());
+        }
+        if (deleted > 0) {
+            logger.info("Удалено записей кэша прежних запусков: {} ({})", deleted, spillDir);
+        }
+    }
+
+    /**
+     * Удаляет файл записи с диска.
+     *
+     * @param key ключ изображения
+     */
+    private void deleteSpill(Key key) {
+        try {
+            Files.deleteIfExists(spillDir.resolve(key.fileName()));
+        } catch (IOException e) {
+            logger.warn("Не удалось удалить запись кэша {}: {}", key.fileName(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,665 @@
+package org.example;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Локальный HTTP-сервер отрисовки ({@code ./gradlew serve --args="..."}): другие программы получают
+ * рисунок в PNG или сцену в двоичном формате {@link SceneFile}, не запуская графический интерфейс.
+ * <ul>
+ *     <li>{@code GET /render.png?count=1000&size=800x600&seed=42} — рисунок в PNG;</li>
+ *     <li>{@code GET /scene?count=1000&seed=42} — сцена ({@code .scene});</li>
+ *     <li>{@code GET /metrics} — метрики процесса ({@link Metrics#dump()}) и состояние очереди.</li>
+ * </ul>
+ * Параметры запроса — те же, что у формы ввода и пакетного режима ({@link BatchCli}), без {@code --}:
+ * {@code count}, {@code x-min}, {@code x-max}, {@code y-min}, {@code y-max}, {@code density},
+ * {@code placement}, {@code no-overlap}, {@code grid}, {@code types}, {@code seed}, {@code size}.
+ * <p>
+ * Запросы принимаются потоками по одному на запрос (виртуальными, если среда выполнения их поддерживает),
+ * а генерация и отрисовка выполняются пулом из {@code --workers} потоков за очередью ограниченной длины
+ * ({@code --queue}). Когда очередь заполнена, запрос сразу отклоняется ответом 503 с заголовком
+ * {@code Retry-After} — оценкой времени, за которое очередь освободится, — вместо того чтобы копить
+ * ожидающие запросы без предела. Поток пула только генерирует сцену и рисует её, а кодирует и передаёт
+ * ответ поток запроса, поэтому медленный клиент не занимает поток пула. Готовое изображение занимает память,
+ * пока клиент не дочитает ответ, поэтому одновременно обслуживается не больше {@code --workers + --queue}
+ * запросов — от постановки в очередь до последнего байта ответа; сверх этого — тоже 503. Ответ передаётся частями (chunked)
+ * по мере кодирования: PNG — полосами по {@value #BAND_ROWS} строк, сцена — столбцами, поэтому первые
+ * байты уходят клиенту до конца кодирования.
+ * Рисунки с явно заданным зерном кэшируются ({@link RenderCache}); с {@code --cache-dir} вытесненные
+ * из памяти рисунки сжимаются на диск и удаляются при остановке сервера.
+ * <p>
+ * Сервер слушает только локальный адрес (loopback).
+ */
+public final class RenderServer implements Closeable {
+
+    private static final Logger logger = LoggingConfig.getLogger(RenderServer.class);
+
+    /**
+     * Путь запроса рисунка в PNG.
+     */
+    public static final String PNG_PATH = "/render.png";
+
+    /**
+     * Путь запроса сцены в двоичном формате.
+     */
+    public static final String SCENE_PATH = "/scene";
+
+    /**
+     * Путь запроса метрик.
+     */
+    public static final String METRICS_PATH = "/metrics";
+
+    /**
+     * Высота полосы строк, кодируемой и отправляемой за раз.
+     */
+    private static final int BAND_ROWS = PosterExporter.DEFAULT_BAND_HEIGHT;
+
+    /**
+     * Уровень сжатия PNG: для ответа по сети скорость кодирования важнее нескольких процентов размера.
+     */
+    private static final int COMPRESSION = PosterExporter.DEFAULT_COMPRESSION;
+
+    /**
+     * Длина очереди входящих соединений сокета.
+     */
+    private static final int BACKLOG = 256;
+
+    /**
+     * Параметры запроса, которые можно передать серверу (имена параметров {@link BatchCli} без {@code --}).
+     */
+    private static final Set<String> QUERY_KEYS = Set.of("count", "x-min", "x-max", "y-min", "y-max", "density",
+            "placement", "no-overlap", "grid", "types", "seed", "size");
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Использование: ./gradlew serve --args=\"[параметры]\"",
+            "  --port N          порт на localhost (по умолчанию 8080; 0 — любой свободный)",
+            "  --workers N       потоков генерации и отрисовки (по умолчанию количество процессоров)",
+            "  --queue N         длина очереди ожидающих запросов (по умолчанию 4 на поток; 0 — без очереди)",
+            "  --max-size WxH    наибольший размер изображения (по умолчанию 4096x4096)",
+            "  --max-count N     наибольшее количество фигур (по умолчанию 1000000)",
+            "  --cache-mb N      бюджет кэша рисунков в МБ (по умолчанию 256; 0 — без кэша)",
+            "  --cache-dir DIR   каталог для рисунков, вытесненных из кэша (по умолчанию — не сохранять на диск)",
+            "  --cache-disk-mb N бюджет каталога кэша в МБ несжатых пикселей (по умолчанию 1024)",
+            "  --help            показать эту справку",
+            "Запросы: GET " + PNG_PATH + "?count=1000&size=800x600&seed=42, GET " + SCENE_PATH
+                    + "?count=1000&seed=42, GET " + METRICS_PATH);
+
+    /**
+     * Параметры сервера.
+     *
+     * @param port порт; 0 — любой свободный
+     * @param workers потоков генерации и отрисовки
+     * @param queue длина очереди ожидающих запросов
+     * @param maxPixels наибольшее количество пикселей изображения
+     * @param maxCount наибольшее количество фигур
+     * @param cacheBytes бюджет кэша рисунков в байтах; 0 — без кэша
+     * @param cacheDir каталог для вытесненных рисунков; {@code null} — не сохранять на диск
+     * @param cacheDiskBytes бюджет каталога кэша в байтах несжатых пикселей
+     */
+    record Options(int port, int workers, int queue, long maxPixels, int maxCount, long cacheBytes,
+                   Path cacheDir, long cacheDiskBytes) {
+    }
+
+    /**
+     * Разобранный запрос рисунка или сцены.
+     *
+     * @param params параметры генерации
+     * @param width ширина изображения
+     * @param height высота изображения
+     * @param seeded зерно задано в запросе (результат воспроизводим и его можно кэшировать)
+     */
+    record Request(GenerationParams params, int width, int height, boolean seeded) {
+    }
+
+    /**
+     * Вид ответа.
+     */
+    private enum Kind {
+        PNG, SCENE
+    }
+
+    private final Options options;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ThreadPoolExecutor workers;
+    private final RenderCache cache;
+    private final Semaphore inFlight;
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong servedNanos = new AtomicLong();
+
+    /**
+     * Создаёт сервер и занимает порт. Запросы начинают приниматься после {@link #start()}.
+     *
+     * @param options параметры сервера
+     * @throws IOException если порт занят
+     */
+    RenderServer(Options options) throws IOException {
+        this.options = options;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), options.port()),
+                BACKLOG);
+        this.handlers = newRequestExecutor("render-http");
+        BlockingQueue<Runnable> queue = options.queue() > 0
+                ? new ArrayBlockingQueue<>(options.queue()) : new SynchronousQueue<>();
+        this.workers = new ThreadPoolExecutor(options.workers(), options.workers(), 0, TimeUnit.MILLISECONDS, queue,
+                named("render-worker"), new ThreadPoolExecutor.AbortPolicy());
+        this.cache = options.cacheBytes() > 0
+                ? new RenderCache(options.cacheBytes(), options.cacheDir(), options.cacheDiskBytes()) : null;
+        this.inFlight = new Semaphore(options.workers() + options.queue());
+
+        server.setExecutor(handlers);
+        server.createContext(PNG_PATH, exchange -> handle(exchange, Kind.PNG));
+        server.createContext(SCENE_PATH, exchange -> handle(exchange, Kind.SCENE));
+        server.createContext(METRICS_PATH, this::handleMetrics);
+    }
+
+    /**
+     * Точка входа режима сервера. Сервер работает до завершения процесса (Ctrl+C).
+     *
+     * @param args аргументы командной строки
+     */
+    public static void main(String[] args) {
+        LoggingConfig.init();
+        if (Arrays.asList(args).contains("--help")) {
+            System.out.println(USAGE);
+            return;
+        }
+        Options options;
+        try {
+            options = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        try {
+            RenderServer server = new RenderServer(options);
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close, "render-server-stop"));
+            print(System.out, server.getPort());
+        } catch (IOException e) {
+            logger.error("Не удалось запустить сервер отрисовки", e);
+            System.err.println("Ошибка: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Печатает адреса сервера.
+     *
+     * @param out поток вывода
+     * @param port порт сервера
+     */
+    private static void print(PrintStream out, int port) {
+        out.printf(Locale.ROOT, "Сервер отрисовки: http://localhost:%d%s?count=1000&size=800x600&seed=42%n",
+                port, PNG_PATH);
+        out.printf(Locale.ROOT, "Сцена: http://localhost:%d%s?count=1000&seed=42, метрики: http://localhost:%d%s%n",
+                port, SCENE_PATH, port, METRICS_PATH);
+    }
+
+    /**
+     * Разбирает аргументы командной строки. Значения можно задавать как {@code --key value} или {@code --key=value}.
+     *
+     * @param args аргументы командной строки
+     * @return параметры сервера
+     * @throws IllegalArgumentException если аргументы некорректны
+     */
+    static Options parse(String[] args) {
+        int port = 8080;
+        int workers = Runtime.getRuntime().availableProcessors();
+        Integer queue = null;
+        long maxPixels = 4096L * 4096;
+        int maxCount = 1_000_000;
+        long cacheBytes = RenderCache.DEFAULT_BUDGET_BYTES;
+        Path cacheDir = null;
+        long cacheDiskBytes = 1024L << 20;
+
+        for (int i = 0; i < args.length; i++) {
+            String key = args[i];
+            String value;
+            int eq = key.indexOf('=');
+            if (eq > 0) {
+                value = key.substring(eq + 1);
+                key = key.substring(0, eq);
+            } else if (i + 1 < args.length) {
+                value = args[++i];
+            } else {
+                throw new IllegalArgumentException("Не указано значение для " + key);
+            }
+            try {
+                switch (key) {
+                    case "--port" -> port = Integer.parseInt(value);
+                    case "--workers" -> workers = Integer.parseInt(value);
+                    case "--queue" -> queue = Integer.parseInt(value);
+                    case "--max-size" -> {
+                        String[] parts = value.toLowerCase(Locale.ROOT).split("[x×*]");
+                        if (parts.length != 2) {
+                            throw new IllegalArgumentException("Укажите размер в виде 4096x4096: " + value);
+                        }
+                        maxPixels = Long.parseLong(parts[0].trim()) * Long.parseLong(parts[1].trim());
+                    }
+                    case "--max-count" -> maxCount = Integer.parseInt(value);
+                    case "--cache-mb" -> cacheBytes = Long.parseLong(value) << 20;
+                    case "--cache-dir" -> cacheDir = Path.of(value);
+                    case "--cache-disk-mb" -> cacheDiskBytes = Long.parseLong(value) << 20;
+                    default -> throw new IllegalArgumentException("Неизвестный параметр: " + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Некорректное число для " + key + ": " + value);
+            }
+        }
+
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("Некорректный порт: " + port);
+        }
+        if (workers < 1) {
+            throw new IllegalArgumentException("Количество потоков должно быть положительным");
+        }
+        int queueLength = queue != null ? queue : 4 * workers;
+        if (queueLength < 0) {
+            throw new IllegalArgumentException("Длина очереди не может быть отрицательной: " + queueLength);
+        }
+        if (maxPixels < 1 || maxPixels > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Некорректный наибольший размер изображения: " + maxPixels + " пикселей");
+        }
+        if (maxCount < 1 || cacheBytes < 0 || cacheDiskBytes < 0) {
+            throw new IllegalArgumentException("Ограничения сервера должны быть положительными");
+        }
+        return new Options(port, workers, queueLength, maxPixels, maxCount, cacheBytes, cacheDir, cacheDiskBytes);
+    }
+
+    /**
+     * Разбирает строку запроса в параметры генерации тем же разбором, что и аргументы пакетного режима.
+     * Без зерна берётся случайное; оно возвращается клиенту в заголовке {@code X-Seed}.
+     *
+     * @param rawQuery строка запроса без декодирования; {@code null} — все параметры по умолчанию
+     * @param maxPixels наибольшее количество пикселей изображения
+     * @param maxCount наибольшее количество фигур
+     * @return разобранный запрос
+     * @throws IllegalArgumentException если параметры некорректны или превышают ограничения сервера
+     */
+    static Request parseQuery(String rawQuery, long maxPixels, int maxCount) {
+        List<String> args = new ArrayList<>();
+        boolean seeded = false;
+        if (rawQuery != null && !rawQuery.isEmpty()) {
+            for (String pair : rawQuery.split("&")) {
+                if (pair.isEmpty()) {
+                    continue;
+                }
+                int eq = pair.indexOf('=');
+                String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+                String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                if (!QUERY_KEYS.contains(key)) {
+                    throw new IllegalArgumentException("Неизвестный параметр: " + key);
+                }
+                switch (key) {
+                    case "grid" -> args.add(isTrue(key, value) ? "--grid" : "--no-grid");
+                    case "no-overlap" -> {
+                        if (isTrue(key, value)) {
+                            args.add("--no-overlap");
+                        }
+                    }
+                    default -> {
+                        seeded |= key.equals("seed");
+                        args.add("--" + key + "=" + value);
+                    }
+                }
+            }
+        }
+        BatchCli.Options parsed = BatchCli.parse(args.toArray(new String[0]));
+        if ((long) parsed.width() * parsed.height() > maxPixels) {
+            throw new IllegalArgumentException("Изображение " + parsed.width() + "x" + parsed.height()
+                    + " больше допустимого (" + maxPixels + " пикселей)");
+        }
+        if (parsed.params().count() > maxCount) {
+            throw new IllegalArgumentException("Фигур больше допустимого: " + parsed.params().count() + " > " + maxCount);
+        }
+        return new Request(parsed.params(), parsed.width(), parsed.height(), seeded);
+    }
+
+    /**
+     * Разбирает логическое значение параметра запроса; пустое значение ({@code ?grid}) означает «да».
+     *
+     * @param key имя параметра
+     * @param value значение
+     * @return значение параметра
+     * @throws IllegalArgumentException если значение не логическое
+     */
+    private static boolean isTrue(String key, String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "", "1", "true", "yes", "on" -> true;
+            case "0", "false", "no", "off" -> false;
+            default -> throw new IllegalArgumentException("Некорректное значение для " + key + ": " + value);
+        };
+    }
+
+    /**
+     * Начинает приём запросов.
+     */
+    public void start() {
+        server.start();
+        logger.info("Сервер отрисовки запущен на порту {}: потоков отрисовки {}, очередь {}, кэш {} МБ",
+                getPort(), options.workers(), options.queue(), options.cacheBytes() >> 20);
+    }
+
+    /**
+     * @return порт, на котором сервер принимает запросы
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Останавливает сервер, дожидаясь выполняющихся запросов не больше секунды.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        workers.shutdownNow();
+        handlers.shutdownNow();
+        logger.info("Сервер отрисовки остановлен: обработано {}, отклонено {}{}", served.get(),
+                Metrics.SERVER_REJECTED.get(), cache != null ? ", кэш: " + cache.stats() : "");
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Обрабатывает запрос рисунка или сцены: проверяет параметры, занимает место среди обслуживаемых запросов,
+     * ставит генерацию и отрисовку в очередь пула, дожидается результата и сам кодирует и передаёт ответ.
+     * Место освобождается после передачи ответа.
+     *
+     * @param exchange запрос и ответ
+     * @param kind вид ответа
+     */
+    private void handle(HttpExchange exchange, Kind kind) {
+        String path = exchange.getRequestURI().getPath();
+        try {
+            if (!path.equals(kind == Kind.PNG ? PNG_PATH : SCENE_PATH)) {
+                sendText(exchange, 404, "Не найдено: " + path);
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                sendText(exchange, 405, "Поддерживается только GET");
+                return;
+            }
+            Request request;
+            try {
+                request = parseQuery(exchange.getRequestURI().getRawQuery(), options.maxPixels(), options.maxCount());
+            } catch (IllegalArgumentException e) {
+                sendText(exchange, 400, e.getMessage());
+                return;
+            }
+
+            if (!inFlight.tryAcquire()) {
+                reject(exchange);
+                return;
+            }
+            long queued = System.nanoTime();
+            try {
+                if (kind == Kind.PNG) {
+                    sendPng(exchange, request, execute(() -> render(request)));
+                } else {
+                    sendScene(exchange, request, execute(() -> FigureGenerator.generate(request.params(), false)));
+                }
+                Metrics.SERVER_REQUEST.record(System.nanoTime() - queued);
+            } catch (RejectedExecutionException e) {
+                reject(exchange);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                logger.error("Ошибка обработки запроса {}", exchange.getRequestURI(), cause);
+                sendText(exchange, 500, "Ошибка отрисовки: " + cause.getMessage());
+            } finally {
+                inFlight.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.debug("Передача ответа на {} прервана: {}", exchange.getRequestURI(), e.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Отклоняет запрос ответом 503 с заголовком {@code Retry-After}.
+     *
+     * @param exchange запрос и ответ
+     * @throws IOException при ошибке передачи
+     */
+    private void reject(HttpExchange exchange) throws IOException {
+        Metrics.SERVER_REJECTED.increment();
+        exchange.getResponseHeaders().set("Retry-After", Long.toString(retryAfterSeconds()));
+        sendText(exchange, 503, "Сервер занят, повторите запрос позже");
+    }
+
+    /**
+     * Выполняет работу в пуле отрисовки и дожидается результата. Время работы учитывается
+     * в оценке {@code Retry-After}.
+     *
+     * @param work генерация или отрисовка
+     * @param <T> тип результата
+     * @return результат работы
+     * @throws RejectedExecutionException если очередь пула заполнена
+     * @throws ExecutionException если работа завершилась ошибкой
+     * @throws InterruptedException если поток запроса прерван (работа при этом отменяется)
+     */
+    private <T> T execute(Callable<T> work) throws ExecutionException, InterruptedException {
+        Future<T> task = workers.submit(() -> {
+            long started = System.nanoTime();
+            try {
+                return work.call();
+            } finally {
+                served.incrementAndGet();
+                servedNanos.addAndGet(System.nanoTime() - started);
+            }
+        });
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Отрисовывает рисунок или берёт его из кэша. Выполняется в пуле отрисовки.
+     *
+     * @param request разобранный запрос
+     * @return пиксели ARGB
+     */
+    private int[] render(Request request) {
+        GenerationParams params = request.params();
+        int width = request.width();
+        int height = request.height();
+        return cache != null && request.seeded()
+                ? cache.get(new RenderCache.Key(RenderCache.RASTER, params, width, height),
+                        () -> rasterize(params, width, height))
+                : rasterize(params, width, height);
+    }
+
+    /**
+     * Кодирует рисунок в PNG и передаёт его полосами по мере кодирования. Выполняется в потоке запроса.
+     *
+     * @param exchange запрос и ответ
+     * @param request разобранный запрос
+     * @param pixels пиксели ARGB
+     * @throws IOException при ошибке передачи
+     */
+    private static void sendPng(HttpExchange exchange, Request request, int[] pixels) throws IOException {
+        int width = request.width();
+        int height = request.height();
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "image/png");
+        headers.set("X-Seed", Long.toString(request.params().seed()));
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = new BufferedOutputStream(exchange.getResponseBody(), 1 << 16);
+             PngStreamWriter writer = new PngStreamWriter(out, width, height, COMPRESSION, false)) {
+            byte[] raw = new byte[PngStreamWriter.rawBandSize(width, Math.min(BAND_ROWS, height))];
+            for (int y = 0; y < height; y += BAND_ROWS) {
+                int rows = Math.min(BAND_ROWS, height - y);
+                int length = PngStreamWriter.filterRows(pixels, y * width, width, rows, raw);
+                writer.writeRows(raw, length, rows);
+            }
+        }
+    }
+
+    /**
+     * Передаёт сцену в формате {@link SceneFile}. Выполняется в потоке запроса.
+     *
+     * @param exchange запрос и ответ
+     * @param request разобранный запрос
+     * @param batch сгенерированная сцена
+     * @throws IOException при ошибке передачи
+     */
+    private static void sendScene(HttpExchange exchange, Request request, FigureBatch batch) throws IOException {
+        GenerationParams params = request.params();
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "application/octet-stream");
+        headers.set("Content-Disposition", "attachment; filename=\"figures_seed" + params.seed() + ".scene\"");
+        headers.set("X-Seed", Long.toString(params.seed()));
+        headers.set("X-Figures", Integer.toString(batch.size()));
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            SceneFile.write(Channels.newChannel(out), params, batch);
+        }
+    }
+
+    /**
+     * Отвечает текстовым отчётом метрик и состоянием очереди.
+     *
+     * @param exchange запрос и ответ
+     */
+    private void handleMetrics(HttpExchange exchange) {
+        try {
+            int limit = options.workers() + options.queue();
+            String report = Metrics.dump() + String.format(Locale.ROOT,
+                    "%-20s %d/%d%n%-20s %d/%d%n%-20s %d/%d%n%-20s %d%n",
+                    "server.queue", workers.getQueue().size(), options.queue(),
+                    "server.active", workers.getActiveCount(), options.workers(),
+                    "server.inflight", limit - inFlight.availablePermits(), limit,
+                    "server.served", served.get())
+                    + (cache != null ? String.format(Locale.ROOT, "%-20s %s%n", "server.cache", cache.stats()) : "");
+            sendText(exchange, 200, report);
+        } catch (IOException e) {
+            logger.debug("Не удалось отправить метрики: {}", e.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Оценивает, через сколько секунд стоит повторить отклонённый запрос: время, за которое пул
+     * выполнит уже принятые и ещё не переданные запросы при среднем времени обработки
+     * (до первого запроса — секунда на запрос).
+     *
+     * @return задержка повтора в секундах, не меньше 1
+     */
+    private long retryAfterSeconds() {
+        long count = served.get();
+        double meanNanos = count == 0 ? 1e9 : (double) servedNanos.get() / count;
+        double pending = options.workers() + options.queue() - inFlight.availablePermits();
+        return Math.max(1, (long) Math.ceil(pending * meanNanos / options.workers() / 1e9));
+    }
+
+    /**
+     * Генерирует сцену и отрисовывает её в растр.
+     *
+     * @param params параметры генерации
+     * @param width ширина изображения
+     * @param height высота изображения
+     * @return пиксели ARGB
+     */
+    private static int[] rasterize(GenerationParams params, int width, int height) {
+        RasterRenderTarget target = new RasterRenderTarget(width, height);
+        DrawingRenderer.drawBatch(target, FigureGenerator.generate(params, false), params.viewport(width, height),
+                params.showGrid());
+        return target.getPixels();
+    }
+
+    /**
+     * Отправляет текстовый ответ целиком.
+     *
+     * @param exchange запрос и ответ
+     * @param status код ответа
+     * @param text текст ответа
+     * @throws IOException при ошибке передачи
+     */
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Создаёт исполнитель с отдельным потоком на каждую задачу: виртуальными потоками, если среда
+     * выполнения их поддерживает (Java 21+), иначе — кэширующим пулом потоков-демонов. Метод ищется
+     * через отражение, поэтому код собирается и на Java 17.
+     *
+     * @param prefix префикс имени потока (для обычных потоков)
+     * @return исполнитель
+     */
+    static ExecutorService newRequestExecutor(String prefix) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            logger.debug("Виртуальные потоки недоступны, используются обычные: {}", e.toString());
+            return Executors.newCachedThreadPool(named(prefix));
+        }
+    }
+
+    /**
+     * Создаёт фабрику потоков-демонов с заданным префиксом имени.
+     *
+     * @param prefix префикс имени потока
+     * @return фабрика потоков
+     */
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
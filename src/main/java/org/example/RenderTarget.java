@@ -0,0 +1,93 @@
+package org.example;
+
+/**
+ * Общий интерфейс поверхности рисования, через который {@link DrawingRenderer} выводит сетку и фигуры.
+ * Позволяет использовать один и тот же код отрисовки с растром без дисплея и потока JavaFX
+ * ({@link RasterRenderTarget}) и с векторным выводом в SVG ({@link SvgRenderTarget}).
+ * Все координаты задаются в пикселях. Массивы вершин, переданные в {@link #strokePolygon}
+ * и {@link #strokePolyline}, вызывающий переиспользует после возврата, поэтому реализации
+ * не должны сохранять ссылки на них.
+ */
+public interface RenderTarget {
+
+    /**
+     * @return ширина поверхности в пикселях
+     */
+    double getWidth();
+
+    /**
+     * @return высота поверхности в пикселях
+     */
+    double getHeight();
+
+    /**
+     * Заливает всю поверхность указанным цветом.
+     *
+     * @param argb цвет в формате 0xAARRGGBB
+     */
+    void clear(int argb);
+
+    /**
+     * Устанавливает цвет обводки для последующих операций.
+     *
+     * @param rgb цвет в формате 0xRRGGBB
+     */
+    void setStroke(int rgb);
+
+    /**
+     * Рисует отрезок между двумя точками.
+     *
+     * @param x1 X первой точки
+     * @param y1 Y первой точки
+     * @param x2 X второй точки
+     * @param y2 Y второй точки
+     */
+    void strokeLine(double x1, double y1, double x2, double y2);
+
+    /**
+     * Рисует контур эллипса, вписанного в прямоугольник.
+     *
+     * @param x левая граница прямоугольника
+     * @param y верхняя граница прямоугольника
+     * @param w ширина прямоугольника
+     * @param h высота прямоугольника
+     */
+    void strokeOval(double x, double y, double w, double h);
+
+    /**
+     * Рисует контур прямоугольника.
+     *
+     * @param x левая граница
+     * @param y верхняя граница
+     * @param w ширина
+     * @param h высота
+     */
+    void strokeRect(double x, double y, double w, double h);
+
+    /**
+     * Рисует замкнутый многоугольник.
+     *
+     * @param xs X-координаты вершин
+     * @param ys Y-координаты вершин
+     * @param n количество вершин
+     */
+    void strokePolygon(double[] xs, double[] ys, int n);
+
+    /**
+     * Рисует незамкнутую ломаную.
+     *
+     * @param xs X-координаты вершин
+     * @param ys Y-координаты вершин
+     * @param n количество вершин
+     */
+    void strokePolyline(double[] xs, double[] ys, int n);
+
+    /**
+     * Закрашивает один пиксель, содержащий точку, текущим цветом обводки.
+     * Используется для фигур, которые на экране меньше пикселя.
+     *
+     * @param x X точки
+     * @param y Y точки
+     */
+    void plot(double x, double y);
+}
@@ -0,0 +1,395 @@
+package org.example;
+
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Двоичный формат файла сцены ({@code .scene}) — сохранение и загрузка сгенерированных фигур,
+ * чтобы сцену можно было перерисовать в любом разрешении без повторной генерации.
+ * <p>
+ * Все числа записываются в порядке little-endian. Файл состоит из заголовка фиксированной длины
+ * и пяти столбцов данных, повторяющих столбцы {@link FigureBatch}:
+ * <pre>
+ *   0  magic "FGSC"            4 байта
+ *   4  версия формата          int
+ *   8  длина заголовка         int
+ *  12  количество фигур        int
+ *  16  запрошенное количество  int   (GenerationParams.count)
+ *  20  флаги                   int   (бит 0 — показывать сетку, бит 1 — без наложения)
+ *  24  xMin, xMax, yMin, yMax  4 × double
+ *  56  кучность                double
+ *  64  зерно                   long
+ *  72  количество типов        int
+ *  76  порядковые номера типов до 16 байт, в порядке списка
+ *  96  смещения столбцов       5 × long (типы, центр X, центр Y, размер, цвет)
+ * 136  размещение              int   (Placement.ordinal, с версии 2; в версии 1 — всегда UNIFORM)
+ * </pre>
+ * Столбец типов занимает 1 байт на фигуру, остальные — по 4 байта (float или int 0xRRGGBB);
+ * каждый столбец выровнен по 8 байтам. Запись последовательная ({@link #write}), поэтому сцену можно
+ * передать не только в файл, но и в поток (например, в ответ HTTP);
+ * загрузка — отображением файла в память ({@link #open(Path)}): данные не копируются в кучу
+ * и подгружаются операционной системой по мере обращения.
+ */
+public final class SceneFile {
+
+    private static final Logger logger = LoggingConfig.getLogger(SceneFile.class);
+
+    /**
+     * Сигнатура файла сцены.
+     */
+    private static final int MAGIC = 'F' | 'G' << 8 | 'S' << 16 | 'C' << 24;
+
+    /**
+     * Текущая версия формата.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * Длина заголовка в байтах (с резервом под будущие поля).
+     */
+    static final int HEADER_BYTES = 256;
+
+    /**
+     * Порядок байтов всех чисел в файле.
+     */
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * Наибольшее количество типов фигур, помещающееся в заголовок.
+     */
+    private static final int MAX_TYPES = 16;
+
+    /**
+     * Количество столбцов данных.
+     */
+    private static final int COLUMNS = 5;
+
+    /**
+     * Размер элемента каждого столбца в байтах.
+     */
+    private static final int[] COLUMN_BYTES = {Byte.BYTES, Float.BYTES, Float.BYTES, Float.BYTES, Integer.BYTES};
+
+    /**
+     * Наибольшее количество фигур: каждый столбец отображается одним буфером размером до 2 ГБ.
+     */
+    public static final int MAX_FIGURES = Integer.MAX_VALUE / Float.BYTES;
+
+    /**
+     * Размер буфера записи в байтах.
+     */
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    private static final FigureType[] TYPES = FigureType.values();
+
+    private static final Placement[] PLACEMENTS = Placement.values();
+
+    private SceneFile() {
+    }
+
+    /**
+     * Сцена, отображённая из файла в память. Фигуры читаются прямо из отображённых буферов,
+     * поэтому открытие не зависит от размера сцены, а куча не расходуется на данные фигур.
+     * Отображение освобождается сборщиком мусора, когда объект становится недостижим.
+     * Файл не должен изменяться, пока сцена используется.
+     */
+    public static final class MappedScene implements FigureSource {
+
+        private final GenerationParams params;
+        private final int size;
+        private final ByteBuffer types;
+        private final ByteBuffer centerX;
+        private final ByteBuffer centerY;
+        private final ByteBuffer sizes;
+        private final ByteBuffer colors;
+        private final FloatBuffer centerXFloats;
+        private final FloatBuffer centerYFloats;
+        private final FloatBuffer sizeFloats;
+
+        private MappedScene(GenerationParams params, int size, ByteBuffer[] columns) {
+            this.params = params;
+            this.size = size;
+            this.types = columns[0];
+            this.centerX = columns[1];
+            this.centerY = columns[2];
+            this.sizes = columns[3];
+            this.colors = columns[4];
+            this.centerXFloats = centerX.asFloatBuffer();
+            this.centerYFloats = centerY.asFloatBuffer();
+            this.sizeFloats = sizes.asFloatBuffer();
+        }
+
+        /**
+         * @return параметры генерации, сохранённые в заголовке
+         */
+        public GenerationParams params() {
+            return params;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public FigureType type(int index) {
+            return TYPES[types.get(index)];
+        }
+
+        @Override
+        public int typeOrdinal(int index) {
+            return types.get(index);
+        }
+
+        @Override
+        public float centerX(int index) {
+            return centerX.getFloat(index << 2);
+        }
+
+        @Override
+        public float centerY(int index) {
+            return centerY.getFloat(index << 2);
+        }
+
+        @Override
+        public float size(int index) {
+            return sizes.getFloat(index << 2);
+        }
+
+        @Override
+        public int rgb(int index) {
+            return colors.getInt(index << 2);
+        }
+
+        @Override
+        public void copyGeometry(int from, int n, float[] centersX, float[] centersY, float[] figureSizes) {
+            centerXFloats.get(from, centersX, 0, n);
+            centerYFloats.get(from, centersY, 0, n);
+            sizeFloats.get(from, figureSizes, 0, n);
+        }
+
+        /**
+         * @return объём отображённых данных фигур в байтах
+         */
+        public long mappedBytes() {
+            return (long) size * FigureBatch.BYTES_PER_FIGURE;
+        }
+    }
+
+    /**
+     * Сохраняет сцену в файл, перезаписывая его.
+     *
+     * @param file путь к файлу
+     * @param params параметры, которыми сцена была сгенерирована
+     * @param scene фигуры сцены (их количество может быть меньше {@code params.count()}, например после отмены загрузки)
+     * @throws IOException при ошибке записи
+     */
+    public static void save(Path file, GenerationParams params, FigureSource scene) throws IOException {
+        long started = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(channel, params, scene);
+        }
+        logger.info("Сцена ({} фигур) сохранена в {} за {} мс", scene.size(), file,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Записывает сцену в канал последовательно, от заголовка до последнего столбца, —
+     * например, в ответ HTTP по мере формирования. Байты совпадают с файлом {@link #save}.
+     *
+     * @param channel канал записи (не закрывается)
+     * @param params параметры, которыми сцена была сгенерирована
+     * @param scene фигуры сцены
+     * @throws IOException при ошибке записи
+     */
+    public static void write(WritableByteChannel channel, GenerationParams params, FigureSource scene)
+            throws IOException {
+        int n = scene.size();
+        if (n > MAX_FIGURES) {
+            throw new IllegalArgumentException("Слишком много фигур для файла сцены: " + n);
+        }
+        if (params.allowedTypes().size() > MAX_TYPES) {
+            throw new IllegalArgumentException("Слишком много типов фигур: " + params.allowedTypes().size());
+        }
+        long[] offsets = columnOffsets(n);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ORDER);
+        writeHeader(buffer, params, n, offsets);
+        long position = HEADER_BYTES;
+        for (int column = 0; column < COLUMNS; column++) {
+            // Выравнивание столбца: не больше 7 нулевых байт, буфер после сброса пуст
+            for (; position < offsets[column]; position++) {
+                buffer.put((byte) 0);
+            }
+            int bytes = COLUMN_BYTES[column];
+            for (int i = 0; i < n; i++) {
+                if (buffer.remaining() < bytes) {
+                    flush(channel, buffer);
+                }
+                switch (column) {
+                    case 0 -> buffer.put((byte) scene.typeOrdinal(i));
+                    case 1 -> buffer.putFloat(scene.centerX(i));
+                    case 2 -> buffer.putFloat(scene.centerY(i));
+                    case 3 -> buffer.putFloat(scene.size(i));
+                    default -> buffer.putInt(scene.rgb(i));
+                }
+            }
+            position += (long) n * bytes;
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Открывает файл сцены, отображая столбцы данных в память. Файл читается лениво:
+     * открытие занимает постоянное время, страницы подгружаются при отрисовке.
+     *
+     * @param file путь к файлу
+     * @return отображённая сцена
+     * @throws IOException при ошибке чтения или если файл не является сценой поддерживаемой версии
+     */
+    public static MappedScene open(Path file) throws IOException {
+        long started = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("Файл слишком мал для сцены: " + file);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ORDER);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("Неожиданный конец файла: " + file);
+                }
+            }
+            header.flip();
+
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Файл не является сценой: " + file);
+            }
+            int version = header.getInt(4);
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Неподдерживаемая версия файла сцены: " + version);
+            }
+            int headerBytes = header.getInt(8);
+            int n = header.getInt(12);
+            if (headerBytes < HEADER_BYTES || n < 0 || n > MAX_FIGURES) {
+                throw new IOException("Повреждён заголовок файла сцены: " + file);
+            }
+            GenerationParams params = readParams(header);
+
+            ByteBuffer[] columns = new ByteBuffer[COLUMNS];
+            for (int column = 0; column < COLUMNS; column++) {
+                long offset = header.getLong(96 + column * Long.BYTES);
+                long length = (long) n * COLUMN_BYTES[column];
+                if (offset < headerBytes || offset + length > fileSize) {
+                    throw new IOException("Столбец " + column + " выходит за пределы файла: " + file);
+                }
+                columns[column] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ORDER);
+            }
+            logger.info("Сцена {} ({} фигур) открыта за {} мс", file, n, (System.nanoTime() - started) / 1_000_000);
+            return new MappedScene(params, n, columns);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Некорректные параметры в файле сцены: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Вычисляет смещения столбцов: сразу за заголовком, каждый с выравниванием по 8 байтам.
+     *
+     * @param n количество фигур
+     * @return смещения столбцов в байтах
+     */
+    private static long[] columnOffsets(int n) {
+        long[] offsets = new long[COLUMNS];
+        long position = HEADER_BYTES;
+        for (int column = 0; column < COLUMNS; column++) {
+            offsets[column] = position;
+            position = (position + (long) n * COLUMN_BYTES[column] + 7) & ~7L;
+        }
+        return offsets;
+    }
+
+    /**
+     * Записывает заголовок в буфер.
+     *
+     * @param buffer буфер записи (пустой)
+     * @param params параметры генерации
+     * @param n количество фигур
+     * @param offsets смещения столбцов
+     */
+    private static void writeHeader(ByteBuffer buffer, GenerationParams params, int n, long[] offsets) {
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(HEADER_BYTES).putInt(n)
+                .putInt(params.count()).putInt((params.showGrid() ? 1 : 0) | (params.noOverlap() ? 2 : 0))
+                .putDouble(params.xMin()).putDouble(params.xMax())
+                .putDouble(params.yMin()).putDouble(params.yMax())
+                .putDouble(params.density()).putLong(params.seed());
+        List<FigureType> types = params.allowedTypes();
+        buffer.putInt(types.size());
+        for (int k = 0; k < MAX_TYPES; k++) {
+            buffer.put(k < types.size() ? (byte) types.get(k).ordinal() : 0);
+        }
+        buffer.position(96);
+        for (long offset : offsets) {
+            buffer.putLong(offset);
+        }
+        buffer.putInt(params.placement().ordinal());
+        buffer.position(HEADER_BYTES);
+    }
+
+    /**
+     * Восстанавливает параметры генерации из заголовка.
+     *
+     * @param header заголовок файла
+     * @return параметры генерации
+     * @throws IOException если список типов повреждён
+     */
+    private static GenerationParams readParams(ByteBuffer header) throws IOException {
+        int typeCount = header.getInt(72);
+        if (typeCount < 1 || typeCount > MAX_TYPES) {
+            throw new IOException("Повреждён список типов фигур: " + typeCount);
+        }
+        List<FigureType> types = new ArrayList<>(typeCount);
+        for (int k = 0; k < typeCount; k++) {
+            int ordinal = header.get(76 + k);
+            if (ordinal < 0 || ordinal >= TYPES.length) {
+                throw new IOException("Неизвестный тип фигуры: " + ordinal);
+            }
+            types.add(TYPES[ordinal]);
+        }
+        Placement placement = Placement.UNIFORM;
+        if (header.getInt(4) >= 2) {
+            int ordinal = header.getInt(136);
+            if (ordinal < 0 || ordinal >= PLACEMENTS.length) {
+                throw new IOException("Неизвестный способ размещения: " + ordinal);
+            }
+            placement = PLACEMENTS[ordinal];
+        }
+        return new GenerationParams(header.getInt(16), header.getDouble(24), header.getDouble(32),
+                header.getDouble(40), header.getDouble(48), header.getDouble(56), placement,
+                (header.getInt(20) & 2) != 0, (header.getInt(20) & 1) != 0, types, header.getLong(64));
+    }
+
+    /**
+     * Записывает накопленные байты буфера в канал и очищает буфер.
+     *
+     * @param channel канал записи
+     * @param buffer буфер записи
+     * @throws IOException при ошибке записи
+     */
+    private static void flush(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,212 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Равномерный пространственный хеш прямоугольников для проверки пересечений при размещении фигур.
+ * Плоскость делится на квадратные ячейки со стороной {@code cellSize}; прямоугольник записывается
+ * во все ячейки, которые он задевает, а проверка смотрит только ячейки проверяемого прямоугольника.
+ * Заняты лишь ячейки с прямоугольниками: ячейки хранятся в хеш-таблице с открытой адресацией
+ * по паре номеров, поэтому размер области не ограничен и не влияет на память.
+ * <p>
+ * Если прямоугольники не пересекаются, в одной ячейке их немного, и вставка и проверка
+ * выполняются за время, не зависящее от количества прямоугольников.
+ */
+public final class SpatialHash {
+
+    /**
+     * Пустой слот хеш-таблицы.
+     */
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final double cellSize;
+
+    // Хеш-таблица ячеек: ключ (столбец, строка) → первая запись списка ячейки
+    private long[] keys;
+    private int[] heads;
+    private int cells;
+
+    // Записи: номер прямоугольника и следующая запись той же ячейки
+    private int[] entryBox;
+    private int[] entryNext;
+    private int entries;
+
+    // Прямоугольники
+    private double[] minX;
+    private double[] minY;
+    private double[] maxX;
+    private double[] maxY;
+    private int boxes;
+
+    /**
+     * Создаёт пустой хеш.
+     *
+     * @param cellSize сторона ячейки (порядка типичного размера прямоугольника)
+     */
+    public SpatialHash(double cellSize) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("Размер ячейки должен быть положительным: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        keys = new long[1024];
+        Arrays.fill(keys, EMPTY);
+        heads = new int[keys.length];
+        entryBox = new int[1024];
+        entryNext = new int[1024];
+        minX = new double[256];
+        minY = new double[256];
+        maxX = new double[256];
+        maxY = new double[256];
+    }
+
+    /**
+     * @return количество добавленных прямоугольников
+     */
+    public int size() {
+        return boxes;
+    }
+
+    /**
+     * Добавляет прямоугольник.
+     *
+     * @param x0 левая граница
+     * @param y0 нижняя граница
+     * @param x1 правая граница
+     * @param y1 верхняя граница
+     */
+    public void insert(double x0, double y0, double x1, double y1) {
+        if (boxes == minX.length) {
+            int grown = boxes * 2;
+            minX = Arrays.copyOf(minX, grown);
+            minY = Arrays.copyOf(minY, grown);
+            maxX = Arrays.copyOf(maxX, grown);
+            maxY = Arrays.copyOf(maxY, grown);
+        }
+        int box = boxes++;
+        minX[box] = x0;
+        minY[box] = y0;
+        maxX[box] = x1;
+        maxY[box] = y1;
+
+        int colFrom = cell(x0), colTo = cell(x1);
+        int rowFrom = cell(y0), rowTo = cell(y1);
+        for (int row = rowFrom; row <= rowTo; row++) {
+            for (int col = colFrom; col <= colTo; col++) {
+                int slot = slotFor(key(col, row));
+                if (entries == entryBox.length) {
+                    entryBox = Arrays.copyOf(entryBox, entries * 2);
+                    entryNext = Arrays.copyOf(entryNext, entries * 2);
+                }
+                entryBox[entries] = box;
+                entryNext[entries] = heads[slot];
+                heads[slot] = ++entries;
+            }
+        }
+    }
+
+    /**
+     * Проверяет, пересекает ли прямоугольник хотя бы один добавленный (касание границей не считается).
+     *
+     * @param x0 левая граница
+     * @param y0 нижняя граница
+     * @param x1 правая граница
+     * @param y1 верхняя граница
+     * @return {@code true}, если есть пересечение
+     */
+    public boolean intersects(double x0, double y0, double x1, double y1) {
+        int colFrom = cell(x0), colTo = cell(x1);
+        int rowFrom = cell(y0), rowTo = cell(y1);
+        int mask = keys.length - 1;
+        for (int row = rowFrom; row <= rowTo; row++) {
+            for (int col = colFrom; col <= colTo; col++) {
+                long key = key(col, row);
+                for (int slot = hash(key) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+                    if (keys[slot] != key) {
+                        continue;
+                    }
+                    for (int entry = heads[slot]; entry != 0; entry = entryNext[entry - 1]) {
+                        int box = entryBox[entry - 1];
+                        if (x0 < maxX[box] && minX[box] < x1 && y0 < maxY[box] && minY[box] < y1) {
+                            return true;
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param coordinate координата
+     * @return номер ячейки по оси
+     */
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * @param col столбец ячейки
+     * @param row строка ячейки
+     * @return ключ ячейки
+     */
+    private static long key(int col, int row) {
+        return (long) col << 32 | (row & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param key ключ ячейки
+     * @return хеш ключа
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Возвращает слот ячейки, добавляя ячейку при первом обращении.
+     *
+     * @param key ключ ячейки
+     * @return слот хеш-таблицы
+     */
+    private int slotFor(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (2 * (cells + 1) > keys.length) {
+            rehash();
+            return slotFor(key);
+        }
+        keys[slot] = key;
+        heads[slot] = 0;
+        cells++;
+        return slot;
+    }
+
+    /**
+     * Удваивает хеш-таблицу ячеек.
+     */
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        heads = new int[keys.length];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                heads[slot] = oldHeads[i];
+            }
+        }
+    }
+}
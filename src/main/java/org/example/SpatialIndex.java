@@ -0,0 +1,261 @@
+package org.example;
+
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+
+/**
+ * Пространственный индекс фигур сцены — равномерная сетка в логических координатах,
+ * заполняемая за один проход (bulk load) после генерации.
+ * <p>
+ * Каждая фигура хранится в ячейке своего центра; запрос расширяет прямоугольник на наибольший размер фигуры,
+ * поэтому находит все фигуры, ограничивающий прямоугольник которых ({@code центр ± размер}) пересекает область.
+ * Ячейки хранятся в компактном виде (CSR): массив начал ячеек и общий массив индексов фигур,
+ * примерно {@value #FIGURES_PER_CELL} фигуры на ячейку — около 5 байт на фигуру.
+ * Запросы возвращают индексы по возрастанию, то есть в порядке отрисовки.
+ */
+public final class SpatialIndex {
+
+    private static final Logger logger = LoggingConfig.getLogger(SpatialIndex.class);
+
+    /**
+     * Желаемое среднее количество фигур на ячейку.
+     */
+    private static final int FIGURES_PER_CELL = 4;
+
+    /**
+     * Наибольшее количество ячеек по одной оси.
+     */
+    private static final int MAX_CELLS_PER_AXIS = 1 << 14;
+
+    private final FigureSource batch;
+    private final double originX;
+    private final double originY;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int columns;
+    private final int rows;
+    private final double maxSize;
+    private final int[] cellStart;
+    private final int[] figures;
+
+    private SpatialIndex(FigureSource batch, double originX, double originY, double cellWidth, double cellHeight,
+                         int columns, int rows, double maxSize, int[] cellStart, int[] figures) {
+        this.batch = batch;
+        this.originX = originX;
+        this.originY = originY;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.columns = columns;
+        this.rows = rows;
+        this.maxSize = maxSize;
+        this.cellStart = cellStart;
+        this.figures = figures;
+    }
+
+    /**
+     * Строит индекс по набору фигур. Размер сетки подбирается по количеству фигур и области их центров.
+     *
+     * @param batch набор фигур (не должен меняться, пока используется индекс)
+     * @return индекс
+     */
+    public static SpatialIndex build(FigureSource batch) {
+        long started = System.nanoTime();
+        int n = batch.size();
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        double maxSize = 0;
+        for (int i = 0; i < n; i++) {
+            double x = batch.centerX(i);
+            double y = batch.centerY(i);
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+            maxSize = Math.max(maxSize, batch.size(i));
+        }
+        if (n == 0) {
+            minX = minY = 0;
+            maxX = maxY = 1;
+        }
+        double spanX = Math.max(maxX - minX, 1e-9);
+        double spanY = Math.max(maxY - minY, 1e-9);
+        double targetCells = Math.max(1, (double) n / FIGURES_PER_CELL);
+        double cellSide = Math.sqrt(spanX * spanY / targetCells);
+        int columns = (int) Math.max(1, Math.min(MAX_CELLS_PER_AXIS, Math.ceil(spanX / cellSide)));
+        int rows = (int) Math.max(1, Math.min(MAX_CELLS_PER_AXIS, Math.ceil(spanY / cellSide)));
+        // Небольшой запас, чтобы максимальный центр попадал в последнюю ячейку
+        double cellWidth = spanX / columns * (1 + 1e-9);
+        double cellHeight = spanY / rows * (1 + 1e-9);
+
+        int[] cellStart = new int[columns * rows + 1];
+        int[] cellOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            int cx = clamp((int) ((batch.centerX(i) - minX) / cellWidth), columns);
+            int cy = clamp((int) ((batch.centerY(i) - minY) / cellHeight), rows);
+            int cell = cy * columns + cx;
+            cellOf[i] = cell;
+            cellStart[cell + 1]++;
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] fill = Arrays.copyOf(cellStart, columns * rows);
+        int[] figures = new int[n];
+        for (int i = 0; i < n; i++) {
+            figures[fill[cellOf[i]]++] = i;
+        }
+
+        SpatialIndex index = new SpatialIndex(batch, minX, minY, cellWidth, cellHeight,
+                columns, rows, maxSize, cellStart, figures);
+        logger.debug("Пространственный индекс: {} фигур, сетка {}x{}, {} байт ({} МБ на млн фигур), построен за {} мс",
+                n, columns, rows, index.memoryFootprintBytes(),
+                String.format("%.1f", index.bytesPerMillionFigures() / (1024.0 * 1024.0)),
+                (System.nanoTime() - started) / 1_000_000);
+        return index;
+    }
+
+    /**
+     * Находит фигуры, ограничивающий прямоугольник которых пересекает заданную область.
+     *
+     * @param xMin левая граница области в логических координатах
+     * @param yMin нижняя граница области
+     * @param xMax правая граница области
+     * @param yMax верхняя граница области
+     * @return индексы фигур по возрастанию
+     */
+    public int[] query(double xMin, double yMin, double xMax, double yMax) {
+        int n = batch.size();
+        if (n == 0 || !(xMax >= xMin) || !(yMax >= yMin)) {
+            return new int[0];
+        }
+        if (xMax + maxSize < originX || yMax + maxSize < originY
+                || xMin - maxSize > originX + columns * cellWidth || yMin - maxSize > originY + rows * cellHeight) {
+            return new int[0];
+        }
+        int c0 = clamp((int) Math.floor((xMin - maxSize - originX) / cellWidth), columns);
+        int c1 = clamp((int) Math.floor((xMax + maxSize - originX) / cellWidth), columns);
+        int r0 = clamp((int) Math.floor((yMin - maxSize - originY) / cellHeight), rows);
+        int r1 = clamp((int) Math.floor((yMax + maxSize - originY) / cellHeight), rows);
+
+        int candidates = 0;
+        for (int r = r0; r <= r1; r++) {
+            candidates += cellStart[r * columns + c1 + 1] - cellStart[r * columns + c0];
+        }
+
+        int[] result = new int[candidates];
+        int count = 0;
+        for (int r = r0; r <= r1; r++) {
+            for (int k = cellStart[r * columns + c0], end = cellStart[r * columns + c1 + 1]; k < end; k++) {
+                int i = figures[k];
+                double size = batch.size(i);
+                double x = batch.centerX(i);
+                double y = batch.centerY(i);
+                if (x + size >= xMin && x - size <= xMax && y + size >= yMin && y - size <= yMax) {
+                    result[count++] = i;
+                }
+            }
+        }
+        return sortIndices(result, count, n);
+    }
+
+    /**
+     * Находит верхнюю (отрисованную последней) фигуру, ограничивающий прямоугольник которой содержит точку.
+     * Учитывается вертикальная протяжённость конкретного типа ({@link FigureType#bottomFactor()}).
+     *
+     * @param x X точки в логических координатах
+     * @param y Y точки в логических координатах
+     * @return индекс фигуры или −1, если точка не попадает ни в одну фигуру
+     */
+    public int hitTest(double x, double y) {
+        if (batch.size() == 0) {
+            return -1;
+        }
+        int c0 = clamp((int) Math.floor((x - maxSize - originX) / cellWidth), columns);
+        int c1 = clamp((int) Math.floor((x + maxSize - originX) / cellWidth), columns);
+        int r0 = clamp((int) Math.floor((y - maxSize - originY) / cellHeight), rows);
+        int r1 = clamp((int) Math.floor((y + maxSize - originY) / cellHeight), rows);
+        int best = -1;
+        for (int r = r0; r <= r1; r++) {
+            for (int k = cellStart[r * columns + c0], end = cellStart[r * columns + c1 + 1]; k < end; k++) {
+                int i = figures[k];
+                if (i <= best) {
+                    continue;
+                }
+                double size = batch.size(i);
+                double cx = batch.centerX(i);
+                double cy = batch.centerY(i);
+                if (x >= cx - size && x <= cx + size
+                        && y >= cy + batch.type(i).bottomFactor() * size && y <= cy + size) {
+                    best = i;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Возвращает объём памяти, занимаемый индексом (без самого набора фигур).
+     *
+     * @return размер в байтах
+     */
+    public long memoryFootprintBytes() {
+        return (long) cellStart.length * Integer.BYTES + (long) figures.length * Integer.BYTES;
+    }
+
+    /**
+     * Возвращает объём памяти индекса в пересчёте на миллион фигур.
+     *
+     * @return байт на миллион фигур
+     */
+    public double bytesPerMillionFigures() {
+        return figures.length == 0 ? 0 : memoryFootprintBytes() * 1_000_000.0 / figures.length;
+    }
+
+    /**
+     * @return набор фигур, по которому построен индекс
+     */
+    public FigureSource getBatch() {
+        return batch;
+    }
+
+    /**
+     * Упорядочивает найденные индексы по возрастанию. При большой доле найденных фигур
+     * вместо сортировки используется битовая карта.
+     *
+     * @param indices найденные индексы
+     * @param count количество найденных индексов
+     * @param n общее количество фигур
+     * @return упорядоченные индексы
+     */
+    private static int[] sortIndices(int[] indices, int count, int n) {
+        if (count > n / 32) {
+            long[] bits = new long[(n + 63) >>> 6];
+            for (int k = 0; k < count; k++) {
+                bits[indices[k] >>> 6] |= 1L << indices[k];
+            }
+            int pos = 0;
+            for (int w = 0; w < bits.length; w++) {
+                long word = bits[w];
+                while (word != 0) {
+                    indices[pos++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+        } else {
+            Arrays.sort(indices, 0, count);
+        }
+        return count == indices.length ? indices : Arrays.copyOf(indices, count);
+    }
+
+    /**
+     * Ограничивает номер ячейки диапазоном {@code [0, limit)}.
+     *
+     * @param value номер ячейки
+     * @param limit количество ячеек по оси
+     * @return номер в допустимом диапазоне
+     */
+    private static int clamp(int value, int limit) {
+        return Math.max(0, Math.min(limit - 1, value));
+    }
+}
@@ -0,0 +1,288 @@
+package org.example;
+
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Реализация {@link RenderTarget}, записывающая векторное изображение SVG в поток.
+ * Элементы выводятся по мере отрисовки, поэтому память не зависит от количества фигур:
+ * сцену из файла ({@link SceneFile}) можно экспортировать, читая её прямо из отображённого буфера.
+ * Подряд идущие фигуры одного цвета объединяются в группу {@code <g stroke="...">}.
+ * <p>
+ * Ошибки записи запоминаются и выбрасываются из {@link #close()}, так как методы
+ * {@link RenderTarget} не объявляют {@link IOException}.
+ */
+public class SvgRenderTarget implements RenderTarget, Closeable {
+
+    private static final Logger logger = LoggingConfig.getLogger(SvgRenderTarget.class);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Количество знаков после запятой в координатах.
+     */
+    private static final int DECIMALS = 2;
+
+    private static final double SCALE = Math.pow(10, DECIMALS);
+
+    private final Writer out;
+    private final double width;
+    private final double height;
+    private final StringBuilder line = new StringBuilder(256);
+    private int stroke = -1;
+    private boolean groupOpen;
+    private IOException failure;
+
+    /**
+     * Создаёт поверхность и записывает открывающий тег {@code <svg>}.
+     *
+     * @param out выходной поток символов (закрывается в {@link #close()})
+     * @param width ширина изображения в пикселях
+     * @param height высота изображения в пикселях
+     */
+    public SvgRenderTarget(Writer out, double width, double height) {
+        this.out = out;
+        this.width = width;
+        this.height = height;
+        line.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"");
+        number(width).append("\" height=\"");
+        number(height).append("\" viewBox=\"0 0 ");
+        number(width).append(' ');
+        number(height).append("\" fill=\"none\" stroke-width=\"1\">\n");
+        emit();
+    }
+
+    /**
+     * Экспортирует сцену в SVG-файл.
+     *
+     * @param scene сцена
+     * @param params параметры генерации (логическая область и флаг сетки)
+     * @param width ширина изображения в пикселях
+     * @param height высота изображения в пикселях
+     * @param file путь к выходному файлу
+     * @throws IOException при ошибке записи
+     */
+    public static void export(FigureSource scene, GenerationParams params, int width, int height, Path file)
+            throws IOException {
+        long started = System.nanoTime();
+        try (SvgRenderTarget target = new SvgRenderTarget(Files.newBufferedWriter(file, StandardCharsets.UTF_8),
+                width, height)) {
+            DrawingRenderer.drawBatch(target, scene, params.viewport(width, height), params.showGrid());
+        }
+        logger.info("Экспорт SVG {}x{} ({} фигур) в {} завершён за {} мс",
+                width, height, scene.size(), file, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Экспортирует сцену из файла сцены в SVG, читая фигуры из отображённого в память файла.
+     *
+     * @param sceneFile путь к файлу сцены
+     * @param width ширина изображения в пикселях
+     * @param height высота изображения в пикселях
+     * @param file путь к выходному файлу
+     * @throws IOException при ошибке чтения или записи
+     */
+    public static void export(Path sceneFile, int width, int height, Path file) throws IOException {
+        SceneFile.MappedScene scene = SceneFile.open(sceneFile);
+        export(scene, scene.params(), width, height, file);
+    }
+
+    @Override
+    public double getWidth() {
+        return width;
+    }
+
+    @Override
+    public double getHeight() {
+        return height;
+    }
+
+    @Override
+    public void clear(int argb) {
+        closeGroup();
+        stroke = -1;
+        if ((argb >>> 24) == 0) {
+            return;
+        }
+        line.append("<rect width=\"100%\" height=\"100%\" fill=\"");
+        color(argb & 0xFFFFFF).append("\"/>\n");
+        emit();
+    }
+
+    @Override
+    public void setStroke(int rgb) {
+        rgb &= 0xFFFFFF;
+        if (rgb == stroke) {
+            return;
+        }
+        closeGroup();
+        stroke = rgb;
+        line.append("<g stroke=\"");
+        color(rgb).append("\">\n");
+        emit();
+        groupOpen = true;
+    }
+
+    @Override
+    public void strokeLine(double x1, double y1, double x2, double y2) {
+        line.append("<line x1=\"");
+        number(x1).append("\" y1=\"");
+        number(y1).append("\" x2=\"");
+        number(x2).append("\" y2=\"");
+        number(y2).append("\"/>\n");
+        emit();
+    }
+
+    @Override
+    public void strokeOval(double x, double y, double w, double h) {
+        line.append("<ellipse cx=\"");
+        number(x + w / 2).append("\" cy=\"");
+        number(y + h / 2).append("\" rx=\"");
+        number(Math.abs(w) / 2).append("\" ry=\"");
+        number(Math.abs(h) / 2).append("\"/>\n");
+        emit();
+    }
+
+    @Override
+    public void strokeRect(double x, double y, double w, double h) {
+        line.append("<rect x=\"");
+        number(Math.min(x, x + w)).append("\" y=\"");
+        number(Math.min(y, y + h)).append("\" width=\"");
+        number(Math.abs(w)).append("\" height=\"");
+        number(Math.abs(h)).append("\"/>\n");
+        emit();
+    }
+
+    @Override
+    public void strokePolygon(double[] xs, double[] ys, int n) {
+        points("<polygon points=\"", xs, ys, n);
+    }
+
+    @Override
+    public void strokePolyline(double[] xs, double[] ys, int n) {
+        points("<polyline points=\"", xs, ys, n);
+    }
+
+    @Override
+    public void plot(double x, double y) {
+        line.append("<rect x=\"");
+        number(Math.floor(x)).append("\" y=\"");
+        number(Math.floor(y)).append("\" width=\"1\" height=\"1\" stroke=\"none\" fill=\"");
+        color(Math.max(stroke, 0)).append("\"/>\n");
+        emit();
+    }
+
+    /**
+     * Закрывает открытую группу и тег {@code <svg>}, затем закрывает поток.
+     *
+     * @throws IOException если при записи произошла ошибка
+     */
+    @Override
+    public void close() throws IOException {
+        closeGroup();
+        line.append("</svg>\n");
+        emit();
+        try {
+            out.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Выводит многоугольник или ломаную.
+     *
+     * @param open открывающая часть элемента
+     * @param xs X-координаты вершин
+     * @param ys Y-координаты вершин
+     * @param n количество вершин
+     */
+    private void points(String open, double[] xs, double[] ys, int n) {
+        line.append(open);
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                line.append(' ');
+            }
+            number(xs[i]).append(',');
+            number(ys[i]);
+        }
+        line.append("\"/>\n");
+        emit();
+    }
+
+    /**
+     * Закрывает группу цвета, если она открыта.
+     */
+    private void closeGroup() {
+        if (groupOpen) {
+            line.append("</g>\n");
+            emit();
+            groupOpen = false;
+        }
+    }
+
+    /**
+     * Дописывает число с {@link #DECIMALS} знаками после запятой без лишних нулей.
+     * Не использует {@link String#format}, который заметно медленнее на миллионах координат.
+     *
+     * @param value число
+     * @return буфер текущей строки
+     */
+    private StringBuilder number(double value) {
+        long scaled = Math.round(value * SCALE);
+        if (scaled < 0) {
+            line.append('-');
+            scaled = -scaled;
+        }
+        long whole = scaled / (long) SCALE;
+        long fraction = scaled % (long) SCALE;
+        line.append(whole);
+        if (fraction != 0) {
+            line.append('.');
+            for (long digit = (long) SCALE / 10; digit > 0 && fraction != 0; digit /= 10) {
+                line.append((char) ('0' + fraction / digit));
+                fraction %= digit;
+            }
+        }
+        return line;
+    }
+
+    /**
+     * Дописывает цвет в виде {@code #rrggbb}.
+     *
+     * @param rgb цвет в формате 0xRRGGBB
+     * @return буфер текущей строки
+     */
+    private StringBuilder color(int rgb) {
+        line.append('#');
+        for (int shift = 20; shift >= 0; shift -= 4) {
+            line.append(HEX[(rgb >>> shift) & 0xF]);
+        }
+        return line;
+    }
+
+    /**
+     * Передаёт накопленную строку в поток. После первой ошибки записи вывод прекращается.
+     */
+    private void emit() {
+        if (failure == null) {
+            try {
+                out.append(line);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        line.setLength(0);
+    }
+}
@@ -0,0 +1,217 @@
+package org.example;
+
+/**
+ * Разбиение фигур по прямоугольным плиткам холста.
+ * Фигура попадает во все плитки, которые пересекает её ограничивающий прямоугольник в пикселях;
+ * внутри плитки индексы фигур идут по возрастанию, то есть в исходном порядке отрисовки.
+ * Хранится в компактном виде (CSR): массив начал списков и общий массив индексов.
+ */
+final class TileBins {
+
+    /**
+     * Количество фигур, границы которых вычисляются за один пакетный вызов.
+     */
+    private static final int BLOCK = 1024;
+
+    private final int tileWidth;
+    private final int tileHeight;
+    private final int columns;
+    private final int rows;
+    private final int[] start;
+    private final int[] figures;
+
+    private TileBins(int tileWidth, int tileHeight, int columns, int rows, int[] start, int[] figures) {
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.columns = columns;
+        this.rows = rows;
+        this.start = start;
+        this.figures = figures;
+    }
+
+    /**
+     * Раскладывает фигуры набора по плиткам двумя проходами (подсчёт и заполнение).
+     * Фигуры, целиком лежащие вне холста, не попадают ни в одну плитку.
+     *
+     * @param batch набор фигур
+     * @param viewport соответствие логических координат пикселям холста
+     * @param tileWidth ширина плитки в пикселях
+     * @param tileHeight высота плитки в пикселях
+     * @return разбиение по плиткам
+     */
+    static TileBins build(FigureSource batch, Viewport viewport, int tileWidth, int tileHeight) {
+        int width = (int) Math.ceil(viewport.getWidth());
+        int height = (int) Math.ceil(viewport.getHeight());
+        int columns = Math.max(1, (width + tileWidth - 1) / tileWidth);
+        int rows = Math.max(1, (height + tileHeight - 1) / tileHeight);
+        Bounds bounds = new Bounds(batch, viewport);
+        int[] range = new int[4];
+
+        int[] start = new int[columns * rows + 1];
+        long total = 0;
+        for (int from = 0; from < bounds.figures; from += BLOCK) {
+            int n = bounds.load(from);
+            for (int k = 0; k < n; k++) {
+                if (!tileRange(bounds, k, tileWidth, tileHeight, columns, rows, range)) {
+                    continue;
+                }
+                for (int ty = range[1]; ty <= range[3]; ty++) {
+                    for (int tx = range[0]; tx <= range[2]; tx++) {
+                        start[ty * columns + tx + 1]++;
+                    }
+                }
+                total += (long) (range[2] - range[0] + 1) * (range[3] - range[1] + 1);
+            }
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Слишком много пар фигура–плитка: " + total);
+        }
+        for (int t = 0; t < columns * rows; t++) {
+            start[t + 1] += start[t];
+        }
+
+        int[] figures = new int[(int) total];
+        int[] fill = new int[columns * rows];
+        System.arraycopy(start, 0, fill, 0, fill.length);
+        for (int from = 0; from < bounds.figures; from += BLOCK) {
+            int n = bounds.load(from);
+            for (int k = 0; k < n; k++) {
+                if (!tileRange(bounds, k, tileWidth, tileHeight, columns, rows, range)) {
+                    continue;
+                }
+                for (int ty = range[1]; ty <= range[3]; ty++) {
+                    for (int tx = range[0]; tx <= range[2]; tx++) {
+                        figures[fill[ty * columns + tx]++] = from + k;
+                    }
+                }
+            }
+        }
+        return new TileBins(tileWidth, tileHeight, columns, rows, start, figures);
+    }
+
+    /**
+     * Ограничивающие прямоугольники блока фигур в пикселях. Границы вычисляются пакетно
+     * ({@link Viewport#toPixelsX}, {@link Viewport#toPixelsY}) для {@link #BLOCK} фигур за раз
+     * и совпадают с покоординатным преобразованием.
+     */
+    private static final class Bounds {
+
+        private final FigureSource batch;
+        private final Viewport viewport;
+        private final int figures;
+        private final float[] centersX = new float[BLOCK];
+        private final float[] centersY = new float[BLOCK];
+        private final float[] sizes = new float[BLOCK];
+        private final double[] left = new double[BLOCK];
+        private final double[] right = new double[BLOCK];
+        private final double[] top = new double[BLOCK];
+        private final double[] bottom = new double[BLOCK];
+
+        private Bounds(FigureSource batch, Viewport viewport) {
+            this.batch = batch;
+            this.viewport = viewport;
+            this.figures = batch.size();
+        }
+
+        /**
+         * Вычисляет границы фигур блока, начинающегося с индекса {@code from}.
+         *
+         * @param from индекс первой фигуры блока
+         * @return количество фигур в блоке
+         */
+        private int load(int from) {
+            int n = Math.min(BLOCK, figures - from);
+            batch.copyGeometry(from, n, centersX, centersY, sizes);
+            viewport.toPixelsX(centersX, sizes, -1, left, n);
+            viewport.toPixelsX(centersX, sizes, 1, right, n);
+            viewport.toPixelsY(centersY, sizes, 1, top, n);
+            viewport.toPixelsY(centersY, sizes, -1, bottom, n);
+            return n;
+        }
+    }
+
+    /**
+     * Вычисляет диапазон плиток, пересекаемых ограничивающим прямоугольником фигуры.
+     * Все типы фигур укладываются в квадрат {@code центр ± размер}; к нему добавляется запас в один пиксель
+     * на округление координат при растеризации.
+     *
+     * @param bounds границы фигур текущего блока
+     * @param k позиция фигуры в блоке
+     * @param tileWidth ширина плитки
+     * @param tileHeight высота плитки
+     * @param columns количество столбцов плиток
+     * @param rows количество строк плиток
+     * @param range выходной массив {@code [tx0, ty0, tx1, ty1]} (включительно)
+     * @return {@code false}, если фигура не пересекает холст
+     */
+    private static boolean tileRange(Bounds bounds, int k, int tileWidth, int tileHeight, int columns, int rows,
+                                     int[] range) {
+        double ax = bounds.left[k];
+        double bx = bounds.right[k];
+        double ay = bounds.top[k];
+        double by = bounds.bottom[k];
+        double minX = Math.floor(Math.min(ax, bx)) - 1;
+        double maxX = Math.floor(Math.max(ax, bx)) + 1;
+        double minY = Math.floor(Math.min(ay, by)) - 1;
+        double maxY = Math.floor(Math.max(ay, by)) + 1;
+        if (maxX < 0 || maxY < 0 || minX >= (double) columns * tileWidth || minY >= (double) rows * tileHeight) {
+            return false;
+        }
+        range[0] = (int) Math.max(0, minX / tileWidth);
+        range[1] = (int) Math.max(0, minY / tileHeight);
+        range[2] = (int) Math.min(columns - 1, maxX / tileWidth);
+        range[3] = (int) Math.min(rows - 1, maxY / tileHeight);
+        return true;
+    }
+
+    /**
+     * @return ширина плитки в пикселях
+     */
+    int tileWidth() {
+        return tileWidth;
+    }
+
+    /**
+     * @return высота плитки в пикселях
+     */
+    int tileHeight() {
+        return tileHeight;
+    }
+
+    /**
+     * @return количество столбцов плиток
+     */
+    int columns() {
+        return columns;
+    }
+
+    /**
+     * @return количество строк плиток
+     */
+    int rows() {
+        return rows;
+    }
+
+    /**
+     * @param tile номер плитки ({@code ty * columns + tx})
+     * @return позиция начала списка фигур плитки в {@link #figures()}
+     */
+    int start(int tile) {
+        return start[tile];
+    }
+
+    /**
+     * @param tile номер плитки
+     * @return позиция конца (не включительно) списка фигур плитки в {@link #figures()}
+     */
+    int end(int tile) {
+        return start[tile + 1];
+    }
+
+    /**
+     * @return общий массив индексов фигур по всем плиткам
+     */
+    int[] figures() {
+        return figures;
+    }
+}
@@ -0,0 +1,345 @@
+package org.example;
+
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Экспорт сцены в пирамиду плиток для просмотрщиков с глубоким масштабированием
+ * (OpenSeadragon, Leaflet и т. п.): изображение заданного размера и его уменьшенные вдвое копии
+ * режутся на плитки {@value #TILE_SIZE}×{@value #TILE_SIZE} в PNG.
+ * <p>
+ * Каждый уровень рисуется заново из данных сцены в своём масштабе, а не уменьшением более детального:
+ * фигуры плитки выбираются пространственным индексом ({@link SpatialIndex}) по её прямоугольнику,
+ * поэтому плитка обрабатывает только задевающие её фигуры. Плитки уровня растеризуются и сжимаются
+ * параллельно; одновременно в работе не больше {@code 2 · workers} плиток, так что память зависит
+ * от размера сцены, но не от размера изображения.
+ * <p>
+ * Уровни обходятся от грубого к детальному. Плитка без фигур (и без сетки) не записывается; все её
+ * потомки на более детальных уровнях тоже пусты и пропускаются без запроса к индексу — пустые области
+ * огромной пирамиды почти ничего не стоят. Просмотрщик показывает на месте отсутствующих плиток свой фон.
+ */
+public class TilePyramidExporter {
+
+    private static final Logger logger = LoggingConfig.getLogger(TilePyramidExporter.class);
+
+    /**
+     * Сторона плитки в пикселях.
+     */
+    public static final int TILE_SIZE = 256;
+
+    /**
+     * Размещение файлов пирамиды.
+     */
+    public enum Layout {
+
+        /**
+         * Deep Zoom: описание {@code имя.dzi} и плитки {@code имя_files/уровень/столбец_строка.png}.
+         * Уровень 0 — изображение 1×1 пиксель, последний — полный размер; крайние плитки обрезаны по изображению.
+         */
+        DZI("Deep Zoom (DZI)"),
+
+        /**
+         * Каталог {@code z/x/y.png}: уровень 0 — одна плитка со всем изображением, каждый следующий
+         * вдвое детальнее. Все плитки полного размера, часть за пределами изображения заполняется фоном.
+         */
+        XYZ("Каталог z/x/y");
+
+        private final String label;
+
+        Layout(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * Итог экспорта.
+     *
+     * @param levels количество уровней
+     * @param written количество записанных плиток
+     * @param empty количество пустых плиток, которые не записывались
+     */
+    public record Summary(int levels, long written, long empty) {
+    }
+
+    /**
+     * Экспортирует сцену в пирамиду плиток.
+     *
+     * @param batch сцена
+     * @param params параметры генерации (логическая область и флаг сетки)
+     * @param width ширина изображения наибольшего уровня в пикселях
+     * @param height высота изображения наибольшего уровня в пикселях
+     * @param target для {@link Layout#DZI} — файл описания {@code .dzi} (плитки пишутся в соседний каталог
+     *               {@code имя_files}), для {@link Layout#XYZ} — каталог пирамиды
+     * @param layout размещение файлов
+     * @param workers количество рабочих потоков
+     * @return итог экспорта
+     * @throws IOException при ошибке записи или если каталог плиток уже содержит файлы
+     */
+    public static Summary export(FigureSource batch, GenerationParams params, int width, int height,
+                                 Path target, Layout layout, int workers) throws IOException {
+        if (width <= 0 || height <= 0 || workers < 1) {
+            throw new IllegalArgumentException("Некорректные параметры: " + width + "x" + height + ", workers=" + workers);
+        }
+        long started = System.nanoTime();
+        Path tiles = layout == Layout.DZI ? target.resolveSibling(baseName(target) + "_files") : target;
+        requireEmpty(tiles);
+
+        int longest = Math.max(width, height);
+        // Наибольшее уменьшение: до 1 пикселя (DZI) или до одной плитки (XYZ)
+        int coarsest = layout == Layout.DZI ? ceilLog2(longest) : ceilLog2((longest + TILE_SIZE - 1) / TILE_SIZE);
+        SpatialIndex index = SpatialIndex.build(batch);
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        long written = 0;
+        long empty = 0;
+        try {
+            BitSet parents = null;
+            int parentColumns = 0;
+            for (int shift = coarsest; shift >= 0; shift--) {
+                Level level = new Level(coarsest - shift, shift, width, height, params, layout);
+                BitSet occupied = renderLevel(level, parents, parentColumns, batch, index, params.showGrid(),
+                        tiles, pool, workers);
+                written += occupied.cardinality();
+                empty += (long) level.columns * level.rows - occupied.cardinality();
+                parents = occupied;
+                parentColumns = level.columns;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        if (layout == Layout.DZI) {
+            writeDescriptor(target, width, height);
+        }
+
+        logger.info("Пирамида {}x{} ({} фигур, {} уровней, {}): записано {} плиток, пустых {}, потоков: {}, {} мс",
+                width, height, batch.size(), coarsest + 1, layout.name(), written, empty, workers,
+                (System.nanoTime() - started) / 1_000_000);
+        return new Summary(coarsest + 1, written, empty);
+    }
+
+    /**
+     * Уровень пирамиды: изображение, уменьшенное в {@code 2^shift} раз.
+     */
+    private static final class Level {
+
+        private final int number;
+        private final int width;
+        private final int height;
+        private final int columns;
+        private final int rows;
+        private final boolean padded;
+        private final Viewport viewport;
+        private final Layout layout;
+
+        /**
+         * @param number номер уровня в пирамиде
+         * @param shift степень двойки уменьшения
+         * @param width ширина наибольшего уровня
+         * @param height высота наибольшего уровня
+         * @param params параметры генерации
+         * @param layout размещение файлов
+         */
+        private Level(int number, int shift, int width, int height, GenerationParams params, Layout layout) {
+            this.number = number;
+            this.width = (int) (((long) width + (1L << shift) - 1) >> shift);
+            this.height = (int) (((long) height + (1L << shift) - 1) >> shift);
+            this.columns = (this.width + TILE_SIZE - 1) / TILE_SIZE;
+            this.rows = (this.height + TILE_SIZE - 1) / TILE_SIZE;
+            this.padded = layout == Layout.XYZ;
+            this.layout = layout;
+            // Масштаб ровно вдвое меньше, чем у соседнего более детального уровня (без округления размера)
+            this.viewport = params.viewport(Math.scalb((double) width, -shift), Math.scalb((double) height, -shift));
+        }
+
+        /**
+         * @param tiles каталог плиток
+         * @param column столбец плитки
+         * @param row строка плитки
+         * @return путь к файлу плитки
+         */
+        private Path tilePath(Path tiles, int column, int row) {
+            return layout == Layout.DZI
+                    ? tiles.resolve(Integer.toString(number)).resolve(column + "_" + row + ".png")
+                    : tiles.resolve(Integer.toString(number)).resolve(Integer.toString(column)).resolve(row + ".png");
+        }
+    }
+
+    /**
+     * Растеризует и записывает плитки уровня в пуле потоков.
+     *
+     * @param level уровень
+     * @param parents занятые плитки предыдущего (более грубого) уровня; {@code null} — уровень первый
+     * @param parentColumns количество столбцов плиток предыдущего уровня
+     * @param batch сцена
+     * @param index пространственный индекс сцены
+     * @param showGrid флаг отображения сетки
+     * @param tiles каталог плиток
+     * @param pool рабочие потоки
+     * @param workers количество рабочих потоков
+     * @return плитки уровня, которые записаны (не пусты), по номерам {@code строка · columns + столбец}
+     * @throws IOException при ошибке записи
+     */
+    private static BitSet renderLevel(Level level, BitSet parents, int parentColumns, FigureSource batch,
+                                      SpatialIndex index, boolean showGrid, Path tiles,
+                                      ExecutorService pool, int workers) throws IOException {
+        BitSet occupied = new BitSet(level.columns * level.rows);
+        ArrayDeque<Future<Integer>> inFlight = new ArrayDeque<>();
+        try {
+            for (int row = 0; row < level.rows; row++) {
+                for (int column = 0; column < level.columns; column++) {
+                    if (!showGrid && parents != null && !parents.get((row / 2) * parentColumns + column / 2)) {
+                        continue;
+                    }
+                    if (inFlight.size() >= 2 * workers) {
+                        mark(occupied, inFlight.poll().get());
+                    }
+                    int tileColumn = column;
+                    int tileRow = row;
+                    inFlight.add(pool.submit(() ->
+                            renderTile(level, tileColumn, tileRow, batch, index, showGrid, tiles)));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                mark(occupied, inFlight.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Экспорт прерван", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Ошибка записи плитки", e.getCause());
+        }
+        return occupied;
+    }
+
+    /**
+     * @param occupied занятые плитки
+     * @param tile номер записанной плитки или −1, если плитка пуста
+     */
+    private static void mark(BitSet occupied, int tile) {
+        if (tile >= 0) {
+            occupied.set(tile);
+        }
+    }
+
+    /**
+     * Растеризует одну плитку и записывает её в PNG, если она не пуста.
+     *
+     * @param level уровень
+     * @param column столбец плитки
+     * @param row строка плитки
+     * @param batch сцена
+     * @param index пространственный индекс сцены
+     * @param showGrid флаг отображения сетки
+     * @param tiles каталог плиток
+     * @return номер плитки на уровне или −1, если плитка пуста и не записана
+     * @throws IOException при ошибке записи
+     */
+    private static int renderTile(Level level, int column, int row, FigureSource batch, SpatialIndex index,
+                                  boolean showGrid, Path tiles) throws IOException {
+        int x0 = column * TILE_SIZE;
+        int y0 = row * TILE_SIZE;
+        int x1 = Math.min(x0 + TILE_SIZE, level.width);
+        int y1 = Math.min(y0 + TILE_SIZE, level.height);
+        int[] figures = DrawingRenderer.queryPixels(index, level.viewport, x0, y0, x1, y1);
+        if (figures.length == 0 && !showGrid) {
+            return -1;
+        }
+
+        int tileWidth = level.padded ? TILE_SIZE : x1 - x0;
+        int tileHeight = level.padded ? TILE_SIZE : y1 - y0;
+        int[] pixels = new int[tileWidth * tileHeight];
+        if (level.padded) {
+            Arrays.fill(pixels, DrawingRenderer.BACKGROUND);
+        }
+        RasterRenderTarget target = new RasterRenderTarget(pixels, tileWidth, tileHeight, x0, y0);
+        target.setClip(x0, y0, x1, y1);
+        target.clear(DrawingRenderer.BACKGROUND);
+        if (showGrid) {
+            DrawingRenderer.drawGrid(target, level.viewport);
+        }
+        DrawingRenderer.drawEach(target, batch, figures, 0, figures.length, level.viewport);
+
+        Path file = level.tilePath(tiles, column, row);
+        Files.createDirectories(file.getParent());
+        byte[] raw = new byte[PngStreamWriter.rawBandSize(tileWidth, tileHeight)];
+        int length = PngStreamWriter.filterRows(pixels, tileWidth, tileHeight, raw);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+             PngStreamWriter writer = new PngStreamWriter(out, tileWidth, tileHeight,
+                     PosterExporter.DEFAULT_COMPRESSION, false)) {
+            writer.writeRows(raw, length, tileHeight);
+        }
+        return row * level.columns + column;
+    }
+
+    /**
+     * Записывает файл описания Deep Zoom.
+     *
+     * @param file путь к файлу {@code .dzi}
+     * @param width ширина изображения
+     * @param height высота изображения
+     * @throws IOException при ошибке записи
+     */
+    private static void writeDescriptor(Path file, int width, int height) throws IOException {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<Image xmlns=\"http://schemas.microsoft.com/deepzoom/2008\" Format=\"png\" Overlap=\"0\" TileSize=\""
+                + TILE_SIZE + "\">\n"
+                + "  <Size Width=\"" + width + "\" Height=\"" + height + "\"/>\n"
+                + "</Image>\n";
+        Files.writeString(file, xml, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Проверяет, что каталог плиток не существует или пуст: пустые плитки не записываются,
+     * поэтому файлы прежнего экспорта остались бы на их месте.
+     *
+     * @param tiles каталог плиток
+     * @throws IOException если каталог содержит файлы
+     */
+    private static void requireEmpty(Path tiles) throws IOException {
+        if (!Files.isDirectory(tiles)) {
+            return;
+        }
+        try (Stream<Path> entries = Files.list(tiles)) {
+            if (entries.findAny().isPresent()) {
+                throw new IOException("Каталог плиток не пуст: " + tiles);
+            }
+        }
+    }
+
+    /**
+     * @param file путь к файлу
+     * @return имя файла без расширения
+     */
+    private static String baseName(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    /**
+     * @param value положительное число
+     * @return наименьшее {@code k}, при котором {@code 2^k ≥ value}
+     */
+    private static int ceilLog2(int value) {
+        return value <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(value - 1);
+    }
+}
@@ -0,0 +1,176 @@
+package org.example;
+
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Многопоточный рендерер: делит холст на плитки, раскладывает по ним фигуры
+ * по ограничивающим прямоугольникам и растеризует плитки параллельно в {@link ForkJoinPool}.
+ * Каждая плитка рисует фон, сетку и свои фигуры в исходном порядке, поэтому результат
+ * попиксельно совпадает с последовательной отрисовкой {@link DrawingRenderer#drawBatch(RenderTarget, FigureSource, Viewport, boolean)}
+ * в {@link RasterRenderTarget}.
+ */
+public class TileRenderer implements AutoCloseable {
+
+    private static final Logger logger = LoggingConfig.getLogger(TileRenderer.class);
+
+    /**
+     * Минимальная сторона плитки при автоматическом выборе размера.
+     */
+    public static final int MIN_TILE_SIZE = 64;
+
+    /**
+     * Желаемое количество плиток на рабочий поток при автоматическом выборе размера:
+     * достаточно для балансировки нагрузки и не слишком много, чтобы не повторять
+     * вычисление вершин крупных фигур в каждой плитке.
+     */
+    private static final int TILES_PER_WORKER = 4;
+
+    private final ForkJoinPool pool;
+    private final int workers;
+    private final int tileSize;
+
+    /**
+     * Создаёт рендерер с заданным числом рабочих потоков; размер плитки подбирается по размеру холста.
+     *
+     * @param workers количество рабочих потоков (не менее 1)
+     */
+    public TileRenderer(int workers) {
+        this(workers, 0);
+    }
+
+    /**
+     * Создаёт рендерер с заданным числом рабочих потоков и размером плитки.
+     *
+     * @param workers количество рабочих потоков (не менее 1)
+     * @param tileSize сторона квадратной плитки в пикселях; 0 — подбирать автоматически
+     */
+    public TileRenderer(int workers, int tileSize) {
+        if (workers < 1 || tileSize < 0) {
+            throw new IllegalArgumentException("Некорректные параметры: workers=" + workers + ", tileSize=" + tileSize);
+        }
+        this.workers = workers;
+        this.tileSize = tileSize;
+        this.pool = new ForkJoinPool(workers);
+    }
+
+    /**
+     * Отрисовывает набор фигур в растр, распределяя плитки по рабочим потокам.
+     * Размер растра должен совпадать с размером холста в {@code viewport}.
+     *
+     * @param target растр для вывода
+     * @param batch набор фигур
+     * @param viewport соответствие логических координат пикселям
+     * @param showGrid флаг отображения координатной сетки
+     */
+    public void render(RasterRenderTarget target, FigureSource batch, Viewport viewport, boolean showGrid) {
+        long started = System.nanoTime();
+        int side = tileSize > 0 ? tileSize : autoTileSize(viewport);
+        TileBins bins = TileBins.build(batch, viewport, side, side);
+        long binned = System.nanoTime();
+
+        int[] pixels = target.getPixels();
+        int width = (int) target.getWidth();
+        int height = (int) target.getHeight();
+        pool.invoke(new TileTask(bins, 0, bins.columns() * bins.rows(),
+                pixels, width, height, batch, viewport, showGrid));
+        Metrics.DRAW.record(System.nanoTime() - binned);
+        Metrics.FIGURES_DRAWN.add(batch.size());
+
+        logger.debug("Плиточная отрисовка {} фигур ({}x{}, {} плиток, {} потоков): разбиение {} мс, всего {} мс",
+                batch.size(), width, height, bins.columns() * bins.rows(), workers,
+                (binned - started) / 1_000_000, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Подбирает сторону плитки так, чтобы на каждый поток приходилось около {@link #TILES_PER_WORKER} плиток.
+     *
+     * @param viewport окно просмотра с размером холста
+     * @return сторона плитки в пикселях
+     */
+    private int autoTileSize(Viewport viewport) {
+        double area = Math.max(1, viewport.getWidth() * viewport.getHeight());
+        return (int) Math.max(MIN_TILE_SIZE, Math.ceil(Math.sqrt(area / ((double) workers * TILES_PER_WORKER))));
+    }
+
+    /**
+     * @return количество рабочих потоков
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Останавливает пул рабочих потоков.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Отрисовывает одну плитку: фон, сетку и фигуры плитки с отсечением по её границам.
+     *
+     * @param bins разбиение фигур по плиткам
+     * @param tile номер плитки
+     * @param target растр рабочего потока поверх общего буфера
+     * @param batch набор фигур
+     * @param viewport соответствие логических координат пикселям
+     * @param showGrid флаг отображения сетки
+     */
+    static void renderTile(TileBins bins, int tile, RasterRenderTarget target,
+                           FigureSource batch, Viewport viewport, boolean showGrid) {
+        int tx = tile % bins.columns();
+        int ty = tile / bins.columns();
+        int x0 = tx * bins.tileWidth();
+        int y0 = ty * bins.tileHeight();
+        target.setClip(x0, y0, x0 + bins.tileWidth(), y0 + bins.tileHeight());
+        target.clear(DrawingRenderer.BACKGROUND);
+        if (showGrid) {
+            DrawingRenderer.drawGrid(target, viewport);
+        }
+        DrawingRenderer.drawEach(target, batch, bins.figures(), bins.start(tile), bins.end(tile), viewport);
+    }
+
+    /**
+     * Задача, рекурсивно делящая диапазон плиток пополам до одной плитки.
+     */
+    private static final class TileTask extends RecursiveAction {
+        private final TileBins bins;
+        private final int from;
+        private final int to;
+        private final int[] pixels;
+        private final int width;
+        private final int height;
+        private final FigureSource batch;
+        private final Viewport viewport;
+        private final boolean showGrid;
+
+        TileTask(TileBins bins, int from, int to, int[] pixels, int width, int height,
+                 FigureSource batch, Viewport viewport, boolean showGrid) {
+            this.bins = bins;
+            this.from = from;
+            this.to = to;
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+            this.batch = batch;
+            this.viewport = viewport;
+            this.showGrid = showGrid;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileTask(bins, from, mid, pixels, width, height, batch, viewport, showGrid),
+                        new TileTask(bins, mid, to, pixels, width, height, batch, viewport, showGrid));
+                return;
+            }
+            RasterRenderTarget target = new RasterRenderTarget(pixels, width, height);
+            renderTile(bins, from, target, batch, viewport, showGrid);
+        }
+    }
+}
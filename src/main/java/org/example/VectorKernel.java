@@ -0,0 +1,157 @@
+package org.example;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Векторная реализация пакетных ядер на {@code jdk.incubator.vector}: значения потока, доли и координаты
+ * считаются сразу в нескольких дорожках SIMD предпочтительной для процессора ширины (на AVX-512 — 8 чисел
+ * {@code long}/{@code double} за операцию). Остаток массива, не кратный количеству дорожек, обрабатывается
+ * скалярно теми же формулами, что и в {@link BulkKernels.Scalar}.
+ * <p>
+ * Класс загружается только через {@link BulkKernels}, когда модуль {@code jdk.incubator.vector} подключён.
+ */
+final class VectorKernel implements BulkKernels.Kernel {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * Виды с тем же количеством дорожек для 32-битных элементов (вдвое уже).
+     */
+    private static final VectorSpecies<Float> FLOATS =
+            VectorSpecies.of(float.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+
+    private static final int LANES = LONGS.length();
+
+    /**
+     * Смещения счётчика по дорожкам: {@code lane · γ}.
+     */
+    private static final LongVector LANE_STEPS = LongVector.zero(LONGS).addIndex(1).mul(BulkKernels.GAMMA);
+
+    /**
+     * Значения потока для дорожек, начиная с номера {@code index}.
+     *
+     * @param seed зерно потока
+     * @param index номер значения первой дорожки
+     * @return значения потока
+     */
+    private static LongVector bits(long seed, long index) {
+        LongVector z = LANE_STEPS.add(seed + (index + 1) * BulkKernels.GAMMA);
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 30)).mul(0xBF58476D1CE4E5B9L);
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 27)).mul(0x94D049BB133111EBL);
+        return z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 31));
+    }
+
+    /**
+     * Доли [0, 1), отображённые в диапазон: {@code origin + u · range}.
+     *
+     * @param seed зерно потока
+     * @param index номер значения первой дорожки
+     * @param origin начало диапазона
+     * @param range длина диапазона
+     * @return значения диапазона
+     */
+    private static DoubleVector uniform(long seed, long index, double origin, double range) {
+        DoubleVector u = (DoubleVector) bits(seed, index).lanewise(VectorOperators.LSHR, 11)
+                .convert(VectorOperators.L2D, 0);
+        return u.mul(BulkKernels.DOUBLE_UNIT).mul(range).add(origin);
+    }
+
+    @Override
+    public void randomDoubles(long seed, long first, double origin, double range, double[] out, int n) {
+        int i = 0;
+        for (int bound = LONGS.loopBound(n); i < bound; i += LANES) {
+            uniform(seed, first + i, origin, range).intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = origin + ((BulkKernels.bits(seed, first + i) >>> 11) * BulkKernels.DOUBLE_UNIT) * range;
+        }
+    }
+
+    @Override
+    public void randomFloats(long seed, long first, double origin, double range, float[] out, int offset, int n) {
+        int i = 0;
+        for (int bound = LONGS.loopBound(n); i < bound; i += LANES) {
+            ((FloatVector) uniform(seed, first + i, origin, range).convertShape(VectorOperators.D2F, FLOATS, 0))
+                    .intoArray(out, offset + i);
+        }
+        for (; i < n; i++) {
+            out[offset + i] = (float) (origin
+                    + ((BulkKernels.bits(seed, first + i) >>> 11) * BulkKernels.DOUBLE_UNIT) * range);
+        }
+    }
+
+    @Override
+    public void randomColors(long seed, long first, int[] out, int offset, int n) {
+        int i = 0;
+        for (int bound = LONGS.loopBound(n); i < bound; i += LANES) {
+            LongVector z = bits(seed, first + i);
+            LongVector r = z.lanewise(VectorOperators.LSHR, 43)
+                    .mul(BulkKernels.COLOR_LEVELS).lanewise(VectorOperators.LSHR, 21);
+            LongVector g = z.lanewise(VectorOperators.LSHR, 22).and(0x1FFFFF)
+                    .mul(BulkKernels.COLOR_LEVELS).lanewise(VectorOperators.LSHR, 21);
+            LongVector b = z.lanewise(VectorOperators.LSHR, 1).and(0x1FFFFF)
+                    .mul(BulkKernels.COLOR_LEVELS).lanewise(VectorOperators.LSHR, 21);
+            LongVector rgb = r.lanewise(VectorOperators.LSHL, 16)
+                    .or(g.lanewise(VectorOperators.LSHL, 8)).or(b);
+            ((IntVector) rgb.convertShape(VectorOperators.L2I, INTS, 0)).intoArray(out, offset + i);
+        }
+        for (; i < n; i++) {
+            out[offset + i] = BulkKernels.color(BulkKernels.bits(seed, first + i));
+        }
+    }
+
+    @Override
+    public void randomIndices(long seed, long first, int bound, int[] out, int n) {
+        int i = 0;
+        for (int loopBound = LONGS.loopBound(n); i < loopBound; i += LANES) {
+            LongVector index = bits(seed, first + i).lanewise(VectorOperators.LSHR, 32).mul(bound)
+                    .lanewise(VectorOperators.LSHR, 32);
+            ((IntVector) index.convertShape(VectorOperators.L2I, INTS, 0)).intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = (int) (((BulkKernels.bits(seed, first + i) >>> 32) * bound) >>> 32);
+        }
+    }
+
+    @Override
+    public void toFloats(double[] in, float[] out, int offset, int n) {
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(n); i < bound; i += LANES) {
+            ((FloatVector) DoubleVector.fromArray(DOUBLES, in, i).convertShape(VectorOperators.D2F, FLOATS, 0))
+                    .intoArray(out, offset + i);
+        }
+        for (; i < n; i++) {
+            out[offset + i] = (float) in[i];
+        }
+    }
+
+    @Override
+    public void affine(float[] values, float[] deltas, double k, double origin, double scale, double offset,
+                       double[] out, int n) {
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(n); i < bound; i += LANES) {
+            DoubleVector v = (DoubleVector) FloatVector.fromArray(FLOATS, values, i)
+                    .convertShape(VectorOperators.F2D, DOUBLES, 0);
+            DoubleVector d = (DoubleVector) FloatVector.fromArray(FLOATS, deltas, i)
+                    .convertShape(VectorOperators.F2D, DOUBLES, 0);
+            v.add(d.mul(k)).sub(origin).mul(scale).sub(offset).intoArray(out, i);
+        }
+        for (; i < n; i++) {
+            out[i] = ((values[i] + k * deltas[i]) - origin) * scale - offset;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "векторные, " + LANES + " дорожек по 64 бита";
+    }
+}
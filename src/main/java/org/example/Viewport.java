@@ -0,0 +1,209 @@
+package org.example;
+
+/**
+ * Окно просмотра: соответствие логической области {@code xMin..xMax × yMin..yMax}
+ * и пиксельного холста заданного размера. Ось Y направлена вверх в логических координатах
+ * и вниз в пикселях.
+ * <p>
+ * Окно можно сдвинуть на целое число пикселей ({@link #panned(int, int)}): преобразование
+ * при этом вычисляется от исходной области с вычитанием сдвига, поэтому пиксельные координаты фигур
+ * в сдвинутом окне отличаются от прежних ровно на величину сдвига. На этом основана
+ * прокрутка с перерисовкой только открывшихся полос.
+ * <p>
+ * Масштабы по осям вычисляются один раз при создании, поэтому преобразование координаты
+ * в пиксели — одно вычитание, одно умножение и вычитание сдвига, без деления.
+ * Для массивов координат те же формулы вычисляются пакетно ({@link #toPixelsX}, {@link #toPixelsY})
+ * через {@link BulkKernels} с тем же результатом, что и покоординатно.
+ */
+public final class Viewport {
+
+    private final double xMin;
+    private final double xMax;
+    private final double yMin;
+    private final double yMax;
+    private final double width;
+    private final double height;
+    private final double offsetX;
+    private final double offsetY;
+    private final double scaleX;
+    private final double scaleY;
+    private final double visibleXMin;
+    private final double visibleXMax;
+    private final double visibleYMin;
+    private final double visibleYMax;
+
+    /**
+     * Создаёт окно просмотра.
+     *
+     * @param xMin минимальное значение по оси X в логических координатах
+     * @param xMax максимальное значение по оси X в логических координатах
+     * @param yMin минимальное значение по оси Y в логических координатах
+     * @param yMax максимальное значение по оси Y в логических координатах
+     * @param width ширина холста в пикселях
+     * @param height высота холста в пикселях
+     */
+    public Viewport(double xMin, double xMax, double yMin, double yMax, double width, double height) {
+        this(xMin, xMax, yMin, yMax, width, height, 0, 0);
+    }
+
+    private Viewport(double xMin, double xMax, double yMin, double yMax, double width, double height,
+                     double offsetX, double offsetY) {
+        this.xMin = xMin;
+        this.xMax = xMax;
+        this.yMin = yMin;
+        this.yMax = yMax;
+        this.width = width;
+        this.height = height;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.scaleX = width / (xMax - xMin);
+        this.scaleY = height / (yMax - yMin);
+        double shiftX = offsetX / width * (xMax - xMin);
+        double shiftY = offsetY / height * (yMax - yMin);
+        this.visibleXMin = xMin + shiftX;
+        this.visibleXMax = xMax + shiftX;
+        this.visibleYMin = yMin - shiftY;
+        this.visibleYMax = yMax - shiftY;
+    }
+
+    /**
+     * Возвращает окно, в котором изображение сдвинуто на целое число пикселей.
+     *
+     * @param dx сдвиг изображения вправо в пикселях
+     * @param dy сдвиг изображения вниз в пикселях
+     * @return сдвинутое окно просмотра
+     */
+    public Viewport panned(int dx, int dy) {
+        return new Viewport(xMin, xMax, yMin, yMax, width, height, offsetX - dx, offsetY - dy);
+    }
+
+    /**
+     * Возвращает окно, масштабированное относительно точки холста: логическая точка
+     * под этим пикселем остаётся на месте.
+     *
+     * @param factor коэффициент увеличения (больше 1 — приближение)
+     * @param px X точки в пикселях
+     * @param py Y точки в пикселях
+     * @return масштабированное окно просмотра (без сдвига)
+     */
+    public Viewport zoomed(double factor, double px, double py) {
+        double x = toLogicalX(px);
+        double y = toLogicalY(py);
+        double spanX = (visibleXMax - visibleXMin) / factor;
+        double spanY = (visibleYMax - visibleYMin) / factor;
+        double newXMin = x - px / width * spanX;
+        double newYMax = y + py / height * spanY;
+        return new Viewport(newXMin, newXMin + spanX, newYMax - spanY, newYMax, width, height);
+    }
+
+    /**
+     * Преобразует логическую координату X в пиксельную.
+     *
+     * @param x логическая координата
+     * @return координата в пикселях
+     */
+    public double toPixelX(double x) {
+        return (x - xMin) * scaleX - offsetX;
+    }
+
+    /**
+     * Преобразует логическую координату Y в пиксельную.
+     *
+     * @param y логическая координата
+     * @return координата в пикселях
+     */
+    public double toPixelY(double y) {
+        return (yMax - y) * scaleY - offsetY;
+    }
+
+    /**
+     * Пакетно преобразует логические координаты X вершин {@code values[i] + k · deltas[i]} в пиксельные.
+     * Результат побитно совпадает с {@code toPixelX(values[i] + k * deltas[i])}.
+     *
+     * @param values координаты (например, центры фигур)
+     * @param deltas смещения вершин (например, размеры фигур)
+     * @param k множитель смещений (например, −1 для левой границы)
+     * @param out пиксельные координаты
+     * @param n количество координат
+     */
+    public void toPixelsX(float[] values, float[] deltas, double k, double[] out, int n) {
+        BulkKernels.affine(values, deltas, k, xMin, scaleX, offsetX, out, n);
+    }
+
+    /**
+     * Пакетно преобразует логические координаты Y вершин {@code values[i] + k · deltas[i]} в пиксельные.
+     * Результат побитно совпадает с {@code toPixelY(values[i] + k * deltas[i])}: смена знаков
+     * разности и масштаба в {@code (y − yMax) · (−scaleY)} выполняется без округления.
+     *
+     * @param values координаты
+     * @param deltas смещения вершин
+     * @param k множитель смещений
+     * @param out пиксельные координаты
+     * @param n количество координат
+     */
+    public void toPixelsY(float[] values, float[] deltas, double k, double[] out, int n) {
+        BulkKernels.affine(values, deltas, k, yMax, -scaleY, offsetY, out, n);
+    }
+
+    /**
+     * Преобразует пиксельную координату X в логическую.
+     *
+     * @param px координата в пикселях
+     * @return логическая координата
+     */
+    public double toLogicalX(double px) {
+        return xMin + (px + offsetX) / width * (xMax - xMin);
+    }
+
+    /**
+     * Преобразует пиксельную координату Y в логическую.
+     *
+     * @param py координата в пикселях
+     * @return логическая координата
+     */
+    public double toLogicalY(double py) {
+        return yMax - (py + offsetY) / height * (yMax - yMin);
+    }
+
+    /**
+     * @return минимальное видимое значение по оси X в логических координатах
+     */
+    public double getXMin() {
+        return visibleXMin;
+    }
+
+    /**
+     * @return максимальное видимое значение по оси X в логических координатах
+     */
+    public double getXMax() {
+        return visibleXMax;
+    }
+
+    /**
+     * @return минимальное видимое значение по оси Y в логических координатах
+     */
+    public double getYMin() {
+        return visibleYMin;
+    }
+
+    /**
+     * @return максимальное видимое значение по оси Y в логических координатах
+     */
+    public double getYMax() {
+        return visibleYMax;
+    }
+
+    /**
+     * @return ширина холста в пикселях
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * @return высота холста в пикселях
+     */
+    public double getHeight() {
+        return height;
+    }
+}